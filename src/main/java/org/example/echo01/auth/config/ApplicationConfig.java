@@ -1,27 +1,35 @@
 package org.example.echo01.auth.config;
 
 import lombok.RequiredArgsConstructor;
-import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.auth.hashing.OffloadingPasswordEncoder;
+import org.example.echo01.auth.hashing.PasswordEncoderCalibrator;
+import org.example.echo01.auth.hashing.PasswordHashingExecutor;
+import org.example.echo01.auth.services.PasswordUpgradeService;
+import org.example.echo01.auth.services.UserCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
-    private final UserRepository repository;
+    private final UserCache userCache;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PasswordEncoderCalibrator passwordEncoderCalibrator;
+    private final PasswordUpgradeService passwordUpgradeService;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> repository.findByEmail(username)
+        return username -> userCache.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
@@ -30,6 +38,7 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(passwordUpgradeService);
         return authProvider;
     }
 
@@ -40,6 +49,6 @@ public class ApplicationConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new OffloadingPasswordEncoder(passwordEncoderCalibrator.create(), passwordHashingExecutor);
     }
 } 
\ No newline at end of file
@@ -8,10 +8,20 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.AuthenticationMode;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
 import org.example.echo01.auth.repositories.TokenRepository;
 import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.example.echo01.auth.services.TokenWriteBehind;
+import org.example.echo01.auth.services.VerifiedToken;
+import org.example.echo01.auth.services.VerifiedTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,6 +32,7 @@ import org.springframework.stereotype.Component;
 import java.io.IOException;
 
 @Component
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter implements Filter {
 
@@ -30,6 +41,12 @@ public class JwtAuthenticationFilter implements Filter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
     private final TokenRepository tokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenWriteBehind tokenWriteBehind;
+
+    @Value("${application.security.jwt.authentication-mode:stateful}")
+    private AuthenticationMode authenticationMode;
 
     @Override
     public void doFilter(
@@ -47,17 +64,29 @@ public class JwtAuthenticationFilter implements Filter {
                 return;
             }
 
-            final String jwt = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwt);
+            final VerifiedToken token = resolveToken(httpRequest, authHeader.substring(7));
+            if (authenticationMode == AuthenticationMode.STATELESS) {
+                authenticateFromClaims(token, httpRequest);
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            final String userEmail = token.subject();
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (userEmail != null && !token.isRefreshToken()
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
                 
-                var isTokenValid = tokenRepository.findByToken(jwt)
-                        .map(t -> !t.isExpired() && !t.isRevoked())
-                        .orElse(false);
+                var jti = token.jti();
+                // Tokens issued by this instance may not be written yet, nor the revocation of older ones
+                var isTokenValid = jti != null && tokenWriteBehind.findUnflushed(jti)
+                        .or(() -> tokenRepository.findByJti(jti))
+                        .map(t -> t.getTokenType() == TokenType.ACCESS && !t.isExpired() && !t.isRevoked())
+                        .orElse(false)
+                        && !tokenRevocationService.isRevoked(token);
 
-                if (Boolean.TRUE.equals(isTokenValid) && jwtService.isTokenValid(jwt, userDetails)) {
+                if (Boolean.TRUE.equals(isTokenValid) && userDetails.isEnabled()
+                        && jwtService.isTokenValid(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -77,6 +106,57 @@ public class JwtAuthenticationFilter implements Filter {
         }
     }
 
+    /**
+     * Parses the bearer token at most once per request; the result is kept as a request
+     * attribute so downstream code can reuse it through {@link VerifiedToken#REQUEST_ATTRIBUTE}.
+     */
+    private VerifiedToken resolveToken(HttpServletRequest httpRequest, String jwt) {
+        Object cached = httpRequest.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE);
+        if (cached instanceof VerifiedToken token && token.token().equals(jwt)) {
+            return token;
+        }
+        VerifiedToken token = verifiedTokenCache.verify(jwt);
+        httpRequest.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, token);
+        return token;
+    }
+
+    /**
+     * Stateless fast-path: the signature and expiry checks done while parsing are enough to trust
+     * the embedded user id and role, and revocation is answered from memory, so no query is issued.
+     * Tokens issued before the {@code uid}/{@code role} claims existed, and refresh tokens, are left
+     * unauthenticated. Refresh tokens signed before the {@code typ} claim was added carry the same
+     * claims as access tokens, so they are told apart by living longer than an access token can.
+     */
+    private void authenticateFromClaims(VerifiedToken token, HttpServletRequest httpRequest) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+
+        if (token.id() == null || token.userId() == null || token.role() == null || !isAccessToken(token)
+                || tokenRevocationService.isRevoked(token)) {
+            return;
+        }
+
+        User principal = User.builder()
+                .id(token.userId())
+                .email(token.subject())
+                .role(Role.valueOf(token.role()))
+                .build();
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                principal.getAuthorities()
+        );
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpRequest));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    private boolean isAccessToken(VerifiedToken token) {
+        // iat and exp are whole seconds, so the lifetime read back can be up to a second longer
+        return !token.isRefreshToken()
+                && token.expiresAtMillis() - token.issuedAtMillis() <= jwtService.accessTokenLifetimeMillis() + 1000;
+    }
+
     @Override
     public void init(jakarta.servlet.FilterConfig filterConfig) throws ServletException {
         // No initialization needed
@@ -0,0 +1,115 @@
+package org.example.echo01.auth.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.AuthenticationMode;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.ReactiveTokenRepository;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.example.echo01.auth.services.VerifiedToken;
+import org.example.echo01.auth.services.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * {@link JwtAuthenticationFilter} for the reactive stack. Tokens are verified through the same
+ * {@link VerifiedTokenCache}, on the event loop when the token is cached or its signing key is known;
+ * a token with an unknown {@code kid} makes the key ring reload from the database, so it is verified
+ * on {@link Schedulers#boundedElastic()} instead. The stateless mode answers revocation from the
+ * in-memory index, the stateful mode checks token and user with a single R2DBC query.
+ * <p>
+ * Not a bean: WebFlux would otherwise also apply it to every exchange outside the security chain.
+ */
+@RequiredArgsConstructor
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveJwtAuthenticationFilter.class);
+
+    private final JwtService jwtService;
+    private final ReactiveTokenRepository tokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthenticationMode authenticationMode;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        final String jwt = authHeader.substring(7);
+        if (verifiedTokenCache.verifiesWithoutBlocking(jwt)) {
+            return authenticate(exchange, chain, jwt);
+        }
+        return Mono.defer(() -> authenticate(exchange, chain, jwt))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<Void> authenticate(ServerWebExchange exchange, WebFilterChain chain, String jwt) {
+        final VerifiedToken token;
+        try {
+            token = verifiedTokenCache.verify(jwt);
+        } catch (Exception e) {
+            logger.error("JWT Authentication error: {}", e.getMessage());
+            return unauthorized(exchange.getResponse(), e);
+        }
+        exchange.getAttributes().put(VerifiedToken.REQUEST_ATTRIBUTE, token);
+
+        Mono<Authentication> authentication = authenticationMode == AuthenticationMode.STATELESS
+                ? authenticateFromClaims(token)
+                : authenticateFromDatabase(token);
+        // The chain itself completes empty, so switchIfEmpty would run it a second time
+        return authentication
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(result -> result
+                        .map(auth -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth)))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    private Mono<Authentication> authenticateFromDatabase(VerifiedToken token) {
+        if (token.subject() == null || token.isRefreshToken() || token.jti() == null) {
+            return Mono.empty();
+        }
+        return tokenRepository.findUserOfValidAccessToken(token.jti())
+                .filter(user -> user.isEnabled() && jwtService.isTokenValid(token, user))
+                .<Authentication>map(user -> new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    /** Same trust rules as the servlet filter's stateless fast-path. */
+    private Mono<Authentication> authenticateFromClaims(VerifiedToken token) {
+        if (token.id() == null || token.userId() == null || token.role() == null || token.isRefreshToken()
+                || tokenRevocationService.isRevoked(token)) {
+            return Mono.empty();
+        }
+        User principal = User.builder()
+                .id(token.userId())
+                .email(token.subject())
+                .role(Role.valueOf(token.role()))
+                .build();
+        return Mono.just(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private static Mono<Void> unauthorized(ServerHttpResponse response, Exception e) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        byte[] body = ("Authentication failed: " + e.getMessage()).getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.echo01.auth.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.enums.AuthenticationMode;
+import org.example.echo01.auth.hashing.PasswordEncoderCalibrator;
+import org.example.echo01.auth.repositories.ReactiveTokenRepository;
+import org.example.echo01.auth.repositories.ReactiveUserRepository;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.PasswordUpgradeService;
+import org.example.echo01.auth.services.ReactiveAuthenticationService;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.example.echo01.auth.services.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link SecurityConfig} for the {@code reactive} profile: the same public URLs, stateless
+ * sessions and logout endpoint, with the JWT check as a {@link ReactiveJwtAuthenticationFilter}.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@RequiredArgsConstructor
+public class ReactiveSecurityConfig {
+
+    private final JwtService jwtService;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveTokenRepository tokenRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final PasswordEncoderCalibrator passwordEncoderCalibrator;
+    private final PasswordUpgradeService passwordUpgradeService;
+
+    @Value("${application.security.jwt.authentication-mode:stateful}")
+    private AuthenticationMode authenticationMode;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http,
+            ReactiveAuthenticationService authenticationService
+    ) {
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers(SecurityConfig.WHITE_LIST_URL)
+                .permitAll()
+                .anyExchange()
+                .authenticated()
+            )
+            // Anonymous requests get 403, as from the servlet stack's default entry point
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN))
+            )
+            .addFilterAt(new ReactiveJwtAuthenticationFilter(jwtService, tokenRepository, tokenRevocationService,
+                    verifiedTokenCache, authenticationMode), SecurityWebFiltersOrder.AUTHENTICATION)
+            .logout(logout -> logout
+                .requiresLogout(ServerWebExchangeMatchers.pathMatchers("/api/v1/auth/logout"))
+                .logoutHandler((exchange, authentication) -> authenticationService.logout(exchange.getExchange()))
+                .logoutSuccessHandler((exchange, authentication) -> Mono.empty())
+            )
+            .build();
+    }
+
+    /**
+     * Runs password hashing off the event loop with the limits of the servlet stack's
+     * {@code PasswordHashingExecutor}: at most {@code pool-size} hashes at once and
+     * {@code queue-capacity} waiting; anything beyond is rejected and answered with 503.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(
+            @Value("${application.security.password-hashing.pool-size:0}") int poolSize,
+            @Value("${application.security.password-hashing.queue-capacity:64}") int queueCapacity
+    ) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "password-hash");
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(Scheduler passwordHashingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(
+                        username -> userRepository.findByEmail(username).cast(UserDetails.class));
+        authenticationManager.setPasswordEncoder(passwordEncoder());
+        authenticationManager.setScheduler(passwordHashingScheduler);
+        // Only queues the new hash, it is written by a scheduled batch
+        authenticationManager.setUserDetailsPasswordService((user, newPassword) ->
+                Mono.fromSupplier(() -> passwordUpgradeService.updatePassword(user, newPassword)));
+        return authenticationManager;
+    }
+
+    // Called directly on the hashing scheduler, so without the servlet stack's offloading wrapper
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return passwordEncoderCalibrator.create();
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", SecurityConfig.corsConfiguration());
+        return source;
+    }
+}
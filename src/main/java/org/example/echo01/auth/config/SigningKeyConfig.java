@@ -0,0 +1,49 @@
+package org.example.echo01.auth.config;
+
+import org.example.echo01.auth.keys.HmacSigningKeys;
+import org.example.echo01.auth.keys.RotatingSigningKeyRing;
+import org.example.echo01.auth.keys.SigningKeyCipher;
+import org.example.echo01.auth.keys.SigningKeys;
+import org.example.echo01.auth.repositories.JwtSigningKeyRepository;
+import org.example.echo01.common.locks.JobLocks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class SigningKeyConfig {
+
+    @Value("${application.security.jwt.secret-key}")
+    private String secretKey;
+
+    @Bean
+    @ConditionalOnProperty(name = "application.security.jwt.algorithm", havingValue = "HS256", matchIfMissing = true)
+    public SigningKeys hmacSigningKeys() {
+        return new HmacSigningKeys(secretKey);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.security.jwt.algorithm", havingValue = "ES256")
+    public SigningKeys rotatingSigningKeyRing(
+            JwtSigningKeyRepository repository,
+            JobLocks jobLocks,
+            @Value("${application.security.jwt.keys.accept-hmac:true}") boolean acceptHmac,
+            @Value("${application.security.jwt.keys.encryption-key:}") String encryptionKey,
+            @Value("${application.security.jwt.keys.rotation-interval:86400000}") long rotationInterval,
+            @Value("${application.security.jwt.keys.activation-delay:120000}") long activationDelay,
+            @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration
+    ) {
+        return new RotatingSigningKeyRing(
+                repository,
+                acceptHmac ? new HmacSigningKeys(secretKey) : null,
+                new SigningKeyCipher(encryptionKey),
+                jobLocks,
+                Duration.ofMillis(rotationInterval),
+                Duration.ofMillis(activationDelay),
+                Duration.ofMillis(refreshExpiration)
+        );
+    }
+}
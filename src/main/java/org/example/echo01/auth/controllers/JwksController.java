@@ -0,0 +1,44 @@
+package org.example.echo01.auth.controllers;
+
+import org.example.echo01.auth.keys.SigningKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the verification keys. A new key is published {@code activation-delay} before it signs,
+ * and reaches every instance within {@code refresh-interval}, so responses may be cached for what
+ * is left of the delay: a verifier honouring the header always sees a key before tokens signed
+ * with it.
+ */
+@RestController
+public class JwksController {
+
+    private final SigningKeys signingKeys;
+    private final CacheControl cacheControl;
+
+    public JwksController(
+            SigningKeys signingKeys,
+            @Value("${application.security.jwt.keys.activation-delay:120000}") long activationDelay,
+            @Value("${application.security.jwt.keys.refresh-interval:60000}") long refreshInterval
+    ) {
+        this.signingKeys = signingKeys;
+        long maxAgeMillis = activationDelay - refreshInterval;
+        this.cacheControl = maxAgeMillis >= 1000
+                ? CacheControl.maxAge(Duration.ofMillis(maxAgeMillis)).cachePublic()
+                : CacheControl.noCache();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(Map.of("keys", signingKeys.publicJwks()));
+    }
+}
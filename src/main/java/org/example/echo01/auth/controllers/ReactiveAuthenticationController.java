@@ -0,0 +1,45 @@
+package org.example.echo01.auth.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.dto.request.LoginRequest;
+import org.example.echo01.auth.dto.request.RegisterRequest;
+import org.example.echo01.auth.dto.response.AuthenticationResponse;
+import org.example.echo01.auth.services.ReactiveAuthenticationService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthenticationController {
+
+    private final ReactiveAuthenticationService authenticationService;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthenticationResponse>> register(
+            @RequestBody RegisterRequest request
+    ) {
+        return authenticationService.register(request).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthenticationResponse>> login(
+            @RequestBody LoginRequest request
+    ) {
+        return authenticationService.login(request).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/refresh-token")
+    public Mono<ResponseEntity<AuthenticationResponse>> refreshToken(
+            ServerWebExchange exchange
+    ) {
+        return authenticationService.refreshToken(exchange).map(ResponseEntity::ok);
+    }
+}
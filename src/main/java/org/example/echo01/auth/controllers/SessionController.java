@@ -0,0 +1,44 @@
+package org.example.echo01.auth.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/sessions")
+@RequiredArgsConstructor
+public class SessionController {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    @DeleteMapping
+    public ResponseEntity<Void> logoutEverywhere(@AuthenticationPrincipal User user) {
+        tokenRevocationService.revokeUserTokens(user.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/devices/{deviceId}")
+    public ResponseEntity<Void> logoutDevice(
+            @AuthenticationPrincipal User user,
+            @PathVariable String deviceId
+    ) {
+        tokenRevocationService.revokeDeviceTokens(user.getId(), deviceId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/all")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Void> logoutEveryone() {
+        tokenRevocationService.revokeAllTokens();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.echo01.auth.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,4 +17,8 @@ public class LoginRequest {
 
     @NotBlank(message = "Password is required")
     private String password;
+
+    /** Optional client-chosen device id; logging in again only ends that device's previous session. */
+    @Size(max = 128, message = "Device id must be at most 128 characters")
+    private String deviceId;
 } 
\ No newline at end of file
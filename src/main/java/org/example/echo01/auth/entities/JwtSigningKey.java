@@ -0,0 +1,39 @@
+package org.example.echo01.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Asymmetric signing key shared by all instances through the database, so a token signed by
+ * one node can be verified by any other and published in the JWKS document.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "jwt_signing_keys")
+public class JwtSigningKey {
+    @Id
+    private String kid;
+
+    private String algorithm;
+
+    // PKCS#8 private key, encrypted by SigningKeyCipher
+    @Column(nullable = false, length = 4096)
+    private byte[] privateKey;
+
+    // X.509 public key encoding
+    @Column(nullable = false, length = 4096)
+    private byte[] publicKey;
+
+    private Instant createdAt;
+
+    // Signing starts only once every instance has had a chance to load the key
+    private Instant activatesAt;
+
+    // No token signed with this key can still be valid after this point
+    private Instant retiresAt;
+}
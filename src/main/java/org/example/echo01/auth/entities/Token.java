@@ -5,20 +5,34 @@ import lombok.*;
 import org.example.echo01.auth.enums.TokenType;
 import org.example.echo01.common.audit.Auditable;
 
+import java.time.Instant;
+import java.util.UUID;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "tokens")
+@Table(name = "tokens", indexes = {
+        @Index(name = "idx_tokens_user_valid", columnList = "user_id, revoked, expired"),
+        // Drives the expired-token reaper and the revocation index warm-up
+        @Index(name = "idx_tokens_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_tokens_family", columnList = "family_id")
+})
 @EqualsAndHashCode(callSuper = false)
 public class Token extends Auditable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence rather than identity so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tokens_seq")
+    @SequenceGenerator(name = "tokens_seq", sequenceName = "tokens_seq", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true)
-    private String token;
+    // The token's jti claim rather than the compact JWT: a 16-byte key instead of several hundred
+    @Column(nullable = false, unique = true)
+    private UUID jti;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
 
     @Enumerated(EnumType.STRING)
     private TokenType tokenType;
@@ -27,6 +41,16 @@ public class Token extends Auditable {
 
     private boolean expired;
 
+    @Column(name = "device_id", length = 128)
+    private String deviceId;
+
+    // Every access/refresh pair descending from one login shares the family; each refresh
+    // rotation revokes the current generation and issues the next one
+    @Column(name = "family_id")
+    private UUID familyId;
+
+    private int generation;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -2,7 +2,10 @@ package org.example.echo01.auth.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.echo01.auth.entities.listeners.UserCacheInvalidator;
 import org.example.echo01.auth.enums.Role;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,12 +19,20 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidator.class)
+// Only used when the Hibernate second-level cache is switched on
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @EqualsAndHashCode(callSuper = false)
 public class User implements UserDetails {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Bumped on every update; cached copies older than the latest change are never served
+    @Version
+    private Long version;
+
     private String firstname;
     private String lastname;
     private String email;
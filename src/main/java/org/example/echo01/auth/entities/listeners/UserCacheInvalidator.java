@@ -0,0 +1,28 @@
+package org.example.echo01.auth.entities.listeners;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.services.UserCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * JPA entity listener evicting a user from the {@link UserCache} whenever Hibernate writes a
+ * change to it, so no code path that updates users has to remember to. Hibernate obtains it
+ * from the Spring context; without a cache bean (e.g. in JPA slice tests) it does nothing.
+ */
+public class UserCacheInvalidator {
+
+    @Autowired
+    private ObjectProvider<UserCache> userCache;
+
+    // Runs at flush time with the incremented version, before the change is committed
+    @PostUpdate
+    @PostRemove
+    void evict(User user) {
+        if (userCache != null) {
+            userCache.ifAvailable(cache -> cache.evict(user));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.echo01.auth.enums;
+
+public enum AuthenticationMode {
+    STATEFUL,
+    STATELESS
+}
@@ -0,0 +1,34 @@
+package org.example.echo01.auth.hashing;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Runs the expensive {@code encode} and {@code matches} calls of the wrapped encoder on the
+ * {@link PasswordHashingExecutor}. Used both by registration and by the
+ * {@code DaoAuthenticationProvider} behind login.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute("encode", () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute("matches", () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.echo01.auth.hashing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the application's password encoder. Hashes are stored with an {@code {id}} prefix so
+ * bcrypt, argon2 and pbkdf2 can coexist; new hashes use the configured algorithm, with its cost
+ * measured at startup so one hash takes roughly {@code target-latency} on this hardware. Cost
+ * never drops below the configured floor. Older hashes, including the unprefixed bcrypt hashes
+ * written before this encoder existed, still match and report {@code upgradeEncoding}.
+ */
+@Component
+public class PasswordEncoderCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderCalibrator.class);
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    public static final String PBKDF2 = "pbkdf2";
+
+    static final int MAX_BCRYPT_STRENGTH = 16;
+    static final int MIN_PBKDF2_ITERATIONS = 310_000;
+    static final int MAX_ARGON2_ITERATIONS = 10;
+    // OWASP minimum for argon2id: 19 MiB, 2 iterations, 1 lane
+    static final int ARGON2_MEMORY_KIB = 19 * 1024;
+    static final int MIN_ARGON2_ITERATIONS = 2;
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+    private static final int SAMPLES = 3;
+
+    private final String algorithm;
+    private final boolean calibrate;
+    private final long targetLatencyMillis;
+    private final int bcryptStrength;
+
+    public PasswordEncoderCalibrator(
+            @Value("${application.security.password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${application.security.password-hashing.calibrate:true}") boolean calibrate,
+            @Value("${application.security.password-hashing.target-latency:250}") long targetLatencyMillis,
+            @Value("${application.security.password-hashing.bcrypt-strength:10}") int bcryptStrength
+    ) {
+        this.algorithm = algorithm;
+        this.calibrate = calibrate;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.bcryptStrength = bcryptStrength;
+    }
+
+    public PasswordEncoder create() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, BCRYPT.equals(algorithm) ? bcrypt() : new BCryptPasswordEncoder(bcryptStrength));
+        encoders.put(ARGON2, ARGON2.equals(algorithm) ? argon2() : argon2(MIN_ARGON2_ITERATIONS));
+        encoders.put(PBKDF2, PBKDF2.equals(algorithm) ? pbkdf2() : pbkdf2(MIN_PBKDF2_ITERATIONS));
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalStateException("Unsupported password hashing algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Hashes written before prefixes were introduced are plain bcrypt
+        encoder.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT));
+        return encoder;
+    }
+
+    // bcrypt cost doubles per step: take the highest strength still within the target
+    private PasswordEncoder bcrypt() {
+        int strength = bcryptStrength;
+        if (calibrate) {
+            while (strength < MAX_BCRYPT_STRENGTH
+                    && measure(new BCryptPasswordEncoder(strength + 1)) <= targetLatencyMillis) {
+                strength++;
+            }
+        }
+        logger.info("Password hashing: bcrypt, strength {}", strength);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    // pbkdf2 and argon2 cost is linear in iterations: scale from one measurement
+    private PasswordEncoder pbkdf2() {
+        int iterations = MIN_PBKDF2_ITERATIONS;
+        if (calibrate) {
+            double perIteration = measure(pbkdf2(MIN_PBKDF2_ITERATIONS)) / MIN_PBKDF2_ITERATIONS;
+            iterations = Math.max(MIN_PBKDF2_ITERATIONS, (int) Math.min(Integer.MAX_VALUE, targetLatencyMillis / perIteration));
+        }
+        logger.info("Password hashing: pbkdf2-sha256, {} iterations", iterations);
+        return pbkdf2(iterations);
+    }
+
+    private PasswordEncoder argon2() {
+        int iterations = MIN_ARGON2_ITERATIONS;
+        if (calibrate) {
+            double perIteration = measure(argon2(MIN_ARGON2_ITERATIONS)) / MIN_ARGON2_ITERATIONS;
+            iterations = (int) Math.max(MIN_ARGON2_ITERATIONS, Math.min(MAX_ARGON2_ITERATIONS, targetLatencyMillis / perIteration));
+        }
+        logger.info("Password hashing: argon2id, {} KiB, {} iterations", ARGON2_MEMORY_KIB, iterations);
+        return argon2(iterations);
+    }
+
+    static PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 16, iterations,
+                Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    static PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KIB, iterations);
+    }
+
+    // Median of a few encodes after one warm-up, in milliseconds
+    private static double measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return Math.max(samples[SAMPLES / 2], 0.001);
+    }
+}
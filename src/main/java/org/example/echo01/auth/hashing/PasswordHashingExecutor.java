@@ -0,0 +1,150 @@
+package org.example.echo01.auth.hashing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.example.echo01.common.exceptions.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fixed-size pool that runs password hashing. Only {@code pool-size} hashes run at once and at
+ * most {@code queue-capacity} more may wait, so at most that many request threads are ever tied
+ * up in hashing; anything beyond fails immediately with {@link ServiceBusyException} instead of
+ * piling up behind the CPU. Queue wait and hash time are recorded separately.
+ * <p>
+ * The pool stays on platform threads when requests run on virtual threads: hashing is CPU-bound,
+ * and this pool is then the only thing bounding how many hashes run at once. The reactive
+ * profile applies the same limits through a Reactor scheduler instead.
+ */
+@Component
+@Profile("!reactive")
+public class PasswordHashingExecutor {
+
+    private static final String THREAD_PREFIX = "password-hash-";
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StageTimers> timersByOperation = new ConcurrentHashMap<>();
+
+    private record StageTimers(Timer queueWait, Timer hashTime) {
+    }
+
+    public PasswordHashingExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${application.security.password-hashing.pool-size:0}") int poolSize,
+            @Value("${application.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${application.security.password-hashing.max-wait:2000}") long maxWaitMillis,
+            @Value("${application.security.password-hashing.retry-after:1}") long retryAfterSeconds
+    ) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_PREFIX + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+                .description("Hashing requests refused because the queue was full or the wait too long")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the hashing pool and waits for its result. Exceptions thrown by the
+     * task are rethrown as-is.
+     *
+     * @param operation tag value for the timers, e.g. {@code encode} or {@code matches}
+     */
+    public <T> T execute(String operation, Supplier<T> task) {
+        // Nested call from a hashing thread: queueing behind ourselves could deadlock
+        if (Thread.currentThread().getName().startsWith(THREAD_PREFIX)) {
+            return task.get();
+        }
+        StageTimers timers = timersByOperation.computeIfAbsent(operation, this::stageTimers);
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                timers.queueWait().record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.get();
+                } finally {
+                    timers.hashTime().record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Drop it from the queue if it has not started; nobody is waiting for the result
+            future.cancel(false);
+            executor.remove((Runnable) future);
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw busy();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private StageTimers stageTimers(String operation) {
+        return new StageTimers(
+                Timer.builder("auth.password.hash.queue.wait")
+                        .description("Time a hashing task waited for a free hashing thread")
+                        .tag("operation", operation)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                Timer.builder("auth.password.hash.time")
+                        .description("Time spent computing a password hash")
+                        .tag("operation", operation)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry));
+    }
+
+    private ServiceBusyException busy() {
+        rejected.increment();
+        return new ServiceBusyException("Authentication is temporarily overloaded, please retry", retryAfterSeconds);
+    }
+}
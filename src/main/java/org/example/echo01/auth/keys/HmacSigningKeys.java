@@ -0,0 +1,55 @@
+package org.example.echo01.auth.keys;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single shared-secret HS256 key, as configured by {@code application.security.jwt.secret-key}.
+ * Nothing is published as a JWK since the secret must never leave the service.
+ */
+public class HmacSigningKeys implements SigningKeys {
+
+    private final SigningKey key;
+
+    public HmacSigningKeys(String base64Secret) {
+        Key secret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret));
+        this.key = new SigningKey(kidOf(secret), SignatureAlgorithm.HS256, secret, secret, null);
+    }
+
+    @Override
+    public SigningKey current() {
+        return key;
+    }
+
+    @Override
+    public Key verificationKey(String kid, String algorithm) {
+        if (!SignatureAlgorithm.HS256.getValue().equals(algorithm)) {
+            return null;
+        }
+        return kid == null || kid.equals(key.kid()) ? key.verificationKey() : null;
+    }
+
+    @Override
+    public List<Map<String, Object>> publicJwks() {
+        return List.of();
+    }
+
+    // Stable, non-reversible id for the secret: first 8 bytes of its SHA-256
+    private static String kidOf(Key secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getEncoded());
+            return "hs-" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.example.echo01.auth.keys;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.example.echo01.auth.entities.JwtSigningKey;
+import org.example.echo01.auth.repositories.JwtSigningKeyRepository;
+import org.example.echo01.common.locks.JobLocks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ES256 key ring shared through the {@code jwt_signing_keys} table. Every instance reloads the
+ * ring periodically; whichever instance first notices the newest key is older than the rotation
+ * interval takes the {@code signing-key-rotation} lease and, unless the key was rotated in the
+ * meantime, generates the next one, so each rotation adds exactly one key. A new key is published immediately but only used for signing
+ * after the activation delay, and is kept for verification until the longest-lived token it can
+ * have signed has expired, so rotation never invalidates tokens in flight. Private keys are stored
+ * encrypted by a {@link SigningKeyCipher}.
+ */
+public class RotatingSigningKeyRing implements SigningKeys {
+
+    private static final Logger logger = LoggerFactory.getLogger(RotatingSigningKeyRing.class);
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.ES256;
+    // Bounds how often an unknown kid can force a reload
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(5);
+    static final String LOCK_NAME = "signing-key-rotation";
+    // Generating and saving a key takes milliseconds; the rest is allowance for clock skew
+    private static final Duration LEASE = Duration.ofMinutes(1);
+    private static final Duration FIRST_KEY_POLL_INTERVAL = Duration.ofMillis(200);
+
+    private final JwtSigningKeyRepository repository;
+    private final HmacSigningKeys legacyKeys;
+    private final SigningKeyCipher cipher;
+    private final JobLocks jobLocks;
+    private final Duration rotationInterval;
+    private final Duration activationDelay;
+    private final Duration maxTokenLifetime;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile State state = new State(null, Map.of(), List.of());
+    private volatile Instant lastReload = Instant.EPOCH;
+
+    private record State(SigningKey current, Map<String, SigningKey> byKid, List<Map<String, Object>> jwks) {
+    }
+
+    /**
+     * @param legacyKeys HMAC key still accepted for verification (tokens issued before the switch),
+     *                   or null to reject HS256 tokens outright
+     */
+    public RotatingSigningKeyRing(
+            JwtSigningKeyRepository repository,
+            HmacSigningKeys legacyKeys,
+            SigningKeyCipher cipher,
+            JobLocks jobLocks,
+            Duration rotationInterval,
+            Duration activationDelay,
+            Duration maxTokenLifetime
+    ) {
+        this.repository = repository;
+        this.legacyKeys = legacyKeys;
+        this.cipher = cipher;
+        this.jobLocks = jobLocks;
+        this.rotationInterval = rotationInterval;
+        this.activationDelay = activationDelay;
+        this.maxTokenLifetime = maxTokenLifetime;
+        refresh();
+        awaitFirstKey();
+    }
+
+    @Override
+    public SigningKey current() {
+        return state.current();
+    }
+
+    @Override
+    public Key verificationKey(String kid, String algorithm) {
+        if (!ALGORITHM.getValue().equals(algorithm)) {
+            return legacyKeys != null ? legacyKeys.verificationKey(kid, algorithm) : null;
+        }
+        SigningKey key = state.byKid().get(kid);
+        if (key == null && reloadDue()) {
+            reloadForUnknownKid();
+            key = state.byKid().get(kid);
+        }
+        return key != null ? key.verificationKey() : null;
+    }
+
+    @Override
+    public boolean resolvesWithoutBlocking(String kid, String algorithm) {
+        return !ALGORITHM.getValue().equals(algorithm) || state.byKid().containsKey(kid) || !reloadDue();
+    }
+
+    @Override
+    public List<Map<String, Object>> publicJwks() {
+        return state.jwks();
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.keys.refresh-interval:60000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        if (rotationDue(reload(), now)) {
+            rotate(now);
+        }
+        long purged = repository.deleteByRetiresAtBefore(now);
+        if (purged > 0) {
+            logger.info("Removed {} retired signing keys", purged);
+        }
+    }
+
+    private boolean rotationDue(List<JwtSigningKey> keys, Instant now) {
+        return keys.isEmpty() || keys.get(0).getCreatedAt().plus(rotationInterval).isBefore(now);
+    }
+
+    private void rotate(Instant now) {
+        if (!jobLocks.tryAcquire(LOCK_NAME, LEASE)) {
+            logger.debug("Signing key rotation is running on another node");
+            return;
+        }
+        try {
+            // Another node may have rotated between our reload and taking the lease
+            List<JwtSigningKey> keys = reload();
+            if (rotationDue(keys, now)) {
+                // The very first key has nobody to wait for, later ones must propagate before use
+                repository.save(generate(now, keys.isEmpty() ? Duration.ZERO : activationDelay));
+                reload();
+            }
+        } finally {
+            jobLocks.release(LOCK_NAME);
+        }
+    }
+
+    // Nodes starting together on an empty table: the one holding the lease creates the first key
+    private void awaitFirstKey() {
+        Instant deadline = Instant.now().plus(LEASE);
+        while (state.current() == null && Instant.now().isBefore(deadline)) {
+            try {
+                Thread.sleep(FIRST_KEY_POLL_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            refresh();
+        }
+        if (state.current() == null) {
+            throw new IllegalStateException("No signing key was created within " + LEASE);
+        }
+    }
+
+    private boolean reloadDue() {
+        return Instant.now().isAfter(lastReload.plus(MIN_RELOAD_INTERVAL));
+    }
+
+    // Requests carrying unknown kids queue up on the lock: only the first one reloads
+    private void reloadForUnknownKid() {
+        reloadLock.lock();
+        try {
+            if (reloadDue()) {
+                reload();
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private List<JwtSigningKey> reload() {
+        reloadLock.lock();
+        try {
+            Instant now = Instant.now();
+            List<JwtSigningKey> keys = repository.findAllByAlgorithmAndRetiresAtAfterOrderByCreatedAtDesc(
+                    ALGORITHM.getValue(), now);
+
+            SigningKey current = null;
+            Map<String, SigningKey> byKid = new HashMap<>();
+            List<Map<String, Object>> jwks = new ArrayList<>();
+            for (JwtSigningKey stored : keys) {
+                SigningKey key = toSigningKey(stored);
+                byKid.put(key.kid(), key);
+                jwks.add(key.publicJwk());
+                if (current == null && !stored.getActivatesAt().isAfter(now)) {
+                    current = key;
+                }
+            }
+            if (current == null && !keys.isEmpty()) {
+                // Only pending keys left (e.g. clock skew): sign with the oldest one rather than fail
+                current = byKid.get(keys.get(keys.size() - 1).getKid());
+            }
+            state = new State(current, Map.copyOf(byKid), List.copyOf(jwks));
+            lastReload = now;
+            return keys;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private JwtSigningKey generate(Instant now, Duration delay) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            Instant activatesAt = now.plus(delay);
+            String kid = UUID.randomUUID().toString();
+            logger.info("Generated new {} signing key, active from {}", ALGORITHM.getValue(), activatesAt);
+            return JwtSigningKey.builder()
+                    .kid(kid)
+                    .algorithm(ALGORITHM.getValue())
+                    .privateKey(cipher.encrypt(kid, keyPair.getPrivate().getEncoded()))
+                    .publicKey(keyPair.getPublic().getEncoded())
+                    .createdAt(now)
+                    .activatesAt(activatesAt)
+                    .retiresAt(activatesAt.plus(rotationInterval).plus(activationDelay).plus(maxTokenLifetime))
+                    .build();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate signing key", e);
+        }
+    }
+
+    private SigningKey toSigningKey(JwtSigningKey stored) {
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            PrivateKey privateKey = keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(cipher.decrypt(stored.getKid(), stored.getPrivateKey())));
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(stored.getPublicKey()));
+            return new SigningKey(stored.getKid(), ALGORITHM, privateKey, publicKey,
+                    toJwk(stored.getKid(), (ECPublicKey) publicKey));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unreadable signing key " + stored.getKid(), e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM.getValue());
+        jwk.put("kid", kid);
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    // JWK coordinates are unsigned, fixed-width (32 bytes for P-256) big-endian values
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.echo01.auth.keys;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.security.Key;
+import java.util.Map;
+
+/**
+ * One entry of the key ring. For HMAC both keys are the shared secret; for asymmetric
+ * algorithms only the public half is ever exposed through {@link #publicJwk()}.
+ *
+ * @param publicJwk JWK representation of the verification key, null for HMAC keys
+ */
+public record SigningKey(
+        String kid,
+        SignatureAlgorithm algorithm,
+        Key signingKey,
+        Key verificationKey,
+        Map<String, Object> publicJwk
+) {
+}
@@ -0,0 +1,81 @@
+package org.example.echo01.auth.keys;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts signing private keys before they are stored, with AES-256-GCM under a key-encryption
+ * key that comes from configuration (or a KMS feeding it) and is never written to the database.
+ * A copy of {@code jwt_signing_keys}, from a replica or a backup, is then useless for forging
+ * tokens. The kid is bound as associated data, so an encrypted key cannot be moved to another row.
+ * <p>
+ * Stored form: a version byte, the 12-byte nonce, then ciphertext and tag. Keys stored before
+ * encryption was introduced are plain PKCS#8, which always starts with a DER SEQUENCE tag; they
+ * are still read so tokens they signed keep working until those keys retire.
+ */
+public class SigningKeyCipher {
+
+    private static final byte VERSION = 1;
+    private static final byte DER_SEQUENCE = 0x30;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    /** @param keyEncryptionKey base64 of 32 random bytes */
+    public SigningKeyCipher(String keyEncryptionKey) {
+        if (keyEncryptionKey == null || keyEncryptionKey.isBlank()) {
+            throw new IllegalStateException(
+                    "application.security.jwt.keys.encryption-key must be set to store ES256 signing keys");
+        }
+        byte[] key = Base64.getDecoder().decode(keyEncryptionKey.trim());
+        if (key.length != 32) {
+            throw new IllegalStateException("application.security.jwt.keys.encryption-key must be 32 bytes, base64");
+        }
+        this.keyEncryptionKey = new SecretKeySpec(key, "AES");
+    }
+
+    public byte[] encrypt(String kid, byte[] privateKey) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        try {
+            Cipher cipher = cipher(Cipher.ENCRYPT_MODE, kid, nonce);
+            return ByteBuffer.allocate(1 + NONCE_LENGTH + cipher.getOutputSize(privateKey.length))
+                    .put(VERSION)
+                    .put(nonce)
+                    .put(cipher.doFinal(privateKey))
+                    .array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt signing key " + kid, e);
+        }
+    }
+
+    /** @throws GeneralSecurityException when the key was encrypted under another key or tampered with */
+    public byte[] decrypt(String kid, byte[] stored) throws GeneralSecurityException {
+        if (stored.length > 0 && stored[0] == DER_SEQUENCE) {
+            return stored;
+        }
+        if (stored.length <= 1 + NONCE_LENGTH || stored[0] != VERSION) {
+            throw new GeneralSecurityException("Unknown signing key encoding");
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        System.arraycopy(stored, 1, nonce, 0, NONCE_LENGTH);
+        return cipher(Cipher.DECRYPT_MODE, kid, nonce)
+                .doFinal(stored, 1 + NONCE_LENGTH, stored.length - 1 - NONCE_LENGTH);
+    }
+
+    private Cipher cipher(int mode, String kid, byte[] nonce) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, keyEncryptionKey, new GCMParameterSpec(TAG_BITS, nonce));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.echo01.auth.keys;
+
+import java.security.Key;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Source of the keys {@link org.example.echo01.auth.services.JwtService} signs and verifies with.
+ */
+public interface SigningKeys {
+
+    /** Key new tokens are signed with. */
+    SigningKey current();
+
+    /**
+     * Key to verify a token carrying the given {@code kid} header, or null if unknown.
+     * Tokens without a {@code kid} predate key rotation and are resolved to the HMAC secret.
+     */
+    Key verificationKey(String kid, String algorithm);
+
+    /**
+     * Whether {@link #verificationKey} answers from memory for this {@code kid}, rather than
+     * having to reload keys from storage first.
+     */
+    default boolean resolvesWithoutBlocking(String kid, String algorithm) {
+        return true;
+    }
+
+    /** Public keys other services may use to verify our tokens locally. */
+    List<Map<String, Object>> publicJwks();
+}
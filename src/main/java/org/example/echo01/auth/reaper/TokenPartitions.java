@@ -0,0 +1,127 @@
+package org.example.echo01.auth.reaper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Daily range partitions of a Postgres {@code tokens} table partitioned by {@code created_at}
+ * (see {@code db/tokens-partitioned.sql}). Partitions are named {@code tokens_pYYYYMMDD};
+ * other partitions, such as the default one, are never touched.
+ * <p>
+ * Postgres refuses to create a partition for a range the default partition already holds rows
+ * of, so such a day is skipped: its rows stay in the default partition and are deleted in
+ * batches. A partition that fails to be created or dropped is logged and left for the next run.
+ */
+class TokenPartitions {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenPartitions.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern PARTITION_NAME = Pattern.compile("tokens_p(\\d{8})");
+
+    private static final String IS_PARTITIONED_SQL =
+            "select count(*) from pg_partitioned_table where partrelid = to_regclass('tokens')";
+    private static final String PARTITIONS_SQL =
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+            + "where i.inhparent = to_regclass('tokens')";
+    private static final String DEFAULT_PARTITION_SQL =
+            "select partdefid::regclass::text from pg_partitioned_table "
+            + "where partrelid = to_regclass('tokens') and partdefid <> 0";
+    private static final String ESTIMATED_ROWS_SQL =
+            "select greatest(reltuples, 0)::bigint from pg_class where oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    TokenPartitions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    boolean available() {
+        try {
+            Integer count = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Integer.class);
+            return count != null && count > 0;
+        } catch (RuntimeException e) {
+            // Not Postgres
+            return false;
+        }
+    }
+
+    /** Creates the partitions for {@code from} and the following {@code days} days if missing. */
+    int createAhead(LocalDate from, int days) {
+        List<String> existing = partitions();
+        String defaultPartition = defaultPartition();
+        int created = 0;
+        for (int i = 0; i <= days; i++) {
+            LocalDate day = from.plusDays(i);
+            String name = "tokens_p" + day.format(SUFFIX);
+            if (existing.contains(name)) {
+                continue;
+            }
+            if (defaultPartition != null && holdsRowsOf(defaultPartition, day)) {
+                logger.warn("Not creating token partition {}: {} already holds rows of that day", name, defaultPartition);
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("create table if not exists " + name + " partition of tokens for values from ('"
+                        + day + "') to ('" + day.plusDays(1) + "')");
+                created++;
+            } catch (RuntimeException e) {
+                logger.warn("Unable to create token partition {}: {}", name, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Drops the partitions whose whole range lies before {@code cutoff}. Dropping a partition only
+     * removes its files, however many rows it holds, so old rows leave without a DELETE or VACUUM.
+     *
+     * @return the dropped partitions with the planner's estimate of the rows they held
+     */
+    Map<String, Long> dropBefore(LocalDateTime cutoff) {
+        Map<String, Long> dropped = new LinkedHashMap<>();
+        for (String name : partitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                LocalDate day = LocalDate.parse(matcher.group(1), SUFFIX);
+                if (!day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                    try {
+                        Long rows = jdbcTemplate.queryForObject(ESTIMATED_ROWS_SQL, Long.class, name);
+                        jdbcTemplate.execute("drop table if exists " + name);
+                        dropped.put(name, rows != null ? rows : 0);
+                    } catch (RuntimeException e) {
+                        logger.warn("Unable to drop token partition {}: {}", name, e.getMessage());
+                    }
+                }
+            }
+        }
+        return dropped;
+    }
+
+    private String defaultPartition() {
+        List<String> names = jdbcTemplate.queryForList(DEFAULT_PARTITION_SQL, String.class);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    // The name comes from the catalog, not from input
+    private boolean holdsRowsOf(String partition, LocalDate day) {
+        Boolean holds = jdbcTemplate.queryForObject("select exists (select 1 from " + partition
+                + " where created_at >= ? and created_at < ?)", Boolean.class,
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        return Boolean.TRUE.equals(holds);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class);
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.echo01.auth.reaper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.echo01.common.locks.JobLocks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes rows of the {@code tokens} table once the token they hold has expired, so the table
+ * and its unique index stop growing with every login. Rows are kept for {@code retention} past
+ * expiry: revoked rows are still read when seeding the revocation index and on bus catch-up,
+ * rotated refresh tokens are what reuse detection looks for, and an expired token is rejected on
+ * its {@code exp} claim whether its row exists or not.
+ * <p>
+ * Rows go in batches of {@code batch-size}, each its own short statement that skips rows locked
+ * by concurrent logins instead of waiting for them, paced to at most {@code max-rows-per-second}
+ * and stopped after {@code max-run-time}; whatever is left is picked up by the next run. Only the
+ * node holding the {@value #LOCK_NAME} lease runs. When {@code tokens} is partitioned by day,
+ * whole partitions past the cutoff are dropped first and upcoming ones are created ahead, already
+ * at startup so the first logins do not land in the default partition. The batched DELETE runs
+ * whether or not that maintenance succeeds.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.jwt.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class TokenReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenReaper.class);
+
+    static final String LOCK_NAME = "token-reaper";
+    // Covers partition maintenance and clock skew between nodes on top of the run time
+    private static final Duration LEASE_MARGIN = Duration.ofMinutes(1);
+
+    private static final String DELETE_SQL = "delete from tokens where id in "
+            + "(select id from tokens where expires_at < ? limit ? for update skip locked)";
+    private static final String COUNT_SQL = "select count(*) from tokens";
+    // Planner estimate, summed over partitions; counting the rows would read the whole table
+    private static final String POSTGRES_SIZE_SQL = "select coalesce(sum(greatest(c.reltuples, 0)), 0)::bigint as row_count, "
+            + "coalesce(sum(pg_total_relation_size(c.oid)), 0) as bytes from pg_class c "
+            + "where c.oid = to_regclass('tokens') "
+            + "or c.oid in (select inhrelid from pg_inherits where inhparent = to_regclass('tokens'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLocks jobLocks;
+    private final Duration retention;
+    // Partitions are by creation time, so a partition can go once the longest-lived token in it has expired
+    private final long partitionLifetimeMillis;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+    private final Duration maxRunTime;
+    private final int partitionsAhead;
+    private final boolean postgres;
+    private final TokenPartitions partitions;
+
+    private final Counter deletedRows;
+    private final Counter droppedRows;
+    private final Counter droppedPartitions;
+    private final Timer runTimer;
+    private final AtomicLong tableRows = new AtomicLong(-1);
+    private final AtomicLong tableBytes = new AtomicLong(-1);
+
+    public TokenReaper(
+            JdbcTemplate jdbcTemplate,
+            JobLocks jobLocks,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.expiration}") long jwtExpiration,
+            @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration,
+            @Value("${application.security.jwt.reaper.retention:3600000}") long retentionMillis,
+            @Value("${application.security.jwt.reaper.batch-size:1000}") int batchSize,
+            @Value("${application.security.jwt.reaper.max-rows-per-second:5000}") int maxRowsPerSecond,
+            @Value("${application.security.jwt.reaper.max-run-time:60000}") long maxRunTimeMillis,
+            @Value("${application.security.jwt.reaper.partitioned:false}") boolean partitioned,
+            @Value("${application.security.jwt.reaper.partitions-ahead:7}") int partitionsAhead
+    ) {
+        if (batchSize < 1 || maxRowsPerSecond < 1) {
+            throw new IllegalArgumentException("Token reaper batch-size and max-rows-per-second must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLocks = jobLocks;
+        this.retention = Duration.ofMillis(retentionMillis);
+        this.partitionLifetimeMillis = Math.max(jwtExpiration, refreshExpiration) + retentionMillis;
+        this.batchSize = batchSize;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxRunTime = Duration.ofMillis(maxRunTimeMillis);
+        this.partitionsAhead = partitionsAhead;
+        this.postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        this.partitions = partitioned ? partitions(jdbcTemplate) : null;
+
+        this.deletedRows = Counter.builder("tokens.reaper.purged")
+                .description("Token rows removed by the reaper")
+                .tag("method", "delete")
+                .register(meterRegistry);
+        this.droppedRows = Counter.builder("tokens.reaper.purged")
+                .description("Token rows removed by the reaper")
+                .tag("method", "partition")
+                .register(meterRegistry);
+        this.droppedPartitions = Counter.builder("tokens.reaper.partitions.dropped")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("tokens.reaper.run")
+                .register(meterRegistry);
+        Gauge.builder("tokens.table.rows", tableRows, TokenReaper::valueOrNaN)
+                .description("Rows in the tokens table as of the last reaper run (estimate on Postgres)")
+                .register(meterRegistry);
+        Gauge.builder("tokens.table.size", tableBytes, TokenReaper::valueOrNaN)
+                .description("Size of the tokens table and its indexes as of the last reaper run")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        // Before any traffic, as rows of a day without its partition stay in the default one for good
+        if (partitions != null) {
+            createPartitionsAhead();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${application.security.jwt.reaper.interval:300000}",
+            fixedDelayString = "${application.security.jwt.reaper.interval:300000}"
+    )
+    public void reap() {
+        if (!jobLocks.tryAcquire(LOCK_NAME, maxRunTime.plus(LEASE_MARGIN))) {
+            logger.debug("Token reaper is running on another node");
+            return;
+        }
+        try {
+            runTimer.record(this::purge);
+            refreshTableSize();
+        } finally {
+            jobLocks.release(LOCK_NAME);
+        }
+    }
+
+    long purge() {
+        if (partitions != null) {
+            dropExpiredPartitions();
+            createPartitionsAhead();
+        }
+
+        Instant cutoff = Instant.now().minus(retention);
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        long purged = 0;
+        int deleted;
+        do {
+            long started = System.nanoTime();
+            deleted = jdbcTemplate.update(DELETE_SQL, Timestamp.from(cutoff), batchSize);
+            purged += deleted;
+            deletedRows.increment(deleted);
+            throttle(deleted, System.nanoTime() - started);
+        } while (deleted == batchSize && System.nanoTime() < deadline && !Thread.currentThread().isInterrupted());
+
+        if (purged > 0) {
+            logger.info("Purged {} tokens expired before {}", purged, cutoff);
+        }
+        return purged;
+    }
+
+    // Partition maintenance never keeps the batched DELETE from running
+    private void dropExpiredPartitions() {
+        try {
+            Map<String, Long> dropped = partitions.dropBefore(
+                    LocalDateTime.now().minus(partitionLifetimeMillis, ChronoUnit.MILLIS));
+            if (!dropped.isEmpty()) {
+                droppedPartitions.increment(dropped.size());
+                dropped.values().forEach(droppedRows::increment);
+                logger.info("Dropped expired token partitions {}", dropped.keySet());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to drop expired token partitions: {}", e.getMessage());
+        }
+    }
+
+    private void createPartitionsAhead() {
+        try {
+            partitions.createAhead(LocalDate.now(), partitionsAhead);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to create token partitions ahead: {}", e.getMessage());
+        }
+    }
+
+    // Pauses so that the batches average out at max-rows-per-second at most
+    private void throttle(int deleted, long elapsedNanos) {
+        long pauseNanos = deleted * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond - elapsedNanos;
+        if (pauseNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void refreshTableSize() {
+        if (postgres) {
+            Map<String, Object> size = jdbcTemplate.queryForMap(POSTGRES_SIZE_SQL);
+            tableRows.set(((Number) size.get("row_count")).longValue());
+            tableBytes.set(((Number) size.get("bytes")).longValue());
+        } else {
+            Long rows = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            tableRows.set(rows != null ? rows : -1);
+        }
+    }
+
+    private static TokenPartitions partitions(JdbcTemplate jdbcTemplate) {
+        TokenPartitions partitions = new TokenPartitions(jdbcTemplate);
+        if (partitions.available()) {
+            return partitions;
+        }
+        logger.warn("Token partitioning is enabled but tokens is not a partitioned Postgres table; "
+                + "expired tokens will only be deleted in batches");
+        return null;
+    }
+
+    private static double valueOrNaN(AtomicLong value) {
+        long current = value.get();
+        return current < 0 ? Double.NaN : current;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.echo01.auth.repositories;
+
+import org.example.echo01.auth.entities.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+    List<JwtSigningKey> findAllByAlgorithmAndRetiresAtAfterOrderByCreatedAtDesc(String algorithm, Instant now);
+
+    @Transactional
+    long deleteByRetiresAtBefore(Instant now);
+}
@@ -0,0 +1,124 @@
+package org.example.echo01.auth.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.TokenType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * R2DBC counterpart of {@link TokenRepository} for the reactive authentication endpoints. Like
+ * the JPA bulk updates, revocations set {@code updated_at} themselves. Inserts draw ids from
+ * {@code tokens_seq} directly; every value is the start or end of a block Hibernate's pooled
+ * optimizer then never hands out, so both writers can share the sequence.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTokenRepository {
+
+    // Tokens are issued outside any authenticated request, which the auditor reports as SYSTEM as well
+    private static final String AUDITOR = "SYSTEM";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * The owner of a stored access token that is neither revoked nor expired, in one round trip;
+     * empty for unknown, revoked and refresh tokens.
+     */
+    public Mono<User> findUserOfValidAccessToken(UUID jti) {
+        return databaseClient.sql("select " + ReactiveUserRepository.COLUMNS + """
+                         from tokens t join users u on u.id = t.user_id
+                        where t.jti = :jti and t.token_type = :type and t.revoked = false and t.expired = false
+                        """)
+                .bind("jti", jti)
+                .bind("type", TokenType.ACCESS.name())
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Flux<TokenRef> findAllValidTokensByUser(Long userId) {
+        return databaseClient.sql("""
+                        select jti, expires_at from tokens
+                        where user_id = :userId and revoked = false and expired = false
+                        """)
+                .bind("userId", userId)
+                .map(row -> new TokenRef(row.get("jti", UUID.class), row.get("expires_at", Instant.class)))
+                .all();
+    }
+
+    public Flux<TokenRef> findAllValidTokensByUserAndDevice(Long userId, String deviceId) {
+        return databaseClient.sql("""
+                        select jti, expires_at from tokens
+                        where user_id = :userId and device_id = :deviceId and revoked = false and expired = false
+                        """)
+                .bind("userId", userId)
+                .bind("deviceId", deviceId)
+                .map(row -> new TokenRef(row.get("jti", UUID.class), row.get("expires_at", Instant.class)))
+                .all();
+    }
+
+    public Mono<Long> revokeAllByUser(Long userId, LocalDateTime now) {
+        return databaseClient.sql("""
+                        update tokens set revoked = true, expired = true, updated_at = :now
+                        where user_id = :userId and revoked = false and expired = false
+                        """)
+                .bind("now", now)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    public Mono<Long> revokeAllByUserAndDevice(Long userId, String deviceId, LocalDateTime now) {
+        return databaseClient.sql("""
+                        update tokens set revoked = true, expired = true, updated_at = :now
+                        where user_id = :userId and device_id = :deviceId and revoked = false and expired = false
+                        """)
+                .bind("now", now)
+                .bind("userId", userId)
+                .bind("deviceId", deviceId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /** Inserts the tokens with a single multi-row statement. */
+    public Mono<Void> saveAll(List<Token> tokens) {
+        StringBuilder sql = new StringBuilder("""
+                insert into tokens (id, jti, expires_at, token_type, revoked, expired, device_id, family_id,
+                                    generation, user_id, created_at, updated_at, created_by, modified_by)
+                values""");
+        for (int i = 0; i < tokens.size(); i++) {
+            sql.append(i == 0 ? " " : ", ").append("""
+                    (nextval('tokens_seq'), :jti%1$d, :expiresAt%1$d, :tokenType%1$d, :revoked%1$d, :expired%1$d,
+                     :deviceId%1$d, :familyId%1$d, :generation%1$d, :userId%1$d, :now, :now, :auditor, :auditor)"""
+                    .formatted(i));
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString())
+                .bind("now", LocalDateTime.now())
+                .bind("auditor", AUDITOR);
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            spec = spec.bind("jti" + i, token.getJti())
+                    .bind("expiresAt" + i, token.getExpiresAt())
+                    .bind("tokenType" + i, token.getTokenType().name())
+                    .bind("revoked" + i, token.isRevoked())
+                    .bind("expired" + i, token.isExpired())
+                    .bind("generation" + i, token.getGeneration())
+                    .bind("userId" + i, token.getUser().getId());
+            spec = ReactiveUserRepository.bindNullable(spec, "deviceId" + i, token.getDeviceId());
+            spec = token.getFamilyId() != null
+                    ? spec.bind("familyId" + i, token.getFamilyId())
+                    : spec.bindNull("familyId" + i, UUID.class);
+        }
+        return spec.then();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.echo01.auth.repositories;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link UserRepository} with the queries the reactive authentication
+ * endpoints need. Rows are mapped to detached {@link User}s. Changes to existing users still go
+ * through JPA, which bumps their version and evicts them from the user cache.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    static final String COLUMNS = "u.id, u.version, u.firstname, u.lastname, u.email, u.password, u.bio, "
+            + "u.role, u.profile_picture, u.enabled";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<User> findByEmail(String email) {
+        return databaseClient.sql("select " + COLUMNS + " from users u where u.email = :email")
+                .bind("email", email)
+                .map(ReactiveUserRepository::toUser)
+                .one();
+    }
+
+    public Mono<Boolean> existsByEmail(String email) {
+        return databaseClient.sql("select 1 from users where email = :email")
+                .bind("email", email)
+                .map(row -> true)
+                .first()
+                .hasElement();
+    }
+
+    /** Inserts a new user and returns it with its generated id. */
+    public Mono<User> save(User user) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("""
+                        insert into users (version, firstname, lastname, email, password, bio, role, profile_picture, enabled)
+                        values (0, :firstname, :lastname, :email, :password, :bio, :role, :profilePicture, :enabled)
+                        """)
+                .bind("email", user.getEmail())
+                .bind("password", user.getPassword())
+                .bind("role", user.getRole().name())
+                .bind("enabled", user.isEnabled());
+        spec = bindNullable(spec, "firstname", user.getFirstname());
+        spec = bindNullable(spec, "lastname", user.getLastname());
+        spec = bindNullable(spec, "bio", user.getBio());
+        spec = bindNullable(spec, "profilePicture", user.getProfilePicture());
+        return spec
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    user.setId(id);
+                    user.setVersion(0L);
+                    return user;
+                });
+    }
+
+    static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                          String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+
+    static User toUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .version(row.get("version", Long.class))
+                .firstname(row.get("firstname", String.class))
+                .lastname(row.get("lastname", String.class))
+                .email(row.get("email", String.class))
+                .password(row.get("password", String.class))
+                .bio(row.get("bio", String.class))
+                .role(Role.valueOf(row.get("role", String.class)))
+                .profilePicture(row.get("profile_picture", String.class))
+                .enabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.echo01.auth.repositories;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The part of a stored token the revocation index needs, read without loading the entity.
+ */
+public record TokenRef(UUID jti, Instant expiresAt) {
+}
@@ -2,17 +2,127 @@ package org.example.echo01.auth.repositories;
 
 import org.example.echo01.auth.entities.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
+/**
+ * Bulk updates bypass the auditing listener, so they set {@code updatedAt} themselves; the
+ * revocation bus replays revocations by that column after a reconnect. Tokens are identified
+ * by their {@code jti} claim; the compact JWT itself is never stored.
+ */
 public interface TokenRepository extends JpaRepository<Token, Long> {
+
+    @Query("""
+            select new org.example.echo01.auth.repositories.TokenRef(t.jti, t.expiresAt) from Token t
+            where t.user.id = :userId and t.revoked = false and t.expired = false
+            """)
+    List<TokenRef> findAllValidTokensByUser(Long userId);
+
+    @Query("""
+            select new org.example.echo01.auth.repositories.TokenRef(t.jti, t.expiresAt) from Token t
+            where t.user.id = :userId and t.deviceId = :deviceId and t.revoked = false and t.expired = false
+            """)
+    List<TokenRef> findAllValidTokensByUserAndDevice(Long userId, String deviceId);
+
+    Optional<Token> findByJti(UUID jti);
+
+    /**
+     * The token with {@code jti} and the still valid tokens of its family, with their user, in
+     * one indexed query. Empty if the token is unknown or belongs to no family.
+     */
     @Query("""
-            select t from Token t inner join User u on t.user.id = u.id
-            where u.id = :userId and (t.expired = false or t.revoked = false)
+            select t from Token t join fetch t.user
+            where t.familyId = (select r.familyId from Token r where r.jti = :jti)
+            and (t.revoked = false or t.jti = :jti)
             """)
-    List<Token> findAllValidTokenByUser(Long userId);
+    List<Token> findFamilyOf(UUID jti);
 
-    Optional<Token> findByToken(String token);
-} 
\ No newline at end of file
+    @Query("""
+            select new org.example.echo01.auth.repositories.TokenRef(t.jti, t.expiresAt) from Token t
+            where t.revoked = false
+            and (t.jti = :jti or t.familyId = (select r.familyId from Token r where r.jti = :jti))
+            """)
+    List<TokenRef> findAllValidTokensInSessionOf(UUID jti);
+
+    @Query("""
+            select new org.example.echo01.auth.repositories.TokenRef(t.jti, t.expiresAt) from Token t
+            where t.revoked = true and t.expiresAt > :expiresAfter
+            """)
+    List<TokenRef> findAllByRevokedTrueAndExpiresAtAfter(Instant expiresAfter);
+
+    @Query("""
+            select new org.example.echo01.auth.repositories.TokenRef(t.jti, t.expiresAt) from Token t
+            where t.revoked = true and t.updatedAt > :updatedAfter
+            """)
+    List<TokenRef> findAllByRevokedTrueAndUpdatedAtAfter(LocalDateTime updatedAfter);
+
+    /** Revokes the token and, if it belongs to one, the rest of its family, i.e. the whole session. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.revoked = false
+            and (t.jti = :jti or t.familyId = (select r.familyId from Token r where r.jti = :jti))
+            """)
+    int revokeSessionOf(UUID jti, LocalDateTime now);
+
+    /**
+     * Revokes one generation of a family. Concurrent rotations of the same refresh token race on
+     * these rows, and only the one that still finds them valid gets a non-zero count.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.familyId = :familyId and t.generation = :generation and t.revoked = false
+            """)
+    int revokeGeneration(UUID familyId, int generation, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.familyId = :familyId and t.revoked = false
+            """)
+    int revokeFamily(UUID familyId, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.user.id = :userId and t.revoked = false and t.expired = false
+            """)
+    int revokeAllByUser(Long userId, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.user.id = :userId and t.deviceId = :deviceId and t.revoked = false and t.expired = false
+            """)
+    int revokeAllByUserAndDevice(Long userId, String deviceId, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.jti in :jtis and t.revoked = false
+            """)
+    int revokeAllByJti(Collection<UUID> jtis, LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Token t set t.revoked = true, t.expired = true, t.updatedAt = :now
+            where t.revoked = false and t.expired = false
+            """)
+    int revokeAll(LocalDateTime now);
+}
@@ -1,11 +1,16 @@
 package org.example.echo01.auth.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.example.echo01.auth.entities.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Served from the query cache when the second-level cache is enabled
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
-} 
\ No newline at end of file
+}
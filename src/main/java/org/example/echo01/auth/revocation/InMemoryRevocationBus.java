@@ -0,0 +1,48 @@
+package org.example.echo01.auth.revocation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Loopback bus that delivers revocations synchronously to subscribers in the same JVM.
+ * Used for single-instance deployments and tests. Only the other subscribers receive an event,
+ * so the propagation lag it reports is that of the in-process hand-off.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.jwt.revocation.bus", havingValue = "local", matchIfMissing = true)
+public class InMemoryRevocationBus implements RevocationBus {
+
+    private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+    private final RevocationBusMetrics metrics;
+
+    public InMemoryRevocationBus(MeterRegistry meterRegistry) {
+        this.metrics = new RevocationBusMetrics(meterRegistry, "local");
+    }
+
+    @Override
+    public void publish(List<RevocationEvent> events, RevocationListener publisher) {
+        if (events.isEmpty()) {
+            return;
+        }
+        metrics.published(events.size());
+        boolean delivered = false;
+        for (RevocationListener listener : listeners) {
+            if (listener != publisher) {
+                listener.onRevocations(events);
+                delivered = true;
+            }
+        }
+        if (delivered) {
+            metrics.received(events);
+        }
+    }
+
+    @Override
+    public void subscribe(RevocationListener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.echo01.auth.revocation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagates revocations through Postgres {@code LISTEN/NOTIFY}. A single worker thread owns a
+ * dedicated (non-pooled) connection: it sends queued revocations in batches as one NOTIFY each
+ * and polls for notifications from the other instances in between. After losing the connection
+ * it reconnects and asks listeners to replay from the last revocation it received.
+ */
+@Component
+@ConditionalOnProperty(name = "application.security.jwt.revocation.bus", havingValue = "postgres")
+public class PostgresRevocationBus implements RevocationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRevocationBus.class);
+
+    static final String CHANNEL = "token_revocations";
+    // NOTIFY payloads are limited to 8000 bytes; one event is at most ~70 characters
+    private static final int MAX_EVENTS_PER_NOTIFY = 100;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final RevocationBusMetrics metrics;
+    private final BlockingQueue<RevocationEvent> outbox = new LinkedBlockingQueue<>();
+    private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    @Value("${application.security.jwt.revocation.poll-interval:50}")
+    private int pollIntervalMillis;
+
+    @Value("${application.security.jwt.revocation.reconnect-backoff:1000}")
+    private long reconnectBackoffMillis;
+
+    @Value("${application.security.jwt.revocation.catch-up-skew:5000}")
+    private long catchUpSkewMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public PostgresRevocationBus(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.metrics = new RevocationBusMetrics(meterRegistry, "postgres");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "revocation-bus");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void publish(List<RevocationEvent> events, RevocationListener publisher) {
+        // Never handed back to this instance: the node id in the payload filters it out
+        outbox.addAll(events);
+    }
+
+    @Override
+    public void subscribe(RevocationListener listener) {
+        listeners.add(listener);
+    }
+
+    private void run() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    catchUp();
+                }
+                reconnecting = true;
+
+                try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                    while (running) {
+                        flushOutbox(notify);
+                        PGNotification[] notifications = pgConnection.getNotifications(pollIntervalMillis);
+                        if (notifications != null) {
+                            for (PGNotification notification : notifications) {
+                                dispatch(notification.getParameter());
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Revocation bus connection lost: {}", e.getMessage());
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void flushOutbox(PreparedStatement notify) throws SQLException {
+        List<RevocationEvent> batch = new ArrayList<>(MAX_EVENTS_PER_NOTIFY);
+        while (outbox.drainTo(batch, MAX_EVENTS_PER_NOTIFY) > 0) {
+            try {
+                notify.setString(1, CHANNEL);
+                notify.setString(2, encode(batch));
+                notify.execute();
+            } catch (SQLException e) {
+                outbox.addAll(batch);
+                throw e;
+            }
+            metrics.published(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void dispatch(String payload) {
+        List<RevocationEvent> events = decode(payload);
+        if (events.isEmpty()) {
+            return;
+        }
+        metrics.received(events);
+        for (RevocationListener listener : listeners) {
+            listener.onRevocations(events);
+        }
+    }
+
+    private void catchUp() {
+        metrics.reconnected();
+        long highWaterMark = Math.max(metrics.highWaterMark(), startedAtMillis) - catchUpSkewMillis;
+        logger.info("Revocation bus reconnected, replaying revocations since {}", highWaterMark);
+        for (RevocationListener listener : listeners) {
+            listener.onReconnect(highWaterMark);
+        }
+    }
+
+    // First line is the publishing node, then one "jti,expiresAt,revokedAt" line per event
+    private String encode(List<RevocationEvent> events) {
+        StringBuilder payload = new StringBuilder(nodeId.length() + events.size() * 72).append(nodeId);
+        for (RevocationEvent event : events) {
+            payload.append('\n')
+                    .append(event.jti()).append(',')
+                    .append(event.expiresAtMillis()).append(',')
+                    .append(event.revokedAtMillis());
+        }
+        return payload.toString();
+    }
+
+    private List<RevocationEvent> decode(String payload) {
+        String[] lines = payload.split("\n");
+        if (lines[0].equals(nodeId)) {
+            return List.of();
+        }
+        List<RevocationEvent> events = new ArrayList<>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+            events.add(new RevocationEvent(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+        }
+        return events;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectBackoffMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
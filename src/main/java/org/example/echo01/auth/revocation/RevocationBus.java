@@ -0,0 +1,19 @@
+package org.example.echo01.auth.revocation;
+
+import java.util.List;
+
+/**
+ * Propagates token revocations to every application instance so that in-memory
+ * revocation checks stay consistent across the cluster. User changes travel the same way, so
+ * no instance keeps authorizing from a cached copy of a disabled or demoted user.
+ */
+public interface RevocationBus {
+
+    /**
+     * @param publisher the listener on this instance that raised the events and has already
+     *                  applied them; it is not handed its own events back
+     */
+    void publish(List<RevocationEvent> events, RevocationListener publisher);
+
+    void subscribe(RevocationListener listener);
+}
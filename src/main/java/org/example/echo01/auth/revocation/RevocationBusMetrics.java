@@ -0,0 +1,65 @@
+package org.example.echo01.auth.revocation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters shared by the {@link RevocationBus} implementations. The high-water mark is the newest
+ * revocation time received, which is also where catch-up starts after a reconnect.
+ */
+class RevocationBusMetrics {
+
+    private final Timer propagationLag;
+    private final Counter published;
+    private final Counter received;
+    private final Counter reconnects;
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    RevocationBusMetrics(MeterRegistry registry, String transport) {
+        this.propagationLag = Timer.builder("revocation.bus.propagation.lag")
+                .description("Time between a revocation and its delivery on this instance")
+                .tag("transport", transport)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.published = Counter.builder("revocation.bus.events.published")
+                .tag("transport", transport)
+                .register(registry);
+        this.received = Counter.builder("revocation.bus.events.received")
+                .tag("transport", transport)
+                .register(registry);
+        this.reconnects = Counter.builder("revocation.bus.reconnects")
+                .tag("transport", transport)
+                .register(registry);
+        Gauge.builder("revocation.bus.high.water.mark", highWaterMark, AtomicLong::get)
+                .description("Newest revocation time (epoch millis) received over the bus")
+                .tag("transport", transport)
+                .register(registry);
+    }
+
+    void published(int count) {
+        published.increment(count);
+    }
+
+    void received(List<RevocationEvent> events) {
+        long now = System.currentTimeMillis();
+        for (RevocationEvent event : events) {
+            propagationLag.record(Duration.ofMillis(Math.max(0, now - event.revokedAtMillis())));
+            highWaterMark.accumulateAndGet(event.revokedAtMillis(), Math::max);
+        }
+        received.increment(events.size());
+    }
+
+    void reconnected() {
+        reconnects.increment();
+    }
+
+    long highWaterMark() {
+        return highWaterMark.get();
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.echo01.auth.revocation;
+
+/**
+ * A single token revocation as it travels between instances.
+ *
+ * @param jti             revoked token id, {@link #ALL_TOKENS} to revoke every token issued up to
+ *                        {@code revokedAtMillis}, or a {@link #userChanged user change}
+ * @param expiresAtMillis token expiry; receivers can forget the revocation after it
+ * @param revokedAtMillis wall-clock time of the revocation on the publishing node
+ */
+public record RevocationEvent(String jti, long expiresAtMillis, long revokedAtMillis) {
+
+    /** Never a real jti, which is always a UUID. */
+    public static final String ALL_TOKENS = "*";
+
+    /** Never the prefix of a real jti either. */
+    private static final String USER_CHANGED_PREFIX = "user:";
+
+    /**
+     * A user row changed: caches must drop copies of the user older than {@code version}. Travels as
+     * {@code user:<id>:<version>} in place of the jti.
+     */
+    public static RevocationEvent userChanged(long userId, long version, long expiresAtMillis, long changedAtMillis) {
+        return new RevocationEvent(USER_CHANGED_PREFIX + userId + ":" + version, expiresAtMillis, changedAtMillis);
+    }
+
+    public boolean revokesAllTokens() {
+        return ALL_TOKENS.equals(jti);
+    }
+
+    public boolean isUserChange() {
+        return jti.startsWith(USER_CHANGED_PREFIX);
+    }
+
+    public long userId() {
+        return Long.parseLong(jti.substring(USER_CHANGED_PREFIX.length(), jti.lastIndexOf(':')));
+    }
+
+    public long userVersion() {
+        return Long.parseLong(jti.substring(jti.lastIndexOf(':') + 1));
+    }
+}
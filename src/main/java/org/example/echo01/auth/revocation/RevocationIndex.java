@@ -0,0 +1,71 @@
+package org.example.echo01.auth.revocation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory set of revoked token ids ({@code jti}). A Bloom filter answers the common
+ * "not revoked" case; only filter hits fall through to the exact map. Entries are dropped
+ * once the token's own expiry has passed, so the size follows the number of live revoked tokens.
+ */
+@Component
+public class RevocationIndex {
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    public RevocationIndex(
+            @Value("${application.security.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+            @Value("${application.security.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String jti) {
+        return filter.mightContain(jti) && revokedTokens.containsKey(jti);
+    }
+
+    public void revoke(String jti, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            revokedTokens.put(jti, expiresAtMillis);
+            filter.put(jti);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drops expired entries and rebuilds the Bloom filter from what is left, since bits
+     * cannot be cleared individually. The filter grows if revocations outnumber the sizing hint.
+     */
+    public void evictExpired(long nowMillis) {
+        writeLock.lock();
+        try {
+            revokedTokens.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+            BloomFilter rebuilt = new BloomFilter(
+                    Math.max(expectedRevocations, 2L * revokedTokens.size()), falsePositiveRate);
+            revokedTokens.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.echo01.auth.revocation;
+
+import java.util.List;
+
+public interface RevocationListener {
+
+    void onRevocations(List<RevocationEvent> events);
+
+    /**
+     * Called after the bus re-established its connection, with the newest revocation time it had
+     * seen before the outage. Listeners replay anything revoked since then from durable storage.
+     */
+    void onReconnect(long highWaterMarkMillis);
+}
@@ -1,32 +1,39 @@
 package org.example.echo01.auth.services;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.example.echo01.auth.dto.request.LoginRequest;
 import org.example.echo01.auth.dto.request.RegisterRequest;
 import org.example.echo01.auth.dto.response.AuthenticationResponse;
-import org.example.echo01.auth.entities.Token;
 import org.example.echo01.auth.entities.User;
 import org.example.echo01.auth.enums.Role;
-import org.example.echo01.auth.enums.TokenType;
-import org.example.echo01.auth.repositories.TokenRepository;
 import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.common.aspects.Instrumented;
 import org.example.echo01.common.exceptions.CustomException;
+import org.example.echo01.config.RateLimitConfig;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Profile("!reactive")
+@Instrumented
 @RequiredArgsConstructor
 public class AuthenticationService {
     private final UserRepository userRepository;
-    private final TokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimitConfig rateLimitConfig;
+    private final UserCache userCache;
 
     @Transactional
     public AuthenticationResponse register(RegisterRequest request) {
@@ -46,96 +53,78 @@ public class AuthenticationService {
                 .build();
         
         var savedUser = userRepository.save(user);
-        var accessToken = jwtService.generateToken(user);
-        var refreshToken = jwtService.generateRefreshToken(user);
-        saveUserToken(savedUser, accessToken);
+        var tokens = refreshTokenService.issue(savedUser, null);
         
         return AuthenticationResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessToken(tokens.accessToken().token())
+                .refreshToken(tokens.refreshToken().token())
                 .message("User registered successfully")
                 .success(true)
                 .build();
     }
 
     public AuthenticationResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword()
-                )
-        );
+        rateLimitConfig.checkLoginAttempt(request.getEmail());
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getEmail(),
+                            request.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            // Only failures count against the address
+            rateLimitConfig.recordFailedLogin(request.getEmail());
+            throw e;
+        }
         
-        var user = userRepository.findByEmail(request.getEmail())
+        // Loaded by the authentication above already, so this is a cache hit
+        var user = userCache.findByEmail(request.getEmail())
                 .orElseThrow(() -> new CustomException("User not found"));
         
-        var accessToken = jwtService.generateToken(user);
-        var refreshToken = jwtService.generateRefreshToken(user);
-        revokeAllUserTokens(user);
-        saveUserToken(user, accessToken);
+        // A device signing in again replaces its own session; without a device id every session is replaced
+        var deviceId = request.getDeviceId();
+        tokenRevocationService.replaceSessions(user.getId(), deviceId);
+        var tokens = refreshTokenService.issue(user, deviceId);
         
         return AuthenticationResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessToken(tokens.accessToken().token())
+                .refreshToken(tokens.refreshToken().token())
                 .message("Login successful")
                 .success(true)
                 .build();
     }
 
-    private void saveUserToken(User user, String jwtToken) {
-        var token = Token.builder()
-                .user(user)
-                .token(jwtToken)
-                .tokenType(TokenType.ACCESS)
-                .expired(false)
-                .revoked(false)
-                .build();
-        tokenRepository.save(token);
-    }
-
-    private void revokeAllUserTokens(User user) {
-        var validUserTokens = tokenRepository.findAllValidTokenByUser(user.getId());
-        if (validUserTokens.isEmpty())
-            return;
-        
-        validUserTokens.forEach(token -> {
-            token.setExpired(true);
-            token.setRevoked(true);
-        });
-        
-        tokenRepository.saveAll(validUserTokens);
-    }
-
+    /**
+     * Exchanges the refresh token for a new access/refresh pair; the presented one stops working.
+     * Only the session it belongs to is touched, the user's other devices keep theirs.
+     */
     public AuthenticationResponse refreshToken(HttpServletRequest request) {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        final String refreshToken;
-        final String userEmail;
-        
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             throw new CustomException("Refresh token is missing");
         }
-        
-        refreshToken = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(refreshToken);
-        
-        if (userEmail != null) {
-            var user = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new CustomException("User not found"));
-                    
-            if (jwtService.isTokenValid(refreshToken, user)) {
-                var accessToken = jwtService.generateToken(user);
-                revokeAllUserTokens(user);
-                saveUserToken(user, accessToken);
-                
-                return AuthenticationResponse.builder()
-                        .accessToken(accessToken)
-                        .refreshToken(refreshToken)
-                        .message("Token refreshed successfully")
-                        .success(true)
-                        .build();
-            }
+
+        var verifiedToken = resolveToken(request, authHeader.substring(7));
+        var tokens = refreshTokenService.rotate(verifiedToken);
+
+        return AuthenticationResponse.builder()
+                .accessToken(tokens.accessToken().token())
+                .refreshToken(tokens.refreshToken().token())
+                .message("Token refreshed successfully")
+                .success(true)
+                .build();
+    }
+
+    private VerifiedToken resolveToken(HttpServletRequest request, String jwt) {
+        if (request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE) instanceof VerifiedToken token
+                && token.token().equals(jwt)) {
+            return token;
+        }
+        try {
+            return jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new CustomException("Invalid refresh token");
         }
-        
-        throw new CustomException("Invalid refresh token");
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
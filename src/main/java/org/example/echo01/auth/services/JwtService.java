@@ -1,10 +1,21 @@
 package org.example.echo01.auth.services;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.io.Deserializer;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.keys.HmacSigningKeys;
+import org.example.echo01.auth.keys.SigningKey;
+import org.example.echo01.auth.keys.SigningKeys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -13,19 +24,80 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey;
-    
-    @Value("${application.security.jwt.expiration}")
-    private long jwtExpiration;
-    
-    @Value("${application.security.jwt.refresh-token.expiration}")
-    private long refreshExpiration;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String DEVICE_ID_CLAIM = "did";
+    public static final String TYPE_CLAIM = "typ";
+    public static final String REFRESH_TYPE = "refresh";
+
+    private final SigningKeys signingKeys;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+
+    // Immutable and thread-safe: build the parser and JSON serializer once, keys are resolved by kid
+    private final JwtParser jwtParser;
+    private final Serializer<Map<String, ?>> serializer = new JacksonSerializer<>();
+    private final Deserializer<Map<String, ?>> deserializer = new JacksonDeserializer<>();
+
+    @Autowired
+    public JwtService(
+            SigningKeys signingKeys,
+            @Value("${application.security.jwt.expiration}") long jwtExpiration,
+            @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration
+    ) {
+        this.signingKeys = signingKeys;
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = signingKeys.verificationKey(header.getKeyId(), header.getAlgorithm());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public JwtService(String secretKey, long jwtExpiration, long refreshExpiration) {
+        this(new HmacSigningKeys(secretKey), jwtExpiration, refreshExpiration);
+    }
+
+    /**
+     * Verifies signature and expiry and returns the claims view; throws a
+     * {@link io.jsonwebtoken.JwtException} if the token cannot be trusted.
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.of(token, extractAllClaims(token));
+    }
+
+    /**
+     * Whether {@link #verify(String)} finds the token's signing key in memory. False for a
+     * {@code kid} that would first make the key source reload from the database.
+     */
+    public boolean resolvesKeyWithoutBlocking(String token) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd < 0) {
+            return true;
+        }
+        try {
+            Map<String, ?> header = deserializer.deserialize(Decoders.BASE64URL.decode(token.substring(0, headerEnd)));
+            return signingKeys.resolvesWithoutBlocking(
+                    stringOrNull(header.get(JwsHeader.KEY_ID)), stringOrNull(header.get(JwsHeader.ALGORITHM)));
+        } catch (RuntimeException e) {
+            // Unreadable header: the parser rejects it before looking up any key
+            return true;
+        }
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -45,55 +117,89 @@ public class JwtService {
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        return generateRefreshToken(new HashMap<>(), userDetails);
+    }
+
+    public String generateRefreshToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        return issueRefreshToken(extraClaims, userDetails).token();
     }
 
     public String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
-        return Jwts
+        return issue(extraClaims, userDetails, expiration).token();
+    }
+
+    /** Signs a new access token and returns it with its claims, so callers need not parse it back. */
+    public VerifiedToken issueAccessToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        return issue(extraClaims, userDetails, jwtExpiration);
+    }
+
+    /** Signs a new refresh token, marked with a {@code typ} claim so it is never accepted as an access token. */
+    public VerifiedToken issueRefreshToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(TYPE_CLAIM, REFRESH_TYPE);
+        return issue(claims, userDetails, refreshExpiration);
+    }
+
+    public long accessTokenLifetimeMillis() {
+        return jwtExpiration;
+    }
+
+    private VerifiedToken issue(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        if (userDetails instanceof User user && user.getId() != null && user.getRole() != null) {
+            claims.putIfAbsent(USER_ID_CLAIM, user.getId());
+            claims.putIfAbsent(ROLE_CLAIM, user.getRole().name());
+        }
+        SigningKey signingKey = signingKeys.current();
+        String id = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        String token = Jwts
                 .builder()
+                .serializeToJsonWith(serializer)
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                .setId(id)
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .addClaims(extraClaims)
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiration))
+                .addClaims(claims)
+                .signWith(signingKey.signingKey(), signingKey.algorithm())
                 .compact();
+        // iat and exp are serialized in whole seconds, so report them the way a parser would
+        return new VerifiedToken(
+                token,
+                userDetails.getUsername(),
+                id,
+                claims.get(USER_ID_CLAIM) instanceof Number userId ? userId.longValue() : null,
+                claims.get(ROLE_CLAIM) instanceof String role ? role : null,
+                claims.get(DEVICE_ID_CLAIM) instanceof String deviceId ? deviceId : null,
+                claims.get(TYPE_CLAIM) instanceof String type ? type : null,
+                now / 1000 * 1000,
+                (now + expiration) / 1000 * 1000
+        );
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username != null && 
-                   userDetails != null && 
-                   username.equals(userDetails.getUsername()) && 
-                   !isTokenExpired(token));
+            return isTokenValid(verify(token), userDetails);
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null &&
+               userDetails != null &&
+               token.subject().equals(userDetails.getUsername()) &&
+               !token.isExpired(System.currentTimeMillis());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static String stringOrNull(Object value) {
+        return value instanceof String string ? string : null;
     }
-} 
\ No newline at end of file
+}
@@ -3,18 +3,21 @@ package org.example.echo01.auth.services;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.common.aspects.Instrumented;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.LogoutHandler;
 import org.springframework.stereotype.Service;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class LogoutService implements LogoutHandler {
 
-    private final TokenRepository tokenRepository;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
+    @Instrumented
     public void logout(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -26,12 +29,6 @@ public class LogoutService implements LogoutHandler {
             return;
         }
         jwt = authHeader.substring(7);
-        var storedToken = tokenRepository.findByToken(jwt)
-                .orElse(null);
-        if (storedToken != null) {
-            storedToken.setExpired(true);
-            storedToken.setRevoked(true);
-            tokenRepository.save(storedToken);
-        }
+        tokenRevocationService.revokeToken(jwt);
     }
 } 
\ No newline at end of file
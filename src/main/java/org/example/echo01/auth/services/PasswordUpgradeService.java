@@ -0,0 +1,74 @@
+package org.example.echo01.auth.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Receives rehashed passwords from {@code DaoAuthenticationProvider} after a successful login
+ * with an outdated hash and writes them in one JDBC batch per flush instead of one UPDATE on
+ * the login path. The update only applies while the row still holds the hash that was verified,
+ * so a password change in the meantime is never overwritten. Like any other update of a user it
+ * bumps the version and evicts the user from the {@link UserCache}.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    private static final String UPDATE_SQL = "update users set password = ?, version = version + 1 where id = ? and password = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCache userCache;
+
+    private final Map<Long, PendingUpgrade> pending = new ConcurrentHashMap<>();
+
+    private record PendingUpgrade(String email, long version, String verifiedHash, String upgradedHash) {
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (user instanceof User entity && entity.getId() != null) {
+            long version = entity.getVersion() != null ? entity.getVersion() : 0;
+            pending.merge(entity.getId(),
+                    new PendingUpgrade(entity.getEmail(), version, entity.getPassword(), newPassword),
+                    (queued, next) -> new PendingUpgrade(queued.email(), queued.version(),
+                            queued.verifiedHash(), next.upgradedHash()));
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${application.security.password-hashing.upgrade-flush-interval:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        List<User> upgraded = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            PendingUpgrade upgrade = pending.remove(userId);
+            if (upgrade != null) {
+                batch.add(new Object[]{upgrade.upgradedHash(), userId, upgrade.verifiedHash()});
+                upgraded.add(User.builder().id(userId).email(upgrade.email()).version(upgrade.version() + 1).build());
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+        upgraded.forEach(userCache::evict);
+        logger.debug("Upgraded {} password hashes", batch.size());
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.echo01.auth.services;
+
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.dto.request.LoginRequest;
+import org.example.echo01.auth.dto.request.RegisterRequest;
+import org.example.echo01.auth.dto.response.AuthenticationResponse;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.ReactiveTokenRepository;
+import org.example.echo01.auth.repositories.ReactiveUserRepository;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.common.exceptions.CustomException;
+import org.example.echo01.common.exceptions.ServiceBusyException;
+import org.example.echo01.config.RateLimitConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AuthenticationService} for the reactive profile. Registration and login run on R2DBC,
+ * with password hashing on the bounded {@code passwordHashingScheduler}. Refresh and logout reuse
+ * {@link RefreshTokenService} and {@link TokenRevocationService} unchanged, so token rotation,
+ * reuse detection and revocation publishing behave exactly as on the servlet stack; their
+ * transactional JDBC work runs on the bounded elastic scheduler, off the event loop.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveAuthenticationService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveTokenRepository tokenRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler passwordHashingScheduler;
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final TransactionalOperator transactionalOperator;
+    private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimitConfig rateLimitConfig;
+
+    @Value("${application.security.password-hashing.retry-after:1}")
+    private long retryAfterSeconds;
+
+    public Mono<AuthenticationResponse> register(RegisterRequest request) {
+        return userRepository.existsByEmail(request.getEmail())
+                .flatMap(exists -> exists
+                        ? Mono.<String>error(new CustomException("Email already exists"))
+                        : hash(request.getPassword()))
+                .map(password -> User.builder()
+                        .firstname(request.getFirstname())
+                        .lastname(request.getLastname())
+                        .email(request.getEmail())
+                        .password(password)
+                        .bio(request.getBio())
+                        .role(Role.USER)
+                        .build())
+                .flatMap(user -> userRepository.save(user)
+                        .flatMap(savedUser -> issue(savedUser, null))
+                        .as(transactionalOperator::transactional))
+                .map(tokens -> response(tokens, "User registered successfully"));
+    }
+
+    public Mono<AuthenticationResponse> login(LoginRequest request) {
+        var deviceId = request.getDeviceId();
+        // A cluster-scoped login limit is a JDBC round trip, so the bucket is never touched on the event loop
+        return Mono.fromRunnable(() -> rateLimitConfig.checkLoginAttempt(request.getEmail()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.defer(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()))))
+                .onErrorResume(BadCredentialsException.class, e ->
+                        Mono.fromRunnable(() -> rateLimitConfig.recordFailedLogin(request.getEmail()))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .then(Mono.error(e)))
+                .onErrorMap(RejectedExecutionException.class, e -> busy())
+                .map(authentication -> (User) authentication.getPrincipal())
+                .flatMap(user -> revokeUserTokens(user, deviceId).then(issue(user, deviceId)))
+                .map(tokens -> response(tokens, "Login successful"));
+    }
+
+    /** See {@link AuthenticationService#refreshToken}. */
+    public Mono<AuthenticationResponse> refreshToken(ServerWebExchange exchange) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.error(new CustomException("Refresh token is missing"));
+        }
+        return Mono.fromCallable(() -> resolveToken(exchange, authHeader.substring(7)))
+                .publishOn(Schedulers.boundedElastic())
+                .map(refreshTokenService::rotate)
+                .map(tokens -> response(tokens, "Token refreshed successfully"));
+    }
+
+    /** Logs out the session of the bearer token, like {@link LogoutService}. */
+    public Mono<Void> logout(ServerWebExchange exchange) {
+        final String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.empty();
+        }
+        return Mono.fromRunnable(() -> tokenRevocationService.revokeToken(authHeader.substring(7)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    private Mono<String> hash(String rawPassword) {
+        return Mono.fromCallable(() -> passwordEncoder.encode(rawPassword))
+                .subscribeOn(passwordHashingScheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> busy());
+    }
+
+    // A device signing in again replaces its own session; without a device id every session is replaced
+    private Mono<Void> revokeUserTokens(User user, String deviceId) {
+        Flux<TokenRef> tokens = deviceId == null
+                ? tokenRepository.findAllValidTokensByUser(user.getId())
+                : tokenRepository.findAllValidTokensByUserAndDevice(user.getId(), deviceId);
+        return tokens.collectList()
+                .filter(refs -> !refs.isEmpty())
+                .flatMap(refs -> (deviceId == null
+                        ? tokenRepository.revokeAllByUser(user.getId(), now())
+                        : tokenRepository.revokeAllByUserAndDevice(user.getId(), deviceId, now()))
+                        .doOnSuccess(revoked -> tokenRevocationService.revokeAll(refs)))
+                .then();
+    }
+
+    // Starts a new token family, like RefreshTokenService#issue
+    private Mono<TokenPair> issue(User user, String deviceId) {
+        return Mono.defer(() -> {
+            Map<String, Object> claims = deviceId == null ? Map.of() : Map.of(JwtService.DEVICE_ID_CLAIM, deviceId);
+            VerifiedToken accessToken = jwtService.issueAccessToken(claims, user);
+            VerifiedToken refreshToken = jwtService.issueRefreshToken(claims, user);
+            UUID familyId = UUID.randomUUID();
+            return tokenRepository.saveAll(List.of(
+                            RefreshTokenService.toEntity(user, accessToken, TokenType.ACCESS, familyId, 0),
+                            RefreshTokenService.toEntity(user, refreshToken, TokenType.REFRESH, familyId, 0)))
+                    .thenReturn(new TokenPair(accessToken, refreshToken));
+        });
+    }
+
+    private VerifiedToken resolveToken(ServerWebExchange exchange, String jwt) {
+        if (exchange.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE) instanceof VerifiedToken token
+                && token.token().equals(jwt)) {
+            return token;
+        }
+        try {
+            return jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new CustomException("Invalid refresh token");
+        }
+    }
+
+    private ServiceBusyException busy() {
+        return new ServiceBusyException("Authentication is temporarily overloaded, please retry", retryAfterSeconds);
+    }
+
+    private static AuthenticationResponse response(TokenPair tokens, String message) {
+        return AuthenticationResponse.builder()
+                .accessToken(tokens.accessToken().token())
+                .refreshToken(tokens.refreshToken().token())
+                .message(message)
+                .success(true)
+                .build();
+    }
+
+    // Millisecond precision, like the other bulk updates of the tokens table
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
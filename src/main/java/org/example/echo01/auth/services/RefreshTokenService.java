@@ -0,0 +1,182 @@
+package org.example.echo01.auth.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.common.exceptions.CustomException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Issues access/refresh token pairs and rotates them. Every login starts a token family; the
+ * family's current refresh token can be exchanged exactly once, which revokes its generation
+ * and issues the next. Presenting a refresh token that was already rotated means it was copied,
+ * so the whole family is revoked, unless that happens within the reuse grace period of its
+ * rotation: that is how parallel refreshes from a single client look, and they are only refused.
+ * <p>
+ * A rotation is one indexed query for the family and its user, one conditional UPDATE of the
+ * current generation and one batched INSERT of the next, in a single transaction. It never
+ * touches the user's other sessions, so bursts of refreshes only contend within a family.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final JwtService jwtService;
+    private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocationService;
+    private final TokenWriteBehind tokenWriteBehind;
+
+    @Value("${application.security.jwt.refresh-token.reuse-grace:10000}")
+    private long reuseGraceMillis;
+
+    /** Starts a new token family, e.g. on login. Its rows are written through the {@link TokenWriteBehind}. */
+    public TokenPair issue(User user, String deviceId) {
+        return issue(user, deviceId, UUID.randomUUID(), 0, tokenWriteBehind::insert);
+    }
+
+    // Revoking a family on reuse must be committed even though the request fails
+    @Transactional(noRollbackFor = CustomException.class)
+    public TokenPair rotate(VerifiedToken refreshToken) {
+        UUID jti = refreshToken.jti();
+        if (jti != null) {
+            // Rotation reads and updates the family's rows, so they have to be written first
+            tokenWriteBehind.flushPendingFor(jti);
+        }
+        List<Token> family = jti != null ? tokenRepository.findFamilyOf(jti) : List.of();
+        Token presented = family.stream()
+                .filter(token -> token.getJti().equals(jti))
+                .findFirst()
+                .orElse(null);
+        if (presented == null) {
+            if (isLegacyRefreshToken(refreshToken)) {
+                return exchangeLegacy(refreshToken);
+            }
+            throw invalidRefreshToken();
+        }
+        if (presented.getTokenType() != TokenType.REFRESH || !presented.getUser().isEnabled()) {
+            throw invalidRefreshToken();
+        }
+        if (presented.isRevoked()) {
+            throw reused(presented, family);
+        }
+
+        if (tokenRepository.revokeGeneration(presented.getFamilyId(), presented.getGeneration(), now()) == 0) {
+            // A concurrent request rotated this token between our read and our update
+            throw new CustomException("Refresh token has already been used");
+        }
+        tokenRevocationService.revokeAll(family.stream()
+                .filter(token -> token.getGeneration() == presented.getGeneration())
+                .map(RefreshTokenService::toRef)
+                .toList());
+        return issue(presented.getUser(), presented.getDeviceId(), presented.getFamilyId(),
+                presented.getGeneration() + 1);
+    }
+
+    private CustomException reused(Token presented, List<Token> family) {
+        LocalDateTime graceStart = LocalDateTime.now().minus(reuseGraceMillis, ChronoUnit.MILLIS);
+        if (presented.getUpdatedAt() != null && presented.getUpdatedAt().isAfter(graceStart)) {
+            return new CustomException("Refresh token has already been used");
+        }
+        logger.warn("Refresh token reuse detected for user {}, revoking token family {}",
+                presented.getUser().getId(), presented.getFamilyId());
+        tokenRepository.revokeFamily(presented.getFamilyId(), now());
+        tokenRevocationService.revokeAll(family.stream()
+                .filter(token -> !token.isRevoked())
+                .map(RefreshTokenService::toRef)
+                .toList());
+        return invalidRefreshToken();
+    }
+
+    /**
+     * Refresh tokens issued before rotation have no {@code typ} claim and were never stored. Each
+     * one is exchanged once for a new family and recorded as its revoked generation -1, so
+     * presenting it again is treated like any other reuse.
+     */
+    private TokenPair exchangeLegacy(VerifiedToken refreshToken) {
+        User user = userRepository.findByEmail(refreshToken.subject())
+                .filter(User::isEnabled)
+                .orElseThrow(this::invalidRefreshToken);
+        UUID familyId = UUID.randomUUID();
+        tokenRepository.save(Token.builder()
+                .user(user)
+                .jti(refreshToken.jti())
+                .expiresAt(Instant.ofEpochMilli(refreshToken.expiresAtMillis()))
+                .tokenType(TokenType.REFRESH)
+                .deviceId(refreshToken.deviceId())
+                .familyId(familyId)
+                .generation(-1)
+                .revoked(true)
+                .expired(true)
+                .build());
+        return issue(user, refreshToken.deviceId(), familyId, 0);
+    }
+
+    // Without a typ claim only the lifetime tells a refresh token from an access token
+    private boolean isLegacyRefreshToken(VerifiedToken token) {
+        return !token.isRefreshToken()
+                && token.jti() != null
+                && token.expiresAtMillis() - token.issuedAtMillis() > jwtService.accessTokenLifetimeMillis();
+    }
+
+    // Rotation writes synchronously, in its transaction
+    private TokenPair issue(User user, String deviceId, UUID familyId, int generation) {
+        return issue(user, deviceId, familyId, generation, tokenRepository::saveAll);
+    }
+
+    private TokenPair issue(User user, String deviceId, UUID familyId, int generation, Consumer<List<Token>> writer) {
+        Map<String, Object> claims = deviceId == null ? Map.of() : Map.of(JwtService.DEVICE_ID_CLAIM, deviceId);
+        VerifiedToken accessToken = jwtService.issueAccessToken(claims, user);
+        VerifiedToken refreshToken = jwtService.issueRefreshToken(claims, user);
+        writer.accept(List.of(
+                toEntity(user, accessToken, TokenType.ACCESS, familyId, generation),
+                toEntity(user, refreshToken, TokenType.REFRESH, familyId, generation)
+        ));
+        return new TokenPair(accessToken, refreshToken);
+    }
+
+    static Token toEntity(User user, VerifiedToken token, TokenType type, UUID familyId, int generation) {
+        return Token.builder()
+                .user(user)
+                .jti(token.jti())
+                .expiresAt(Instant.ofEpochMilli(token.expiresAtMillis()))
+                .tokenType(type)
+                .deviceId(token.deviceId())
+                .familyId(familyId)
+                .generation(generation)
+                .expired(false)
+                .revoked(false)
+                .build();
+    }
+
+    private static TokenRef toRef(Token token) {
+        return new TokenRef(token.getJti(), token.getExpiresAt());
+    }
+
+    private CustomException invalidRefreshToken() {
+        return new CustomException("Invalid refresh token");
+    }
+
+    // Millisecond precision, like the other bulk updates of the tokens table
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
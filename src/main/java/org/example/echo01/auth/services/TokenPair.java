@@ -0,0 +1,7 @@
+package org.example.echo01.auth.services;
+
+/**
+ * Access and refresh token issued together, both already persisted.
+ */
+public record TokenPair(VerifiedToken accessToken, VerifiedToken refreshToken) {
+}
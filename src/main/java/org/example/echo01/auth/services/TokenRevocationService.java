@@ -0,0 +1,228 @@
+package org.example.echo01.auth.services;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.revocation.RevocationBus;
+import org.example.echo01.auth.revocation.RevocationEvent;
+import org.example.echo01.auth.revocation.RevocationIndex;
+import org.example.echo01.auth.revocation.RevocationListener;
+import org.example.echo01.common.aspects.Instrumented;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of revoked token ids ({@code jti}) in memory so that the stateless
+ * authentication mode can reject logged-out tokens without reading the tokens table.
+ * Local revocations are published on the {@link RevocationBus}; revocations from other
+ * instances arrive through it as well.
+ * <p>
+ * The bulk operations revoke the rows with a single UPDATE and only read back the id and expiry
+ * of the few tokens that were still valid, to publish them.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService implements RevocationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final JwtService jwtService;
+    private final TokenRepository tokenRepository;
+    private final RevocationIndex revocationIndex;
+    private final RevocationBus revocationBus;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenWriteBehind tokenWriteBehind;
+
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    // Tokens issued at or before this second are revoked ("log everyone out"); 0 until that happens
+    private volatile long notBeforeSeconds;
+
+    @PostConstruct
+    public void subscribe() {
+        revocationBus.subscribe(this);
+    }
+
+    /**
+     * Seeds the index from the tokens table. Only rows of unexpired tokens are read; anything
+     * older would be rejected on its {@code exp} claim regardless.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedTokens() {
+        var revokedTokens = tokenRepository.findAllByRevokedTrueAndExpiresAtAfter(Instant.now());
+        onRevocations(toEvents(revokedTokens));
+        logger.info("Loaded {} revoked tokens into the revocation index", revocationIndex.size());
+    }
+
+    /** Logs out the session of a token, i.e. the token and the rest of its refresh family. */
+    public void revokeToken(String jwt) {
+        VerifiedToken token;
+        try {
+            token = jwtService.verify(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Expired or tampered tokens are rejected by signature/expiry checks already
+            return;
+        }
+        if (token.jti() == null) {
+            return;
+        }
+        tokenWriteBehind.flushPendingFor(token.jti());
+        var session = tokenRepository.findAllValidTokensInSessionOf(token.jti());
+        tokenRepository.revokeSessionOf(token.jti(), now());
+        var events = new ArrayList<>(toEvents(session));
+        if (session.stream().noneMatch(ref -> ref.jti().equals(token.jti()))) {
+            // Not stored (or already revoked): still make sure stateless mode rejects it
+            events.add(new RevocationEvent(token.id(), token.expiresAtMillis(), System.currentTimeMillis()));
+        }
+        onRevocations(events);
+        revocationBus.publish(events, this);
+    }
+
+    /** Ends every session of the user, on all devices. */
+    public void revokeUserTokens(Long userId) {
+        tokenWriteBehind.flushPendingForUser(userId);
+        var tokens = tokenRepository.findAllValidTokensByUser(userId);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        tokenRepository.revokeAllByUser(userId, now());
+        revokeAll(tokens);
+    }
+
+    /** Ends the user's sessions on one device. */
+    public void revokeDeviceTokens(Long userId, String deviceId) {
+        tokenWriteBehind.flushPendingForUser(userId);
+        var tokens = tokenRepository.findAllValidTokensByUserAndDevice(userId, deviceId);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        tokenRepository.revokeAllByUserAndDevice(userId, deviceId, now());
+        revokeAll(tokens);
+    }
+
+    /**
+     * Revokes the sessions a login replaces: the device's own, or all of them when the login has
+     * no device id. The rows are updated through the {@link TokenWriteBehind}, tokens it has not
+     * written yet included; the revocation index rejects them right away.
+     */
+    public void replaceSessions(Long userId, String deviceId) {
+        var tokens = new ArrayList<>(deviceId == null
+                ? tokenRepository.findAllValidTokensByUser(userId)
+                : tokenRepository.findAllValidTokensByUserAndDevice(userId, deviceId));
+        tokens.addAll(tokenWriteBehind.findUnflushedTokensOf(userId, deviceId));
+        if (tokens.isEmpty()) {
+            return;
+        }
+        tokenWriteBehind.revoke(userId, tokens);
+        revokeAll(tokens);
+    }
+
+    /**
+     * Logs everyone out. Instances are told with a single event that rejects every token issued
+     * until now, instead of one event per token.
+     */
+    @Instrumented
+    public int revokeAllTokens() {
+        tokenWriteBehind.flush();
+        long nowMillis = System.currentTimeMillis();
+        int revoked = tokenRepository.revokeAll(now());
+        var events = List.of(new RevocationEvent(RevocationEvent.ALL_TOKENS, nowMillis + jwtExpiration, nowMillis));
+        onRevocations(events);
+        revocationBus.publish(events, this);
+        logger.info("Revoked all {} active tokens", revoked);
+        return revoked;
+    }
+
+    /**
+     * Indexes and publishes the revocation of rows the caller has already revoked. Inside a
+     * transaction (refresh token rotation) that only happens once it commits: before that the
+     * rows still read as valid, and after a rollback they stay valid.
+     */
+    @Instrumented
+    public void revokeAll(Collection<TokenRef> tokens) {
+        var events = toEvents(tokens);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onRevocations(events);
+                    revocationBus.publish(events, TokenRevocationService.this);
+                }
+            });
+            return;
+        }
+        onRevocations(events);
+        revocationBus.publish(events, this);
+    }
+
+    public boolean isRevoked(String jti) {
+        return revocationIndex.isRevoked(jti);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        // iat only has second precision, so a token issued in the same second as a global revocation is rejected too
+        return token.issuedAtMillis() / 1000 <= notBeforeSeconds || revocationIndex.isRevoked(token.id());
+    }
+
+    @Override
+    public void onRevocations(List<RevocationEvent> events) {
+        List<String> revokedJtis = new ArrayList<>(events.size());
+        for (RevocationEvent event : events) {
+            if (event.isUserChange()) {
+                // For the UserCache
+                continue;
+            }
+            if (event.revokesAllTokens()) {
+                notBeforeSeconds = Math.max(notBeforeSeconds, event.revokedAtMillis() / 1000);
+            } else {
+                revocationIndex.revoke(event.jti(), event.expiresAtMillis());
+            }
+            revokedJtis.add(event.jti());
+        }
+        verifiedTokenCache.invalidate(revokedJtis);
+    }
+
+    @Override
+    public void onReconnect(long highWaterMarkMillis) {
+        var revokedSince = LocalDateTime.ofInstant(Instant.ofEpochMilli(highWaterMarkMillis), ZoneId.systemDefault());
+        var missedTokens = tokenRepository.findAllByRevokedTrueAndUpdatedAtAfter(revokedSince);
+        onRevocations(toEvents(missedTokens));
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.purge-interval:60000}")
+    public void purgeExpired() {
+        revocationIndex.evictExpired(System.currentTimeMillis());
+    }
+
+    // Millisecond precision so the value stored in the database is exactly the one compared later
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    private static List<RevocationEvent> toEvents(Collection<TokenRef> tokens) {
+        long now = System.currentTimeMillis();
+        List<RevocationEvent> events = new ArrayList<>(tokens.size());
+        for (TokenRef token : tokens) {
+            events.add(new RevocationEvent(token.jti().toString(), token.expiresAt().toEpochMilli(), now));
+        }
+        return events;
+    }
+}
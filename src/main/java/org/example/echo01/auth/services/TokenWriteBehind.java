@@ -0,0 +1,324 @@
+package org.example.echo01.auth.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for the token rows written on login and registration: issued tokens and the
+ * revocations of the sessions a login replaces are queued, and a single worker writes them in
+ * one transaction per {@code batch-size} writes, the inserts as one JDBC batch and the
+ * revocations as one UPDATE. The worker writes whenever {@code batch-size} writes are waiting,
+ * and at least every {@code max-delay}.
+ * <p>
+ * Durability: a write is persisted once its batch commits, normally within {@code max-delay}.
+ * Until then this instance serves it from memory: the stateful filter finds unflushed tokens
+ * here, revocations take effect through the revocation index right away, and code that queries
+ * the tokens table for a token or user with unflushed writes flushes first. Other instances only
+ * see a new token once it is written, so without sticky sessions use the stateless mode. Writes
+ * still queued when the process dies are lost: those tokens stop working and their holders have
+ * to sign in again, and the sessions a lost login revocation replaced stay usable until they
+ * expire. Logout, rotation and reuse detection always write synchronously. A full queue makes
+ * callers write synchronously; shutdown drains the queue. With {@code enabled=false} every write
+ * is synchronous.
+ */
+@Component
+public class TokenWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenWriteBehind.class);
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long maxDelayNanos;
+    private final BlockingDeque<PendingWrite> queue = new LinkedBlockingDeque<>();
+    // Until their batch commits; keyed by jti
+    private final Map<UUID, Token> unflushedTokens = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> unflushedRevocations = new ConcurrentHashMap<>();
+    // Held while draining and writing, so batches are committed in queue order
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final DistributionSummary batchSizes;
+    private final Timer flushTime;
+    private final Timer writeDelay;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /** A token to insert, or the jti of one to revoke. */
+    private record PendingWrite(Token token, UUID revokedJti, Long userId, long enqueuedAtNanos) {
+    }
+
+    public TokenWriteBehind(
+            TokenRepository tokenRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.write-behind.enabled:false}") boolean enabled,
+            @Value("${application.security.jwt.write-behind.batch-size:50}") int batchSize,
+            @Value("${application.security.jwt.write-behind.max-delay:50}") long maxDelayMillis,
+            @Value("${application.security.jwt.write-behind.queue-capacity:10000}") int queueCapacity
+    ) {
+        this.tokenRepository = tokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        Gauge.builder("auth.tokens.write.queue.depth", queue, BlockingDeque::size)
+                .description("Token writes waiting for the write-behind worker")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("auth.tokens.write.batch.size")
+                .description("Token writes committed per transaction")
+                .register(meterRegistry);
+        this.flushTime = Timer.builder("auth.tokens.write.flush.time")
+                .description("Time to write and commit one batch of token writes")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.writeDelay = Timer.builder("auth.tokens.write.delay")
+                .description("Time between queueing a token write and its commit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.failures = Counter.builder("auth.tokens.write.failures")
+                .description("Batches of token writes that failed and were retried or dropped")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "token-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Lost {} queued token writes on shutdown: {}", queue.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the rows of newly issued tokens. Inside a transaction (registration) they are only
+     * queued once it commits, as they refer to rows it writes.
+     */
+    public void insert(List<Token> tokens) {
+        if (!enabled) {
+            tokenRepository.saveAll(tokens);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokens.forEach(token -> enqueue(new PendingWrite(token, null, token.getUser().getId(), System.nanoTime())));
+                }
+            });
+            return;
+        }
+        tokens.forEach(token -> enqueue(new PendingWrite(token, null, token.getUser().getId(), System.nanoTime())));
+    }
+
+    /** Queues the revocation of the user's given tokens; callers publish them to the revocation index. */
+    public void revoke(Long userId, Collection<TokenRef> tokens) {
+        if (!enabled) {
+            tokenRepository.revokeAllByJti(tokens.stream().map(TokenRef::jti).toList(), now());
+            return;
+        }
+        tokens.forEach(token -> enqueue(new PendingWrite(null, token.jti(), userId, System.nanoTime())));
+    }
+
+    /** A token issued by this instance that is not written yet. */
+    public Optional<Token> findUnflushed(UUID jti) {
+        return Optional.ofNullable(unflushedTokens.get(jti));
+    }
+
+    /** The user's unflushed tokens, only those of the device unless it is {@code null}. */
+    public List<TokenRef> findUnflushedTokensOf(Long userId, String deviceId) {
+        return unflushedTokens.values().stream()
+                .filter(token -> userId.equals(token.getUser().getId()))
+                .filter(token -> deviceId == null || deviceId.equals(token.getDeviceId()))
+                .filter(token -> !unflushedRevocations.containsKey(token.getJti()))
+                .map(token -> new TokenRef(token.getJti(), token.getExpiresAt()))
+                .toList();
+    }
+
+    /** Writes everything queued if the token has unflushed writes, so that queries see them. */
+    public void flushPendingFor(UUID jti) {
+        if (unflushedTokens.containsKey(jti) || unflushedRevocations.containsKey(jti)) {
+            flush();
+        }
+    }
+
+    /** Writes everything queued if the user has unflushed writes, so that queries see them. */
+    public void flushPendingForUser(Long userId) {
+        if (unflushedRevocations.containsValue(userId)
+                || unflushedTokens.values().stream().anyMatch(token -> userId.equals(token.getUser().getId()))) {
+            flush();
+        }
+    }
+
+    /** Writes everything queued so far and returns once it is committed. */
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<PendingWrite> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void enqueue(PendingWrite write) {
+        if (write.token() != null) {
+            unflushedTokens.put(write.token().getJti(), write.token());
+        } else {
+            unflushedRevocations.put(write.revokedJti(), write.userId());
+        }
+        if (queue.size() >= queueCapacity) {
+            // Backpressure: the caller writes the backlog, its own write included
+            queue.addLast(write);
+            flush();
+            return;
+        }
+        queue.addLast(write);
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(this, maxDelayNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.warn("Writing queued token rows failed, retrying: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        long startedAt = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+        } catch (DataIntegrityViolationException e) {
+            failures.increment();
+            writeIndividually(batch);
+            return;
+        } catch (RuntimeException e) {
+            failures.increment();
+            requeue(batch);
+            throw e;
+        }
+        long finishedAt = System.nanoTime();
+        flushTime.record(finishedAt - startedAt, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        batch.forEach(write -> written(write, finishedAt));
+    }
+
+    // A row the database refuses (e.g. its user was deleted) must not hold up the rest of the batch
+    private void writeIndividually(List<PendingWrite> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (write.token() != null) {
+                write.token().setId(null);
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(List.of(write)));
+            } catch (DataIntegrityViolationException e) {
+                logger.error("Dropping token write for user {}: {}", write.userId(), e.getMessage());
+            } catch (RuntimeException e) {
+                // Not about this row (e.g. the connection dropped): it and the rest wait for the next flush
+                requeue(batch.subList(i, batch.size()));
+                throw e;
+            }
+            written(write, System.nanoTime());
+        }
+    }
+
+    // Back to the head of the queue, in order, for the next flush
+    private void requeue(List<PendingWrite> writes) {
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            PendingWrite write = writes.get(i);
+            if (write.token() != null) {
+                write.token().setId(null);
+            }
+            queue.addFirst(write);
+        }
+    }
+
+    // Inserts first: a revocation may refer to a token inserted by the same batch
+    private void apply(List<PendingWrite> batch) {
+        List<Token> inserts = batch.stream().map(PendingWrite::token).filter(Objects::nonNull).toList();
+        List<UUID> revocations = batch.stream().map(PendingWrite::revokedJti).filter(Objects::nonNull).toList();
+        if (!inserts.isEmpty()) {
+            tokenRepository.saveAll(inserts);
+        }
+        if (!revocations.isEmpty()) {
+            tokenRepository.revokeAllByJti(revocations, now());
+        }
+    }
+
+    private void written(PendingWrite write, long writtenAt) {
+        if (write.token() != null) {
+            unflushedTokens.remove(write.token().getJti(), write.token());
+        } else {
+            unflushedRevocations.remove(write.revokedJti(), write.userId());
+        }
+        writeDelay.record(writtenAt - write.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Millisecond precision, like the other bulk updates of the tokens table
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+}
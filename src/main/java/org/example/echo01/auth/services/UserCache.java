@@ -0,0 +1,163 @@
+package org.example.echo01.auth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.auth.revocation.RevocationBus;
+import org.example.echo01.auth.revocation.RevocationEvent;
+import org.example.echo01.auth.revocation.RevocationListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache of users by email and by id for the authentication path, which otherwise
+ * reads the same row several times per request. Every update of a user (password, role, enabled,
+ * ...) bumps its {@code version} and evicts it; the evicted version is remembered for a while so
+ * that a reader which loaded the row just before the change cannot put the old state back. Hits
+ * return detached copies, callers may modify them freely.
+ * <p>
+ * Evictions are published on the {@link RevocationBus}, so every instance drops its copy as soon as
+ * the change is announced, before it commits; the version guard then keeps rows read in between
+ * out of the cache. After the bus reconnects, evictions may have been missed and the whole cache is
+ * dropped.
+ */
+@Component
+public class UserCache implements RevocationListener {
+
+    private final UserRepository userRepository;
+    private final RevocationBus revocationBus;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Cache<String, User> byEmail;
+    private final Cache<Long, User> byId;
+    // user id -> lowest version that may be served; entries outlive any cached user loaded before the change
+    private final Cache<Long, Long> minimumVersions;
+
+    public UserCache(
+            UserRepository userRepository,
+            RevocationBus revocationBus,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.user-cache.enabled:true}") boolean enabled,
+            @Value("${application.security.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${application.security.user-cache.ttl:60000}") long ttlMillis
+    ) {
+        this.userRepository = userRepository;
+        this.revocationBus = revocationBus;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        Duration ttl = Duration.ofMillis(ttlMillis);
+        this.byEmail = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+        this.byId = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+        this.minimumVersions = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "users.by-email");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.by-id");
+        if (enabled) {
+            revocationBus.subscribe(this);
+        }
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (!enabled) {
+            return userRepository.findByEmail(email);
+        }
+        User cached = byEmail.getIfPresent(email);
+        if (cached != null && isCurrent(cached)) {
+            return Optional.of(copy(cached));
+        }
+        return userRepository.findByEmail(email).map(this::store);
+    }
+
+    public Optional<User> findById(Long id) {
+        if (!enabled) {
+            return userRepository.findById(id);
+        }
+        User cached = byId.getIfPresent(id);
+        if (cached != null && isCurrent(cached)) {
+            return Optional.of(copy(cached));
+        }
+        return userRepository.findById(id).map(this::store);
+    }
+
+    /**
+     * Drops the user, under its current and any previous email, and rejects cached or in-flight
+     * copies older than the given user's version, here and on the other instances.
+     */
+    public void evict(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        evict(user.getId(), versionOf(user));
+        if (user.getEmail() != null) {
+            byEmail.invalidate(user.getEmail());
+        }
+        long now = System.currentTimeMillis();
+        revocationBus.publish(List.of(
+                RevocationEvent.userChanged(user.getId(), versionOf(user), now + ttlMillis, now)), this);
+    }
+
+    @Override
+    public void onRevocations(List<RevocationEvent> events) {
+        for (RevocationEvent event : events) {
+            if (event.isUserChange()) {
+                evict(event.userId(), event.userVersion());
+            }
+        }
+    }
+
+    @Override
+    public void onReconnect(long highWaterMarkMillis) {
+        byEmail.invalidateAll();
+        byId.invalidateAll();
+    }
+
+    // Copies by email not found through the id are still refused on their version
+    private void evict(Long id, long version) {
+        minimumVersions.asMap().merge(id, version, Math::max);
+        User previous = byId.getIfPresent(id);
+        if (previous != null) {
+            byEmail.invalidate(previous.getEmail());
+        }
+        byId.invalidate(id);
+    }
+
+    private User store(User loaded) {
+        User snapshot = copy(loaded);
+        if (isCurrent(snapshot)) {
+            byEmail.put(snapshot.getEmail(), snapshot);
+            byId.put(snapshot.getId(), snapshot);
+        }
+        return loaded;
+    }
+
+    private boolean isCurrent(User user) {
+        Long minimumVersion = minimumVersions.getIfPresent(user.getId());
+        return minimumVersion == null || versionOf(user) >= minimumVersion;
+    }
+
+    private static long versionOf(User user) {
+        return user.getVersion() != null ? user.getVersion() : 0;
+    }
+
+    // Without the lazy tokens collection, which cannot be loaded outside the session anyway
+    private static User copy(User user) {
+        return User.builder()
+                .id(user.getId())
+                .version(user.getVersion())
+                .firstname(user.getFirstname())
+                .lastname(user.getLastname())
+                .email(user.getEmail())
+                .password(user.getPassword())
+                .bio(user.getBio())
+                .role(user.getRole())
+                .profilePicture(user.getProfilePicture())
+                .enabled(user.isEnabled())
+                .build();
+    }
+}
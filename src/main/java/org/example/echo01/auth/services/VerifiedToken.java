@@ -0,0 +1,65 @@
+package org.example.echo01.auth.services;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.UUID;
+
+/**
+ * Claims of a token whose signature and expiry have already been checked, extracted once so
+ * the filter and the services can share them instead of re-parsing the compact JWT.
+ *
+ * @param userId   null for tokens issued before the {@code uid} claim existed
+ * @param role     null for tokens issued before the {@code role} claim existed
+ * @param deviceId null unless the client named its device when logging in
+ * @param type     {@code refresh} for refresh tokens, null for access tokens
+ */
+public record VerifiedToken(
+        String token,
+        String subject,
+        String id,
+        Long userId,
+        String role,
+        String deviceId,
+        String type,
+        long issuedAtMillis,
+        long expiresAtMillis
+) {
+
+    /** Request attribute under which the filter exposes the token it verified. */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    static VerifiedToken of(String token, Claims claims) {
+        Number userId = claims.get(JwtService.USER_ID_CLAIM, Number.class);
+        return new VerifiedToken(
+                token,
+                claims.getSubject(),
+                claims.getId(),
+                userId != null ? userId.longValue() : null,
+                claims.get(JwtService.ROLE_CLAIM, String.class),
+                claims.get(JwtService.DEVICE_ID_CLAIM, String.class),
+                claims.get(JwtService.TYPE_CLAIM, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L,
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE
+        );
+    }
+
+    /** The {@code jti} as stored in the tokens table, or null if absent or not a UUID. */
+    public UUID jti() {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public boolean isRefreshToken() {
+        return JwtService.REFRESH_TYPE.equals(type);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
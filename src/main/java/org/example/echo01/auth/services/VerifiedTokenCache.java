@@ -0,0 +1,129 @@
+package org.example.echo01.auth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens whose signature has already been checked so repeat requests with the same
+ * bearer token skip HMAC verification and JSON parsing. Entries are keyed by the signature
+ * segment, which is already a digest of the whole token, and live no longer than the token.
+ * Revocation is still checked on every request; invalidation here only frees the entry early.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+    // jti -> cache key, so revocations (which only know the jti) can invalidate entries
+    private final Map<String, String> keysByTokenId = new ConcurrentHashMap<>();
+
+    public VerifiedTokenCache(
+            JwtService jwtService,
+            MeterRegistry meterRegistry,
+            @Value("${application.security.jwt.verified-cache.enabled:true}") boolean enabled,
+            @Value("${application.security.jwt.verified-cache.maximum-size:100000}") long maximumSize,
+            @Value("${application.security.jwt.verified-cache.max-ttl:300000}") long maxTtlMillis
+    ) {
+        this.jwtService = jwtService;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new RemainingLifetimeExpiry(TimeUnit.MILLISECONDS.toNanos(maxTtlMillis)))
+                .executor(Runnable::run)
+                .removalListener((String key, VerifiedToken token, RemovalCause cause) -> {
+                    if (token != null && token.id() != null) {
+                        keysByTokenId.remove(token.id(), key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    /**
+     * Same contract as {@link JwtService#verify(String)}: throws if the token is invalid,
+     * and never serves a token past its expiry.
+     */
+    public VerifiedToken verify(String jwt) {
+        if (!enabled) {
+            return jwtService.verify(jwt);
+        }
+        String key = signatureOf(jwt);
+        VerifiedToken cached = cached(key, jwt);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = jwtService.verify(jwt);
+        if (verified.id() != null) {
+            keysByTokenId.put(verified.id(), key);
+        }
+        cache.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Whether {@link #verify(String)} completes without blocking: the token is cached, or its
+     * signing key is already known. Reactive callers move verification off the event loop otherwise.
+     */
+    public boolean verifiesWithoutBlocking(String jwt) {
+        return (enabled && cached(signatureOf(jwt), jwt) != null) || jwtService.resolvesKeyWithoutBlocking(jwt);
+    }
+
+    public void invalidate(Collection<String> tokenIds) {
+        for (String tokenId : tokenIds) {
+            String key = keysByTokenId.remove(tokenId);
+            if (key != null) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private VerifiedToken cached(String key, String jwt) {
+        VerifiedToken cached = cache.getIfPresent(key);
+        return cached != null && cached.token().equals(jwt) && !cached.isExpired(System.currentTimeMillis())
+                ? cached
+                : null;
+    }
+
+    private static String signatureOf(String jwt) {
+        return jwt.substring(jwt.lastIndexOf('.') + 1);
+    }
+
+    private static final class RemainingLifetimeExpiry implements Expiry<String, VerifiedToken> {
+
+        private final long maxTtlNanos;
+
+        private RemainingLifetimeExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long remainingMillis = token.expiresAtMillis() - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
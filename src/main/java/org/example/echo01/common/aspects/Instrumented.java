@@ -0,0 +1,17 @@
+package org.example.echo01.common.aspects;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method, or every public method of a class, for timing by {@link MethodTimingInterceptor}.
+ * Only annotated methods and those listed in {@code application.instrumentation.methods} are proxied.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Instrumented {
+}
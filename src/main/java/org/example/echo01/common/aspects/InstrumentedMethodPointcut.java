@@ -0,0 +1,42 @@
+package org.example.echo01.common.aspects;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+/**
+ * Matches public methods annotated with {@link Instrumented} (directly or on their class) and
+ * methods named in configuration as {@code SimpleClassName.method} or {@code SimpleClassName.*}.
+ * Evaluated once per method when proxies are created, never per call.
+ */
+public class InstrumentedMethodPointcut extends StaticMethodMatcherPointcut {
+
+    private static final String BASE_PACKAGE = "org.example.echo01.";
+
+    private final Set<String> configuredMethods;
+
+    public InstrumentedMethodPointcut(Set<String> configuredMethods) {
+        this.configuredMethods = configuredMethods;
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        if (!targetClass.getName().startsWith(BASE_PACKAGE)
+                || !Modifier.isPublic(method.getModifiers())
+                || method.getDeclaringClass() == Object.class) {
+            return false;
+        }
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        if (AnnotatedElementUtils.hasAnnotation(specific, Instrumented.class)
+                || AnnotatedElementUtils.hasAnnotation(targetClass, Instrumented.class)) {
+            return true;
+        }
+        String className = targetClass.getSimpleName();
+        return configuredMethods.contains(className + "." + method.getName())
+                || configuredMethods.contains(className + ".*");
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.echo01.common.aspects;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the duration of a sample of calls into the {@code method.timed} timer, tagged by class
+ * and method. Unsampled calls go straight to the target, so timer counts reflect sampled calls
+ * only; the percentiles are what the sample is for. Timers are resolved once per method.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor {
+
+    static final String METRIC_NAME = "method.timed";
+
+    // Resolved lazily: advisors are created before the registry's own post-processing has run
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final double sampleRate;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodTimingInterceptor(Supplier<MeterRegistry> meterRegistry, double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            timers.computeIfAbsent(invocation.getMethod(), method -> timer(invocation, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable ex) {
+            timer(invocation, ex.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private Timer timer(MethodInvocation invocation, String exception) {
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+        return Timer.builder(METRIC_NAME)
+                .tag("class", targetClass.getSimpleName())
+                .tag("method", invocation.getMethod().getName())
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry.get());
+    }
+}
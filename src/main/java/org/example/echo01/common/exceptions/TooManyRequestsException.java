@@ -0,0 +1,19 @@
+package org.example.echo01.common.exceptions;
+
+/**
+ * Thrown when a caller has exhausted a rate limit enforced inside a service rather than by the
+ * rate limit interceptor. Mapped to 429 with a {@code Retry-After} header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.echo01.common.jdbc;
+
+public enum QueryBudgetAction {
+    /** Log a warning and count the violation. */
+    LOG,
+    /** Also fail the request with a {@link QueryBudgetExceededException}; meant for tests. */
+    FAIL
+}
@@ -0,0 +1,7 @@
+package org.example.echo01.common.jdbc;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
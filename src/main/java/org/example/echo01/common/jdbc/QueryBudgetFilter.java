@@ -0,0 +1,127 @@
+package org.example.echo01.common.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the {@link RequestQueries} of each request into the {@code db.request.statements},
+ * {@code db.request.rows} and {@code db.request.time} meters, tagged by method and endpoint, and
+ * checks them against the budget of the endpoint and for statements repeated within the request.
+ * <p>
+ * The endpoint is the handler pattern, so path variables do not multiply the tags. Requests that
+ * never reach a handler, such as the logout handled by Spring Security, are tagged with their path
+ * when it has a budget of its own and {@code UNKNOWN} otherwise.
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    static final String UNKNOWN = "UNKNOWN";
+
+    private record Meters(DistributionSummary statements, DistributionSummary rows, Timer time) {
+    }
+
+    private final QueryBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public QueryBudgetFilter(QueryBudgetProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueries queries = RequestQueries.begin();
+        String violation;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueries.end();
+            violation = record(request, queries);
+        }
+        // Only reached when the request itself succeeded, so a failure is never masked
+        if (violation != null && properties.getAction() == QueryBudgetAction.FAIL) {
+            throw new QueryBudgetExceededException(violation);
+        }
+    }
+
+    /** Records the meters of the request and returns what it violated, if anything. */
+    private String record(HttpServletRequest request, RequestQueries queries) {
+        String endpoint = endpoint(request);
+        Meters endpointMeters = meters.computeIfAbsent(request.getMethod() + " " + endpoint,
+                key -> meters(request.getMethod(), endpoint));
+        endpointMeters.statements().record(queries.statements());
+        endpointMeters.rows().record(queries.rows());
+        endpointMeters.time().record(queries.nanos(), TimeUnit.NANOSECONDS);
+
+        StringBuilder violation = new StringBuilder();
+        Integer budget = properties.getBudgets().getOrDefault(endpoint, properties.getDefaultBudget());
+        if (budget != null && queries.statements() > budget) {
+            violation.append(queries.statements()).append(" statements over a budget of ").append(budget);
+            exceeded(request.getMethod(), endpoint, "budget");
+        }
+        Map<String, Integer> repeated = queries.repeatedMoreThan(properties.getMaxRepeats());
+        if (!repeated.isEmpty()) {
+            violation.append(violation.isEmpty() ? "" : ", ").append("repeated statements ")
+                    .append(repeated.entrySet().stream()
+                            .map(entry -> entry.getValue() + "x [" + entry.getKey() + "]")
+                            .collect(Collectors.joining(", ")));
+            exceeded(request.getMethod(), endpoint, "repeated");
+        }
+        if (violation.isEmpty()) {
+            return null;
+        }
+        String message = request.getMethod() + " " + endpoint + " ran " + violation;
+        logger.warn("Query budget exceeded: {}", message);
+        return message;
+    }
+
+    private String endpoint(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern) {
+            return pattern;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return properties.getBudgets().containsKey(path) ? path : UNKNOWN;
+    }
+
+    private Meters meters(String method, String endpoint) {
+        return new Meters(
+                DistributionSummary.builder("db.request.statements")
+                        .description("JDBC statements prepared per request")
+                        .tag("method", method)
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                DistributionSummary.builder("db.request.rows")
+                        .description("Rows read or updated per request")
+                        .tag("method", method)
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry),
+                Timer.builder("db.request.time")
+                        .description("Time per request spent executing JDBC statements")
+                        .tag("method", method)
+                        .tag("endpoint", endpoint)
+                        .register(meterRegistry));
+    }
+
+    private void exceeded(String method, String endpoint, String reason) {
+        meterRegistry.counter("db.request.budget.exceeded", "method", method, "endpoint", endpoint, "reason", reason)
+                .increment();
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.echo01.common.jdbc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code application.instrumentation.jdbc.*}. Budgets are keyed by the handler pattern of the
+ * endpoint, e.g. {@code budgets[/api/v1/auth/login]=4}; endpoints without one fall back to
+ * {@code default-budget}, and are not checked when that is unset too.
+ */
+@Data
+@ConfigurationProperties(prefix = "application.instrumentation.jdbc")
+public class QueryBudgetProperties {
+
+    private boolean enabled = true;
+    /** What to do with a request over its budget or repeating a statement. */
+    private QueryBudgetAction action = QueryBudgetAction.LOG;
+    /** Times one statement may be prepared within a request before it counts as an N+1. */
+    private int maxRepeats = 3;
+    private Integer defaultBudget;
+    private Map<String, Integer> budgets = new LinkedHashMap<>();
+}
@@ -0,0 +1,134 @@
+package org.example.echo01.common.jdbc;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Proxies a {@link DataSource} so that the statements run while serving a request are recorded in
+ * its {@link RequestQueries}. A prepared statement counts once however many times it is executed,
+ * so a JDBC batch is one statement, close to one database round trip. Rows are those read from
+ * result sets plus the update counts; time is spent in the {@code execute} calls only.
+ * <p>
+ * Connections taken outside a request (schedulers, the token write-behind) are handed out
+ * unwrapped and cost nothing.
+ */
+public final class QueryCountingDataSource {
+
+    private static final ClassLoader CLASS_LOADER = QueryCountingDataSource.class.getClassLoader();
+
+    private QueryCountingDataSource() {
+    }
+
+    // Closeable too, so the pool is still closed with the context
+    public static DataSource wrap(DataSource target) {
+        Class<?>[] interfaces = target instanceof Closeable
+                ? new Class<?>[]{DataSource.class, Closeable.class}
+                : new Class<?>[]{DataSource.class};
+        return (DataSource) Proxy.newProxyInstance(CLASS_LOADER, interfaces, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection && RequestQueries.current() != null
+                    ? proxy(Connection.class, new ConnectionHandler(connection))
+                    : result;
+        });
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryCountingDataSource.invoke(target, method, args);
+            RequestQueries queries = RequestQueries.current();
+            if (queries == null || !(result instanceof Statement statement)) {
+                return result;
+            }
+            // prepareStatement and prepareCall name their SQL up front; plain statements pass it to execute
+            boolean prepared = !method.getName().equals("createStatement");
+            if (prepared) {
+                queries.statement((String) args[0]);
+            }
+            return proxy(method.getReturnType(), new StatementHandler(statement, prepared));
+        }
+    }
+
+    private record StatementHandler(Statement target, boolean prepared) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            RequestQueries queries = RequestQueries.current();
+            if (queries == null) {
+                return QueryCountingDataSource.invoke(target, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("getResultSet")) {
+                return rows(QueryCountingDataSource.invoke(target, method, args));
+            }
+            if (!name.startsWith("execute")) {
+                return QueryCountingDataSource.invoke(target, method, args);
+            }
+            if (!prepared && args != null && args[0] instanceof String sql) {
+                queries.statement(sql);
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryCountingDataSource.invoke(target, method, args);
+            } finally {
+                queries.executed(System.nanoTime() - start);
+            }
+            if (result instanceof Integer count && count > 0) {
+                queries.rows(count);
+            } else if (result instanceof Long count && count > 0) {
+                queries.rows(count);
+            } else if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    queries.rows(Math.max(count, 0));
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    queries.rows(Math.max(count, 0));
+                }
+            }
+            return rows(result);
+        }
+    }
+
+    private record ResultSetHandler(ResultSet target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryCountingDataSource.invoke(target, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                RequestQueries queries = RequestQueries.current();
+                if (queries != null) {
+                    queries.rows(1);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static Object rows(Object result) {
+        return result instanceof ResultSet resultSet
+                ? proxy(ResultSet.class, new ResultSetHandler(resultSet))
+                : result;
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(CLASS_LOADER, new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
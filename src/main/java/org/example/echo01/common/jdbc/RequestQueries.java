@@ -0,0 +1,71 @@
+package org.example.echo01.common.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The statements, rows and execution time of the request the current thread is serving. Only
+ * touched by that thread; work handed to other threads (password hashing, the token write-behind)
+ * is not attributed to the request.
+ */
+public final class RequestQueries {
+
+    private static final ThreadLocal<RequestQueries> current = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long nanos;
+    // Keyed by the SQL text, so executions with different parameters still count as repeats
+    private final Map<String, Integer> bySql = new HashMap<>();
+
+    static RequestQueries begin() {
+        RequestQueries queries = new RequestQueries();
+        current.set(queries);
+        return queries;
+    }
+
+    static void end() {
+        current.remove();
+    }
+
+    /** The queries of the request being served, or null outside a request. */
+    static RequestQueries current() {
+        return current.get();
+    }
+
+    void statement(String sql) {
+        statements++;
+        bySql.merge(sql, 1, Integer::sum);
+    }
+
+    void rows(long count) {
+        rows += count;
+    }
+
+    void executed(long nanos) {
+        this.nanos += nanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long nanos() {
+        return nanos;
+    }
+
+    /** Statements prepared more than {@code maxRepeats} times, with their count. */
+    public Map<String, Integer> repeatedMoreThan(int maxRepeats) {
+        Map<String, Integer> repeated = new HashMap<>();
+        bySql.forEach((sql, count) -> {
+            if (count > maxRepeats) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+}
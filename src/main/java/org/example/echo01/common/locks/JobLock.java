@@ -0,0 +1,33 @@
+package org.example.echo01.common.locks;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Lease row of a background job that must only run on one instance at a time. Only mapped so
+ * the schema is created with the others; rows are read and written by {@link JobLocks}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Instant lockedUntil;
+
+    @Column(nullable = false, length = 64)
+    private String lockedBy;
+}
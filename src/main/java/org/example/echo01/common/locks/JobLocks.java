@@ -0,0 +1,51 @@
+package org.example.echo01.common.locks;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Time-bound leases in the {@code job_locks} table. A lease is taken with a conditional UPDATE
+ * (or the INSERT of a missing row), so it works on any database and needs no connection to be
+ * held while the job runs. A node that dies mid-run only blocks the job until its lease expires;
+ * leases should therefore be longer than the job can run, plus some allowance for clock skew.
+ */
+@Component
+public class JobLocks {
+
+    private static final String ACQUIRE_SQL =
+            "update job_locks set locked_until = ?, locked_by = ? where name = ? and (locked_until <= ? or locked_by = ?)";
+    private static final String INSERT_SQL = "insert into job_locks (name, locked_until, locked_by) values (?, ?, ?)";
+    private static final String RELEASE_SQL = "update job_locks set locked_until = ? where name = ? and locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public JobLocks(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Takes or extends the lease on {@code name}; false while another node holds it. */
+    public boolean tryAcquire(String name, Duration lease) {
+        Instant now = Instant.now();
+        Timestamp until = Timestamp.from(now.plus(lease));
+        if (jdbcTemplate.update(ACQUIRE_SQL, until, nodeId, name, Timestamp.from(now), nodeId) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_SQL, name, until, nodeId) > 0;
+        } catch (DuplicateKeyException e) {
+            // Held by another node, or it created the row first
+            return false;
+        }
+    }
+
+    public void release(String name) {
+        jdbcTemplate.update(RELEASE_SQL, Timestamp.from(Instant.now()), name, nodeId);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.echo01.common.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that, once the queue is nearly full ({@code discardingThreshold}), drops
+ * events at {@code discardLevel} (DEBUG by default) and below instead of the stock TRACE to INFO.
+ * Events above it never get dropped: when the queue is full they wait for room, so a burst of
+ * debug output costs debug lines and never a warning or an error.
+ */
+public class DiscardingAsyncAppender extends AsyncAppender {
+
+    private Level discardLevel = Level.DEBUG;
+    private final LongAdder discarded = new LongAdder();
+
+    // Only asked once the queue is below the discarding threshold
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        if (event.getLevel().toInt() > discardLevel.toInt()) {
+            return false;
+        }
+        discarded.increment();
+        return true;
+    }
+
+    public void setDiscardLevel(String level) {
+        this.discardLevel = Level.toLevel(level, Level.DEBUG);
+    }
+
+    public String getDiscardLevel() {
+        return discardLevel.toString();
+    }
+
+    /** Events dropped because the queue was nearly full, since the appender was created. */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+}
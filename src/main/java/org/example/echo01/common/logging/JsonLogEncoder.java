@@ -0,0 +1,137 @@
+package org.example.echo01.common.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes each event as one line of JSON: {@code timestamp}, {@code level}, {@code thread},
+ * {@code logger}, {@code message}, the MDC entries (such as {@code requestId}) and
+ * {@code exception}. The text and byte buffers are kept per thread and reused, so an event costs
+ * the returned array and little else; behind {@link DiscardingAsyncAppender} the only encoding
+ * thread is the appender's worker. Buffers grown past {@link #MAX_RETAINED_CHARS} by a large
+ * stack trace are let go after that event.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    static final int MAX_RETAINED_CHARS = 16 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final class Buffer {
+        StringBuilder text = new StringBuilder(512);
+        byte[] bytes = new byte[1536];
+    }
+
+    private final ThreadLocal<Buffer> buffers = ThreadLocal.withInitial(Buffer::new);
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        Buffer buffer = buffers.get();
+        StringBuilder json = buffer.text;
+        json.setLength(0);
+
+        json.append("{\"timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(event.getTimeStamp()), json);
+        json.append("\",\"level\":\"").append(event.getLevel()).append('"');
+        field(json, "thread", event.getThreadName());
+        field(json, "logger", event.getLoggerName());
+        field(json, "message", event.getFormattedMessage());
+        for (Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet()) {
+            field(json, entry.getKey(), entry.getValue());
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(json, "exception", ThrowableProxyUtil.asString(throwable));
+        }
+        json.append("}\n");
+
+        byte[] encoded = utf8(buffer);
+        if (json.capacity() > MAX_RETAINED_CHARS) {
+            buffers.remove();
+        }
+        return encoded;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        json.append(',');
+        string(json, name);
+        json.append(':');
+        if (value == null) {
+            json.append("null");
+        } else {
+            string(json, value);
+        }
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    // Straight into the reused array, skipping the intermediate String of toString().getBytes()
+    private static byte[] utf8(Buffer buffer) {
+        StringBuilder text = buffer.text;
+        int length = text.length();
+        if (buffer.bytes.length < length * 3) {
+            buffer.bytes = new byte[length * 3];
+        }
+        byte[] bytes = buffer.bytes;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xC0 | c >> 6);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[n++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[n++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[n++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[n++] = '?';
+            } else {
+                bytes[n++] = (byte) (0xE0 | c >> 12);
+                bytes[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[n++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return Arrays.copyOf(bytes, n);
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.echo01.common.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Sends completed traces to an OTLP/HTTP collector as JSON ({@code ExportTraceServiceRequest}),
+ * from a single worker every {@code export-interval} or as soon as {@code batch-size} are waiting.
+ * Each request becomes a SERVER span with its stages as INTERNAL children. Request threads only
+ * offer to a bounded queue: when the collector is slow or down, traces past {@code queue-capacity}
+ * are dropped and counted in {@code tracing.export.dropped}, and a failed batch is not retried.
+ */
+public class OtlpTraceExporter implements Consumer<Trace> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtlpTraceExporter.class);
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final TracingProperties.Otlp properties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final BlockingQueue<Trace> queue;
+    private final Counter exported;
+    private final Counter dropped;
+    private final Counter failures;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OtlpTraceExporter(TracingProperties.Otlp properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(properties.getTimeout()).build();
+        this.endpoint = URI.create(properties.getEndpoint());
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.exported = Counter.builder("tracing.export.traces")
+                .description("Requests sent to the OTLP collector")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("tracing.export.dropped")
+                .description("Requests not exported because the export queue was full")
+                .register(meterRegistry);
+        this.failures = Counter.builder("tracing.export.failures")
+                .description("Batches the OTLP collector did not accept")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "otlp-trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(properties.getTimeout().toMillis());
+    }
+
+    @Override
+    public void accept(Trace trace) {
+        if (!queue.offer(trace)) {
+            dropped.increment();
+            return;
+        }
+        if (queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /** Sends everything queued so far, in batches of {@code batch-size}. */
+    public void flush() {
+        List<Trace> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        long intervalNanos = properties.getExportInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            flush();
+        }
+        // Once more for what was queued while stopping
+        flush();
+    }
+
+    private void send(List<Trace> batch) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(properties.getTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload(batch))))
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                failures.increment();
+                logger.warn("OTLP collector at {} refused {} traces with status {}", endpoint, batch.size(),
+                        response.statusCode());
+                return;
+            }
+            exported.increment(batch.size());
+        } catch (IOException e) {
+            failures.increment();
+            logger.warn("Exporting {} traces to {} failed: {}", batch.size(), endpoint, e.getMessage());
+        } catch (InterruptedException e) {
+            failures.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    ObjectNode payload(List<Trace> batch) {
+        ObjectNode payload = objectMapper.createObjectNode();
+        ObjectNode resourceSpans = payload.putArray("resourceSpans").addObject();
+        attribute(resourceSpans.putObject("resource").putArray("attributes"), "service.name", properties.getServiceName());
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", OtlpTraceExporter.class.getPackageName());
+        ArrayNode spans = scopeSpans.putArray("spans");
+        for (Trace trace : batch) {
+            addSpans(spans, trace);
+        }
+        return payload;
+    }
+
+    private void addSpans(ArrayNode spans, Trace trace) {
+        String traceId = trace.traceId();
+        long start = trace.startEpochNanos();
+        String rootId = spanId();
+
+        ObjectNode root = spans.addObject()
+                .put("traceId", traceId)
+                .put("spanId", rootId)
+                .put("name", trace.method() + " " + trace.route())
+                .put("kind", SPAN_KIND_SERVER)
+                .put("startTimeUnixNano", Long.toString(start))
+                .put("endTimeUnixNano", Long.toString(start + trace.durationNanos()));
+        ArrayNode attributes = root.putArray("attributes");
+        attribute(attributes, "http.request.method", trace.method());
+        attribute(attributes, "url.path", trace.path());
+        attribute(attributes, "http.route", trace.route());
+        attributes.addObject().put("key", "http.response.status_code")
+                .putObject("value").put("intValue", Integer.toString(trace.status()));
+        if (trace.requestId() != null) {
+            attribute(attributes, "request.id", trace.requestId());
+        }
+        if (trace.status() >= 500) {
+            root.putObject("status").put("code", STATUS_CODE_ERROR);
+        }
+
+        List<Trace.Span> stages = trace.spans();
+        String[] ids = new String[stages.size()];
+        for (int i = 0; i < stages.size(); i++) {
+            Trace.Span stage = stages.get(i);
+            ids[i] = spanId();
+            spans.addObject()
+                    .put("traceId", traceId)
+                    .put("spanId", ids[i])
+                    .put("parentSpanId", stage.parent() < 0 ? rootId : ids[stage.parent()])
+                    .put("name", stage.name())
+                    .put("kind", SPAN_KIND_INTERNAL)
+                    .put("startTimeUnixNano", Long.toString(start + stage.startNanos()))
+                    .put("endTimeUnixNano", Long.toString(start + stage.startNanos() + stage.durationNanos()));
+        }
+    }
+
+    private static void attribute(ArrayNode attributes, String key, String value) {
+        attributes.addObject().put("key", key).putObject("value").put("stringValue", value);
+    }
+
+    // Never zero, which OTLP reads as "no span id"
+    private static String spanId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return "%016x".formatted(id);
+    }
+}
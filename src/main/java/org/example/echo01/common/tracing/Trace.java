@@ -0,0 +1,155 @@
+package org.example.echo01.common.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The spans of one request, recorded by the thread serving it. Spans live in parallel arrays
+ * sized once per request, so opening one allocates nothing. Once {@link #finish} has run the trace
+ * is handed to {@link TraceBuffer} and never changes again.
+ */
+public final class Trace {
+
+    private static final ThreadLocal<Trace> current = new ThreadLocal<>();
+
+    /** A finished span; {@code parent} is -1 for the stages called directly by the request. */
+    public record Span(String name, int parent, long startNanos, long durationNanos) {
+    }
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final String requestId;
+    private final String method;
+    private final String path;
+    private final long startEpochNanos;
+    private final long startNanos;
+
+    private final String[] names;
+    private final int[] parents;
+    private final long[] starts;
+    private final long[] durations;
+    private int count;
+    private int open = -1;
+    private int dropped;
+
+    private String route;
+    private int status;
+    private long durationNanos;
+
+    Trace(String requestId, String method, String path, int maxSpans) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceIdHigh = random.nextLong();
+        this.traceIdLow = random.nextLong();
+        this.requestId = requestId;
+        this.method = method;
+        this.path = path;
+        this.startEpochNanos = System.currentTimeMillis() * 1_000_000;
+        this.startNanos = System.nanoTime();
+        this.names = new String[maxSpans];
+        this.parents = new int[maxSpans];
+        this.starts = new long[maxSpans];
+        this.durations = new long[maxSpans];
+    }
+
+    /** The trace the current thread is recording, or null when the request is not sampled. */
+    public static Trace current() {
+        return current.get();
+    }
+
+    static Trace begin(String requestId, String method, String path, int maxSpans) {
+        Trace trace = new Trace(requestId, method, path, maxSpans);
+        current.set(trace);
+        return trace;
+    }
+
+    void finish(String route, int status) {
+        current.remove();
+        // Only a span opened without its close can still be open here; it ends with the request
+        while (open >= 0) {
+            close(open);
+        }
+        this.route = route;
+        this.status = status;
+        this.durationNanos = System.nanoTime() - startNanos;
+    }
+
+    /** Starts a span under the innermost open one; returns its index for {@link #close}, or -1 if dropped. */
+    public int open(String name) {
+        if (count == names.length) {
+            dropped++;
+            return -1;
+        }
+        int span = count++;
+        names[span] = name;
+        parents[span] = open;
+        starts[span] = System.nanoTime() - startNanos;
+        durations[span] = -1;
+        open = span;
+        return span;
+    }
+
+    public void close(int span) {
+        if (span < 0) {
+            return;
+        }
+        durations[span] = System.nanoTime() - startNanos - starts[span];
+        open = parents[span];
+    }
+
+    public List<Span> spans() {
+        List<Span> spans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            spans.add(new Span(names[i], parents[i], starts[i], durations[i]));
+        }
+        return spans;
+    }
+
+    /** Time not covered by any stage: the filters, MVC and whatever is not listed in the stages. */
+    public long unattributedNanos() {
+        long attributed = 0;
+        for (int i = 0; i < count; i++) {
+            if (parents[i] < 0) {
+                attributed += durations[i];
+            }
+        }
+        return durationNanos - attributed;
+    }
+
+    public String traceId() {
+        return "%016x%016x".formatted(traceIdHigh, traceIdLow);
+    }
+
+    public String requestId() {
+        return requestId;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    /** Handler pattern, or the path when the request never reached a handler. */
+    public String route() {
+        return route != null ? route : path;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    public int droppedSpans() {
+        return dropped;
+    }
+}
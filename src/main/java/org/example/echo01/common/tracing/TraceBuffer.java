@@ -0,0 +1,38 @@
+package org.example.echo01.common.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most recent completed traces, in a fixed ring that overwrites the oldest. Adding is one
+ * counter increment and one store, so request threads never wait on readers.
+ */
+public class TraceBuffer {
+
+    private final AtomicReferenceArray<Trace> slots;
+    private final AtomicLong next = new AtomicLong();
+
+    public TraceBuffer(int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(Trace trace) {
+        slots.set((int) (next.getAndIncrement() % slots.length()), trace);
+    }
+
+    /** The {@code limit} slowest traces still in the buffer, slowest first. */
+    public List<Trace> slowest(int limit) {
+        List<Trace> traces = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            Trace trace = slots.get(i);
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        traces.sort(Comparator.comparingLong(Trace::durationNanos).reversed());
+        return traces.subList(0, Math.min(limit, traces.size()));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.echo01.common.tracing;
+
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+/**
+ * Matches the public methods of the configured stages, {@code SimpleClassName.method} or
+ * {@code SimpleClassName.*}. Spring Data repositories are JDK proxies outside the application
+ * packages, so a class also goes by the name of its application interface, e.g. {@code UserRepository}.
+ * Evaluated once per method when proxies are created, never per call.
+ */
+public class TracedMethodPointcut extends StaticMethodMatcherPointcut {
+
+    private static final String BASE_PACKAGE = "org.example.echo01.";
+
+    private final Set<String> stages;
+
+    public TracedMethodPointcut(Set<String> stages) {
+        this.stages = stages;
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+            return false;
+        }
+        String className = stageClassName(targetClass);
+        return className != null
+                && (stages.contains(className + "." + method.getName()) || stages.contains(className + ".*"));
+    }
+
+    /** The simple name the stage of {@code targetClass} is configured under, or null if it has none. */
+    static String stageClassName(Class<?> targetClass) {
+        Class<?> userClass = ClassUtils.getUserClass(targetClass);
+        if (userClass.getName().startsWith(BASE_PACKAGE)) {
+            return userClass.getSimpleName();
+        }
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(userClass)) {
+            if (type.getName().startsWith(BASE_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.echo01.common.tracing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/traces}: the 20 slowest requests still in the {@link TraceBuffer}, each broken
+ * down by stage. {@code stages} adds up the calls to each stage, nested ones included, so a stage
+ * called twice shows once with both calls; {@code spans} keeps the individual calls in order.
+ */
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    private static final int LIMIT = 20;
+
+    private final TraceBuffer buffer;
+
+    public TracesEndpoint(TraceBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public record StageTotal(int calls, double totalMs) {
+    }
+
+    public record SpanView(String name, int depth, double startMs, double durationMs) {
+    }
+
+    public record TraceView(
+            String traceId,
+            String requestId,
+            String method,
+            String route,
+            int status,
+            Instant startedAt,
+            double durationMs,
+            double unattributedMs,
+            Map<String, StageTotal> stages,
+            List<SpanView> spans,
+            int droppedSpans
+    ) {
+    }
+
+    @ReadOperation
+    public List<TraceView> slowest() {
+        return buffer.slowest(LIMIT).stream().map(TracesEndpoint::view).toList();
+    }
+
+    private static TraceView view(Trace trace) {
+        List<Trace.Span> spans = trace.spans();
+        int[] depths = new int[spans.size()];
+        Map<String, StageTotal> stages = new LinkedHashMap<>();
+        List<SpanView> spanViews = new ArrayList<>(spans.size());
+        for (int i = 0; i < spans.size(); i++) {
+            Trace.Span span = spans.get(i);
+            // Parents always come before their children
+            depths[i] = span.parent() < 0 ? 0 : depths[span.parent()] + 1;
+            stages.merge(span.name(), new StageTotal(1, millis(span.durationNanos())),
+                    (total, call) -> new StageTotal(total.calls() + 1, total.totalMs() + call.totalMs()));
+            spanViews.add(new SpanView(span.name(), depths[i], millis(span.startNanos()), millis(span.durationNanos())));
+        }
+        return new TraceView(
+                trace.traceId(),
+                trace.requestId(),
+                trace.method(),
+                trace.route(),
+                trace.status(),
+                Instant.ofEpochSecond(0, trace.startEpochNanos()),
+                millis(trace.durationNanos()),
+                millis(trace.unattributedNanos()),
+                stages,
+                spanViews,
+                trace.droppedSpans());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
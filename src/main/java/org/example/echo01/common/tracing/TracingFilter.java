@@ -0,0 +1,53 @@
+package org.example.echo01.common.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.echo01.common.logging.CorrelationIdFilter;
+import org.slf4j.MDC;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Traces a sample of requests: the {@link TracingInterceptor} records the stages called while the
+ * request is served, and the finished trace goes to the {@link TraceBuffer} and to the exporter,
+ * if any. Runs ahead of Spring Security, so the stages called by the authentication filters are
+ * part of the trace. Unsampled requests cost one random number.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final TracingProperties properties;
+    private final TraceBuffer buffer;
+    private final Consumer<Trace> exporter;
+
+    public TracingFilter(TracingProperties properties, TraceBuffer buffer, Consumer<Trace> exporter) {
+        this.properties = properties;
+        this.buffer = buffer;
+        this.exporter = exporter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        double sampleRate = properties.getSampleRate();
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Trace trace = Trace.begin(MDC.get(CorrelationIdFilter.MDC_KEY), request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()), properties.getMaxSpans());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            trace.finish(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String pattern
+                    ? pattern : null, response.getStatus());
+            buffer.add(trace);
+            exporter.accept(trace);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.echo01.common.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a span named {@code SimpleClassName.method} around each call to a stage made while a
+ * request is traced. Outside a traced request (schedulers, unsampled requests) it only checks a
+ * thread local. Names are resolved once per class and method.
+ */
+public class TracingInterceptor implements MethodInterceptor {
+
+    private final Map<Class<?>, Map<Method, String>> names = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Trace trace = Trace.current();
+        if (trace == null) {
+            return invocation.proceed();
+        }
+        int span = trace.open(name(invocation));
+        try {
+            return invocation.proceed();
+        } finally {
+            trace.close(span);
+        }
+    }
+
+    private String name(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() != null
+                ? AopUtils.getTargetClass(invocation.getThis())
+                : invocation.getMethod().getDeclaringClass();
+        return names.computeIfAbsent(targetClass, type -> new ConcurrentHashMap<>())
+                .computeIfAbsent(invocation.getMethod(), method -> {
+                    String className = TracedMethodPointcut.stageClassName(targetClass);
+                    return (className != null ? className : targetClass.getSimpleName()) + "." + method.getName();
+                });
+    }
+}
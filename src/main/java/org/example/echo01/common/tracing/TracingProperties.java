@@ -0,0 +1,40 @@
+package org.example.echo01.common.tracing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * {@code application.tracing.*}. Stages are named like {@code application.instrumentation.methods}:
+ * {@code SimpleClassName.method} or {@code SimpleClassName.*}, where the class may also be a
+ * repository interface.
+ */
+@Data
+@ConfigurationProperties(prefix = "application.tracing")
+public class TracingProperties {
+
+    private boolean enabled = true;
+    private double sampleRate = 1.0;
+    /** Completed requests kept for {@code /actuator/traces}. */
+    private int bufferSize = 512;
+    /** Spans kept per request; deeper call trees are cut off and the rest counted as dropped. */
+    private int maxSpans = 64;
+    private Set<String> stages = new LinkedHashSet<>();
+    private Otlp otlp = new Otlp();
+
+    /** Export of completed requests as OTLP/HTTP JSON, to a collector or anything that speaks it. */
+    @Data
+    public static class Otlp {
+        private boolean enabled = false;
+        private String endpoint = "http://localhost:4318/v1/traces";
+        private String serviceName = "echo01";
+        private Duration exportInterval = Duration.ofSeconds(5);
+        private Duration timeout = Duration.ofSeconds(5);
+        /** Requests waiting for export; more are dropped until the collector catches up. */
+        private int queueCapacity = 2048;
+        private int batchSize = 256;
+    }
+}
@@ -18,7 +18,8 @@ public class CacheConfig {
         return Caffeine.newBuilder()
                 .expireAfterWrite(60, TimeUnit.MINUTES)
                 .initialCapacity(100)
-                .maximumSize(500);
+                .maximumSize(500)
+                .recordStats();
     }
 
     @Bean
@@ -0,0 +1,34 @@
+package org.example.echo01.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.echo01.common.aspects.InstrumentedMethodPointcut;
+import org.example.echo01.common.aspects.MethodTimingInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "application.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class InstrumentationConfig {
+
+    // Infrastructure, as BeanPostProcessors (e.g. QueryBudgetConfig's) instantiate advisors early
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor methodTimingAdvisor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${application.instrumentation.sample-rate:1.0}") double sampleRate,
+            @Value("${application.instrumentation.methods:}") Set<String> methods
+    ) {
+        return new DefaultPointcutAdvisor(
+                new InstrumentedMethodPointcut(methods),
+                new MethodTimingInterceptor(meterRegistry::getObject, sampleRate));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.echo01.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.echo01.common.logging.CorrelationIdFilter;
+import org.example.echo01.common.logging.DiscardingAsyncAppender;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class LoggingConfig {
+
+    // First of all filters, so that everything logged for the request carries its id
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<CorrelationIdFilter> correlationIdFilter() {
+        FilterRegistrationBean<CorrelationIdFilter> registration = new FilterRegistrationBean<>(new CorrelationIdFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /** {@code logging.events.discarded}, per asynchronous appender of the root logger (prod profile). */
+    @Bean
+    public MeterBinder discardedLogEvents() {
+        return registry -> {
+            if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+                return;
+            }
+            context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders().forEachRemaining(appender -> {
+                if (appender instanceof DiscardingAsyncAppender async) {
+                    FunctionCounter.builder("logging.events.discarded", async, DiscardingAsyncAppender::getDiscardedCount)
+                            .description("Log events dropped because the asynchronous appender queue was nearly full")
+                            .tag("appender", async.getName())
+                            .register(registry);
+                }
+            });
+        };
+    }
+}
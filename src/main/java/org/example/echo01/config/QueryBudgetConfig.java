@@ -0,0 +1,45 @@
+package org.example.echo01.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.echo01.common.jdbc.QueryBudgetFilter;
+import org.example.echo01.common.jdbc.QueryBudgetProperties;
+import org.example.echo01.common.jdbc.QueryCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "application.instrumentation.jdbc.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(QueryBudgetProperties.class)
+public class QueryBudgetConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? QueryCountingDataSource.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    // Ahead of Spring Security, so the queries of the authentication filters count too
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+            QueryBudgetProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        FilterRegistrationBean<QueryBudgetFilter> registration =
+                new FilterRegistrationBean<>(new QueryBudgetFilter(properties, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -1,33 +1,343 @@
 package org.example.echo01.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.common.exceptions.TooManyRequestsException;
+import org.example.echo01.config.ratelimit.ClusterRateLimitStore;
+import org.example.echo01.config.ratelimit.JdbcBucketProxyManager;
+import org.example.echo01.config.ratelimit.RateLimit;
+import org.example.echo01.config.ratelimit.RateLimitKey;
+import org.example.echo01.config.ratelimit.RateLimitPolicies;
+import org.example.echo01.config.ratelimit.RateLimitPolicy;
+import org.example.echo01.config.ratelimit.RateLimitProbe;
+import org.example.echo01.config.ratelimit.RateLimitProperties;
+import org.example.echo01.config.ratelimit.RateLimitScope;
+import org.example.echo01.config.ratelimit.RateLimitStore;
+import org.example.echo01.config.ratelimit.RouteMatcher;
+import org.example.echo01.config.ratelimit.StripedRateLimitStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 
-import java.time.Duration;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Builds the rate limit policies and answers which one applies to a request. Policies are
+ * rebuilt when {@code application.rate-limit.policy-file} changes; buckets of policies whose
+ * id and scope are unchanged carry over, so a reload does not hand every client a fresh bucket.
+ */
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitConfig {
-    private final Cache<String, Bucket> cache;
-
-    public RateLimitConfig() {
-        this.cache = Caffeine.newBuilder()
-                .maximumSize(100)
-                .expireAfterAccess(Duration.ofMinutes(10))
-                .build();
-    }
-
-    public Bucket resolveBucket(String key) {
-        return cache.get(key, k -> {
-            Bandwidth limit = Bandwidth.builder()
-                    .capacity(10)
-                    .refillIntervally(10, Duration.ofMinutes(1))
-                    .build();
-            return Bucket.builder()
-                    .addLimit(limit)
-                    .build();
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
+
+    private static final String PREFIX = "application.rate-limit";
+    private static final String ANONYMOUS = "ANONYMOUS";
+
+    private final RateLimitProperties properties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DataSource> dataSource;
+    private final int stripes;
+
+    // Guards reloads; requests only read the volatile snapshots
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile RateLimitPolicies policies;
+    private volatile Map<String, StoreEntry> stores = Map.of();
+    private volatile long idleTimeoutMillis;
+    private long policyFileModified = -1;
+    private JdbcBucketProxyManager proxyManager;
+
+    /**
+     * Store of one policy. {@code local} is the store itself for local policies and the fallback
+     * of cluster ones.
+     */
+    private record StoreEntry(RateLimitScope scope, RateLimit limit, long batchSize, long version,
+                              RateLimitStore store, StripedRateLimitStore local) {
+
+        boolean reusableFor(RateLimitScope scope, RateLimit limit, long batchSize, long version) {
+            // Local buckets take the limit on every call; shared ones have it baked into the stored configuration
+            return this.scope == scope && (scope == RateLimitScope.LOCAL
+                    || (this.limit.equals(limit) && this.batchSize == batchSize && this.version == version));
+        }
+    }
+
+    public RateLimitConfig(
+            RateLimitProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            ObjectProvider<DataSource> dataSource
+    ) {
+        this.properties = properties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.dataSource = dataSource;
+        this.stripes = properties.getStripes() > 0 ? properties.getStripes() : 4 * Runtime.getRuntime().availableProcessors();
+
+        reloadLock.lock();
+        try {
+            apply(load());
+        } finally {
+            reloadLock.unlock();
+        }
+        Gauge.builder("rate.limit.keys", this, RateLimitConfig::trackedKeys)
+                .description("Client keys currently tracked by the local rate limiter")
+                .register(meterRegistry);
+    }
+
+    /** Takes one token from the bucket of the policy matching the caller and path. */
+    public RateLimitProbe tryConsume(PathContainer path, User principal, String remoteAddr) {
+        return policies.resolve(principal, path).tryConsume(principal, remoteAddr);
+    }
+
+    /**
+     * Refuses a login attempt once the email address has used up its failed attempts, whoever sent
+     * them, so spreading a password guessing attack over many addresses does not get around the
+     * limit. Takes nothing from the bucket: only {@link #recordFailedLogin} does, so signing in
+     * successfully, on any number of devices, never locks the account.
+     *
+     * @throws TooManyRequestsException if the address has no attempts left
+     */
+    public void checkLoginAttempt(String email) {
+        if (email == null) {
+            return;
+        }
+        RateLimitPolicy login = policies.login();
+        RateLimitProbe probe = login.store().estimate(loginKey(email), login.limit(), 1);
+        if (!probe.consumed()) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(probe.nanosToWaitForRefill() + 999_999_999));
+            throw new TooManyRequestsException("Too many login attempts, try again later", retryAfter);
+        }
+    }
+
+    /**
+     * Charges a failed login to the email address. Attempts racing past {@link #checkLoginAttempt}
+     * together are all charged, so at most the requests in flight exceed the limit.
+     */
+    public void recordFailedLogin(String email) {
+        if (email == null) {
+            return;
+        }
+        RateLimitPolicy login = policies.login();
+        login.store().tryConsume(loginKey(email), login.limit(), 1);
+    }
+
+    private static String loginKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public RateLimitPolicies policies() {
+        return policies;
+    }
+
+    @Scheduled(fixedDelayString = "${application.rate-limit.reload-interval:10000}")
+    public void reloadPolicies() {
+        if (properties.getPolicyFile() == null) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            if (policyFileModified == lastModified(Path.of(properties.getPolicyFile()))) {
+                return;
+            }
+            apply(load());
+            logger.info("Reloaded rate limit policies from {}", properties.getPolicyFile());
+        } catch (RuntimeException e) {
+            logger.error("Keeping current rate limit policies, {} is invalid: {}", properties.getPolicyFile(), e.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.rate-limit.cleanup-interval:60000}")
+    public void evictIdleKeys() {
+        int removed = 0;
+        for (StoreEntry entry : stores.values()) {
+            removed += entry.local().evictIdle(idleTimeoutMillis);
+        }
+        if (removed > 0) {
+            logger.debug("Removed {} idle rate limit keys", removed);
+        }
+    }
+
+    @PreDestroy
+    public void releaseReservations() {
+        stores.values().forEach(RateLimitConfig::release);
+    }
+
+    private long trackedKeys() {
+        long keys = 0;
+        for (StoreEntry entry : stores.values()) {
+            keys += entry.local().size();
+        }
+        return keys;
+    }
+
+    /** The application properties, overlaid with the policy file if there is one. */
+    private RateLimitProperties load() {
+        String policyFile = properties.getPolicyFile();
+        if (policyFile == null) {
+            return properties;
+        }
+        Path path = Path.of(policyFile);
+        // Recorded up front so a broken file is reported once, not on every check
+        policyFileModified = lastModified(path);
+        if (policyFileModified < 0) {
+            logger.warn("Rate limit policy file {} not found, using application properties", policyFile);
+            return properties;
+        }
+
+        Properties overrides = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            overrides.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read rate limit policy file " + policyFile, e);
+        }
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        sources.add(new MapConfigurationPropertySource(overrides));
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+        return new Binder(sources).bindOrCreate(PREFIX, RateLimitProperties.class);
+    }
+
+    private void apply(RateLimitProperties config) {
+        Map<String, StoreEntry> previous = stores;
+        Map<String, StoreEntry> next = new HashMap<>();
+        long idleTimeout = config.getIdleTimeout().toMillis();
+
+        List<List<RateLimitPolicy>> tiers = new ArrayList<>();
+        for (int i = 0; i < RateLimitPolicies.tiers(); i++) {
+            tiers.add(new ArrayList<>());
+        }
+        List<RateLimitPolicy> all = new ArrayList<>();
+
+        for (RateLimitProperties.Route route : config.getRoutes()) {
+            String id = route.getId() != null ? route.getId()
+                    : route.getPattern() + (route.getRoles().isEmpty() ? "" : route.getRoles().toString());
+            RateLimitPolicy policy = policy(config, next, previous, id,
+                    RouteMatcher.compile(route.getPattern()),
+                    new RateLimit(
+                            Objects.requireNonNullElse(route.getCapacity(), config.getCapacity()),
+                            Objects.requireNonNullElse(route.getRefillTokens(), config.getRefillTokens()),
+                            Objects.requireNonNullElse(route.getRefillPeriod(), config.getRefillPeriod())),
+                    Objects.requireNonNullElse(route.getKey(), config.getKey()),
+                    Objects.requireNonNullElse(route.getScope(), config.getScope()),
+                    Objects.requireNonNullElse(route.getBatchSize(), config.getCluster().getBatchSize()));
+            all.add(policy);
+            if (route.getRoles().isEmpty()) {
+                tiers.forEach(tier -> tier.add(policy));
+            }
+            for (String role : route.getRoles()) {
+                String name = role.trim().toUpperCase(Locale.ROOT);
+                tiers.get(RateLimitPolicies.tierOf(name.equals(ANONYMOUS) ? null : Role.valueOf(name))).add(policy);
+            }
+        }
+
+        RateLimitPolicy defaultPolicy = policy(config, next, previous, "default", null,
+                new RateLimit(config.getCapacity(), config.getRefillTokens(), config.getRefillPeriod()),
+                config.getKey(), config.getScope(), config.getCluster().getBatchSize());
+        all.add(defaultPolicy);
+        tiers.forEach(tier -> tier.add(defaultPolicy));
+
+        RateLimitProperties.Login login = config.getLogin();
+        RateLimitPolicy loginPolicy = policy(config, next, previous, "login", null,
+                new RateLimit(login.getCapacity(), login.getRefillTokens(), login.getRefillPeriod()),
+                null, Objects.requireNonNullElse(login.getScope(), config.getScope()), 1);
+        all.add(loginPolicy);
+
+        for (RateLimitPolicy policy : all) {
+            if (idleTimeout < policy.limit().timeToFull().toMillis()) {
+                throw new IllegalStateException("application.rate-limit.idle-timeout must be at least the time to refill a bucket ("
+                        + policy.limit().timeToFull().toMillis() + "ms for " + policy.id() + ")");
+            }
+        }
+
+        RateLimitPolicy[][] byTier = new RateLimitPolicy[tiers.size()][];
+        for (int i = 0; i < byTier.length; i++) {
+            byTier[i] = tiers.get(i).toArray(new RateLimitPolicy[0]);
+        }
+        this.idleTimeoutMillis = idleTimeout;
+        this.stores = Map.copyOf(next);
+        this.policies = new RateLimitPolicies(byTier, loginPolicy, List.copyOf(all));
+
+        // Hand back tokens reserved under limits that no longer apply
+        previous.forEach((id, entry) -> {
+            if (next.get(id) != entry) {
+                release(entry);
+            }
         });
     }
-} 
\ No newline at end of file
+
+    private RateLimitPolicy policy(
+            RateLimitProperties config,
+            Map<String, StoreEntry> next,
+            Map<String, StoreEntry> previous,
+            String id,
+            RouteMatcher matcher,
+            RateLimit limit,
+            RateLimitKey key,
+            RateLimitScope scope,
+            long batchSize
+    ) {
+        if (next.containsKey(id)) {
+            throw new IllegalStateException("Duplicate rate limit policy id " + id);
+        }
+        StoreEntry entry = previous.get(id);
+        if (entry == null || !entry.reusableFor(scope, limit, batchSize, config.getVersion())) {
+            StripedRateLimitStore local = entry != null ? entry.local() : new StripedRateLimitStore(stripes);
+            RateLimitStore store = scope == RateLimitScope.CLUSTER
+                    ? new ClusterRateLimitStore(proxyManager(), id + "|", config.getVersion(), local, batchSize,
+                            config.getCluster().getSyncInterval(), config.getIdleTimeout(), meterRegistry)
+                    : local;
+            entry = new StoreEntry(scope, limit, batchSize, config.getVersion(), store, local);
+        }
+        next.put(id, entry);
+        return new RateLimitPolicy(id, matcher, limit, key, entry.store());
+    }
+
+    private JdbcBucketProxyManager proxyManager() {
+        if (proxyManager == null) {
+            proxyManager = new JdbcBucketProxyManager(dataSource.getObject(), properties.getCluster().getTable());
+        }
+        return proxyManager;
+    }
+
+    private static void release(StoreEntry entry) {
+        if (entry.store() instanceof ClusterRateLimitStore clusterStore) {
+            clusterStore.releaseAll();
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package org.example.echo01.config;
 
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.config.ratelimit.RateLimitProbe;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.ServletRequestPathUtils;
 
 @Component
 @RequiredArgsConstructor
@@ -17,26 +21,30 @@ public class RateLimitInterceptor implements HandlerInterceptor {
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-        String ipAddress = getClientIP(request);
-        Bucket bucket = rateLimitConfig.resolveBucket(ipAddress);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        RateLimitProbe probe = rateLimitConfig.tryConsume(requestPath(request), principal(), request.getRemoteAddr());
 
-        if (probe.isConsumed()) {
-            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.getRemainingTokens()));
+        if (probe.consumed()) {
+            response.addHeader("X-Rate-Limit-Remaining", String.valueOf(probe.remainingTokens()));
             return true;
         }
 
-        long waitForRefill = probe.getNanosToWaitForRefill() / 1_000_000_000;
+        long waitForRefill = probe.nanosToWaitForRefill() / 1_000_000_000;
         response.addHeader("X-Rate-Limit-Retry-After-Seconds", String.valueOf(waitForRefill));
         response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
         return false;
     }
 
-    private String getClientIP(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+    // Reuse the path Spring MVC already parsed for handler mapping
+    private PathContainer requestPath(HttpServletRequest request) {
+        if (ServletRequestPathUtils.hasParsedRequestPath(request)) {
+            return ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication();
         }
-        return request.getRemoteAddr();
+        return ServletRequestPathUtils.parseAndCache(request).pathWithinApplication();
+    }
+
+    // X-Forwarded-For is resolved by the container, and only when the peer is a trusted proxy
+    private User principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user : null;
     }
 } 
\ No newline at end of file
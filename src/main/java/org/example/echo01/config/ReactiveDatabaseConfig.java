@@ -0,0 +1,81 @@
+package org.example.echo01.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * R2DBC access for the {@code reactive} profile, used by the request path only. The pool is
+ * deliberately not registered as a {@code ConnectionFactory} bean: Spring Boot backs its JDBC
+ * {@code DataSource} off as soon as one exists, and the revocation bus, token reaper, key ring and
+ * password upgrades keep running on JDBC on their own threads. For the same reason the R2DBC
+ * transaction manager is only reachable through a {@link TransactionalOperator}; as a bean it
+ * would replace the JPA transaction manager behind {@code @Transactional}.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveDatabaseConfig {
+
+    /** Owns the pool so it is closed with the context. */
+    static final class ReactiveConnectionPool implements DisposableBean {
+
+        private final ConnectionPool pool;
+
+        ReactiveConnectionPool(ConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void destroy() {
+            pool.dispose();
+        }
+    }
+
+    @Bean
+    ReactiveConnectionPool reactiveConnectionPool(
+            @Value("${spring.r2dbc.url}") String url,
+            @Value("${spring.r2dbc.username:}") String username,
+            @Value("${spring.r2dbc.password:}") String password,
+            @Value("${spring.r2dbc.pool.initial-size:10}") int initialSize,
+            @Value("${spring.r2dbc.pool.max-size:10}") int maxSize,
+            @Value("${spring.r2dbc.pool.max-idle-time:1800000}") long maxIdleTimeMillis
+    ) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (StringUtils.hasText(username)) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (StringUtils.hasText(password)) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name("r2dbc")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+                .build();
+        return new ReactiveConnectionPool(new ConnectionPool(configuration));
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ReactiveConnectionPool reactiveConnectionPool) {
+        return DatabaseClient.create(reactiveConnectionPool.pool);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(ReactiveConnectionPool reactiveConnectionPool) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(reactiveConnectionPool.pool));
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.echo01.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Serves the {@code reactive} profile from Reactor Netty. With Tomcat on the classpath as well,
+ * Spring Boot would otherwise run the reactive stack on Tomcat's servlet adapter.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.echo01.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.echo01.common.tracing.OtlpTraceExporter;
+import org.example.echo01.common.tracing.TraceBuffer;
+import org.example.echo01.common.tracing.TracedMethodPointcut;
+import org.example.echo01.common.tracing.TracesEndpoint;
+import org.example.echo01.common.tracing.TracingFilter;
+import org.example.echo01.common.tracing.TracingInterceptor;
+import org.example.echo01.common.tracing.TracingProperties;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "application.tracing.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    // Resolved while post-processors are still being registered, which is expected of infrastructure
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor tracingAdvisor(@Value("${application.tracing.stages:}") Set<String> stages) {
+        return new DefaultPointcutAdvisor(new TracedMethodPointcut(stages), new TracingInterceptor());
+    }
+
+    @Bean
+    public TraceBuffer traceBuffer(TracingProperties properties) {
+        return new TraceBuffer(properties.getBufferSize());
+    }
+
+    @Bean
+    public TracesEndpoint tracesEndpoint(TraceBuffer traceBuffer) {
+        return new TracesEndpoint(traceBuffer);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.tracing.otlp.enabled", havingValue = "true")
+    public OtlpTraceExporter otlpTraceExporter(
+            TracingProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry
+    ) {
+        return new OtlpTraceExporter(properties.getOtlp(), objectMapper, meterRegistry);
+    }
+
+    // After the request id and query counting filters, ahead of Spring Security
+    @Bean
+    @Profile("!reactive")
+    public FilterRegistrationBean<TracingFilter> tracingFilter(
+            TracingProperties properties,
+            TraceBuffer traceBuffer,
+            ObjectProvider<OtlpTraceExporter> exporter
+    ) {
+        OtlpTraceExporter otlp = exporter.getIfAvailable();
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(
+                new TracingFilter(properties, traceBuffer, otlp != null ? otlp : trace -> { }));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
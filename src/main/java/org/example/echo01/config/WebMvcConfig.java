@@ -2,10 +2,12 @@ package org.example.echo01.config;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
@@ -0,0 +1,250 @@
+package org.example.echo01.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.EstimationProbe;
+import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limits shared by every replica through bucket4j buckets stored in the database. To keep
+ * the database off the request path, a node reserves up to {@code batchSize} tokens from the
+ * shared bucket at once and spends them locally; it only goes back to the database when the
+ * reservation runs out or is older than the sync interval, at which point unspent tokens are
+ * returned first. Reserved tokens are always taken from the shared bucket, so the cluster as a
+ * whole never admits more than the limit; the cost is that a node can briefly hold tokens
+ * another node's client could have used.
+ * <p>
+ * A rejected key is not re-checked against the database until its next refill is due. If the
+ * database is unreachable the request is limited by the local fallback store instead.
+ */
+public class ClusterRateLimitStore implements RateLimitStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimitStore.class);
+
+    private final ProxyManager<String> proxyManager;
+    private final String keyPrefix;
+    private final long configurationVersion;
+    private final RateLimitStore fallback;
+    private final long defaultBatchSize;
+    private final long syncIntervalNanos;
+    private final Cache<String, Reservation> reservations;
+    private final Map<RateLimit, BucketConfiguration> configurations = new ConcurrentHashMap<>();
+    private final Counter syncs;
+    private final Counter fallbacks;
+    // Logs once per outage instead of once per request
+    private final AtomicBoolean degraded = new AtomicBoolean();
+
+    public ClusterRateLimitStore(
+            ProxyManager<String> proxyManager,
+            RateLimitStore fallback,
+            long defaultBatchSize,
+            Duration syncInterval,
+            Duration idleTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this(proxyManager, "", 0, fallback, defaultBatchSize, syncInterval, idleTimeout, meterRegistry);
+    }
+
+    /**
+     * @param keyPrefix            prepended to keys in the shared table, so several stores can share it
+     * @param configurationVersion buckets stored with a lower version are switched to the current limit
+     */
+    public ClusterRateLimitStore(
+            ProxyManager<String> proxyManager,
+            String keyPrefix,
+            long configurationVersion,
+            RateLimitStore fallback,
+            long defaultBatchSize,
+            Duration syncInterval,
+            Duration idleTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.proxyManager = proxyManager;
+        this.keyPrefix = keyPrefix;
+        this.configurationVersion = configurationVersion;
+        this.fallback = fallback;
+        this.defaultBatchSize = defaultBatchSize;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.reservations = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .removalListener((String key, Reservation reservation, RemovalCause cause) -> {
+                    if (reservation != null) {
+                        reservation.release();
+                    }
+                })
+                .build();
+        this.syncs = Counter.builder("rate.limit.cluster.syncs")
+                .description("Round trips to the shared bucket store")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("rate.limit.cluster.fallbacks")
+                .description("Requests limited locally because the shared bucket store failed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public RateLimitProbe tryConsume(String key, RateLimit limit, long tokens) {
+        return tryConsume(key, limit, tokens, defaultBatchSize);
+    }
+
+    public RateLimitProbe tryConsume(String key, RateLimit limit, long tokens, long batchSize) {
+        Reservation reservation = reservation(key, limit);
+        try {
+            return recovered(reservation.tryConsume(tokens, Math.min(Math.max(tokens, batchSize), limit.capacity())));
+        } catch (RuntimeException e) {
+            degraded(e);
+            return fallback.tryConsume(key, limit, tokens);
+        }
+    }
+
+    @Override
+    public RateLimitProbe estimate(String key, RateLimit limit, long tokens) {
+        Reservation reservation = reservation(key, limit);
+        try {
+            return recovered(reservation.estimate(tokens));
+        } catch (RuntimeException e) {
+            degraded(e);
+            return fallback.estimate(key, limit, tokens);
+        }
+    }
+
+    private Reservation reservation(String key, RateLimit limit) {
+        Reservation reservation = reservations.getIfPresent(key);
+        if (reservation == null) {
+            reservation = reservations.get(key, k -> new Reservation(proxyManager.builder()
+                    .withImplicitConfigurationReplacement(configurationVersion, TokensInheritanceStrategy.PROPORTIONALLY)
+                    .build(keyPrefix + k, () -> configurations.computeIfAbsent(limit, ClusterRateLimitStore::configurationFor))));
+        }
+        return reservation;
+    }
+
+    private RateLimitProbe recovered(RateLimitProbe probe) {
+        if (degraded.get() && degraded.compareAndSet(true, false)) {
+            logger.info("Shared rate limit store recovered");
+        }
+        return probe;
+    }
+
+    private void degraded(RuntimeException e) {
+        fallbacks.increment();
+        if (degraded.compareAndSet(false, true)) {
+            logger.warn("Shared rate limit store unavailable, limiting locally until it recovers", e);
+        }
+    }
+
+    /** Hands every outstanding reservation back to the shared buckets. */
+    public void releaseAll() {
+        reservations.invalidateAll();
+        reservations.cleanUp();
+    }
+
+    private static BucketConfiguration configurationFor(RateLimit limit) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(limit.capacity())
+                        .refillIntervally(limit.refillTokens(), limit.refillPeriod())
+                        .build())
+                .build();
+    }
+
+    private final class Reservation {
+
+        // Not synchronized: a JDBC call while holding a monitor would pin a virtual thread
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BucketProxy bucket;
+        private long tokens;
+        private long expiresAt;
+        private long blockedUntil;
+
+        private Reservation(BucketProxy bucket) {
+            this.bucket = bucket;
+            long now = System.nanoTime();
+            this.expiresAt = now;
+            this.blockedUntil = now;
+        }
+
+        private RateLimitProbe tryConsume(long requested, long batchSize) {
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                if (now - expiresAt >= 0) {
+                    returnUnspent();
+                } else if (tokens >= requested) {
+                    tokens -= requested;
+                    return RateLimitProbe.consumed(tokens);
+                }
+                if (now - blockedUntil < 0) {
+                    return new RateLimitProbe(false, tokens, blockedUntil - now);
+                }
+
+                syncs.increment();
+                tokens += bucket.tryConsumeAsMuchAsPossible(batchSize - tokens);
+                expiresAt = now + syncIntervalNanos;
+                if (tokens >= requested) {
+                    tokens -= requested;
+                    return RateLimitProbe.consumed(tokens);
+                }
+
+                EstimationProbe estimate = bucket.estimateAbilityToConsume(requested - tokens);
+                blockedUntil = now + estimate.getNanosToWaitForRefill();
+                return new RateLimitProbe(false, tokens, estimate.getNanosToWaitForRefill());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Tokens this node holds count, still reserved or not yet returned; the shared bucket is only
+        // read when they do not suffice
+        private RateLimitProbe estimate(long requested) {
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                if (tokens >= requested) {
+                    return RateLimitProbe.consumed(tokens - requested);
+                }
+                if (now - blockedUntil < 0) {
+                    return new RateLimitProbe(false, tokens, blockedUntil - now);
+                }
+                EstimationProbe estimate = bucket.estimateAbilityToConsume(requested - tokens);
+                return estimate.canBeConsumed()
+                        ? RateLimitProbe.consumed(estimate.getRemainingTokens() + tokens - requested)
+                        : new RateLimitProbe(false, estimate.getRemainingTokens() + tokens, estimate.getNanosToWaitForRefill());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release() {
+            lock.lock();
+            try {
+                returnUnspent();
+            } catch (RuntimeException e) {
+                logger.debug("Could not return reserved rate limit tokens: {}", e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void returnUnspent() {
+            if (tokens > 0) {
+                syncs.increment();
+                bucket.addTokens(tokens);
+                tokens = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.echo01.config.ratelimit;
+
+import io.github.bucket4j.BucketExceptions;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.AbstractSelectForUpdateBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.LockAndGetResult;
+import io.github.bucket4j.distributed.proxy.generic.select_for_update.SelectForUpdateBasedTransaction;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * bucket4j proxy manager keeping bucket state in a table, locked with {@code SELECT ... FOR UPDATE}.
+ * Same protocol as bucket4j's PostgreSQL manager, but creates missing rows with a plain INSERT
+ * under a savepoint instead of {@code ON CONFLICT DO NOTHING}, so the SQL is portable to the
+ * embedded database used in tests. SQLState 23505 (unique violation) means another node won.
+ */
+public class JdbcBucketProxyManager extends AbstractSelectForUpdateBasedProxyManager<String> {
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DataSource dataSource;
+    private final String selectSql;
+    private final String insertSql;
+    private final String updateSql;
+    private final String deleteSql;
+
+    public JdbcBucketProxyManager(DataSource dataSource, String table) {
+        super(ClientSideConfig.getDefault());
+        this.dataSource = dataSource;
+        this.selectSql = "SELECT state FROM " + table + " WHERE id = ? FOR UPDATE";
+        this.insertSql = "INSERT INTO " + table + " (id, state) VALUES (?, NULL)";
+        this.updateSql = "UPDATE " + table + " SET state = ? WHERE id = ?";
+        this.deleteSql = "DELETE FROM " + table + " WHERE id = ?";
+    }
+
+    @Override
+    protected SelectForUpdateBasedTransaction allocateTransaction(String key) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+
+        return new SelectForUpdateBasedTransaction() {
+            @Override
+            public void begin() {
+                run(() -> connection.setAutoCommit(false));
+            }
+
+            @Override
+            public void rollback() {
+                run(connection::rollback);
+            }
+
+            @Override
+            public void commit() {
+                run(connection::commit);
+            }
+
+            @Override
+            public LockAndGetResult tryLockAndGet() {
+                try (PreparedStatement statement = connection.prepareStatement(selectSql)) {
+                    statement.setString(1, key);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        return rs.next() ? LockAndGetResult.locked(rs.getBytes(1)) : LockAndGetResult.notLocked();
+                    }
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public boolean tryInsertEmptyData() {
+                Savepoint savepoint = null;
+                try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                    savepoint = connection.setSavepoint();
+                    statement.setString(1, key);
+                    statement.executeUpdate();
+                    return true;
+                } catch (SQLException e) {
+                    if (UNIQUE_VIOLATION.equals(e.getSQLState()) && savepoint != null) {
+                        Savepoint toRollback = savepoint;
+                        run(() -> connection.rollback(toRollback));
+                        return false;
+                    }
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void update(byte[] data, RemoteBucketState newState) {
+                try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+                    statement.setBytes(1, data);
+                    statement.setString(2, key);
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    throw new BucketExceptions.BucketExecutionException(e);
+                }
+            }
+
+            @Override
+            public void release() {
+                run(connection::close);
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+            statement.setString(1, key);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    private static void run(SqlAction action) {
+        try {
+            action.run();
+        } catch (SQLException e) {
+            throw new BucketExceptions.BucketExecutionException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.echo01.config.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Token bucket parameters: at most {@code capacity} tokens, with {@code refillTokens} added at
+ * the end of every {@code refillPeriod} (interval refill, as bucket4j's {@code refillIntervally}).
+ */
+public record RateLimit(long capacity, long refillTokens, Duration refillPeriod) {
+
+    public RateLimit {
+        if (capacity <= 0 || capacity > StripedRateLimitStore.MAX_TOKENS) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + StripedRateLimitStore.MAX_TOKENS);
+        }
+        if (refillTokens <= 0 || refillPeriod.toMillis() <= 0) {
+            throw new IllegalArgumentException("refill must add at least one token per positive period");
+        }
+    }
+
+    /** Time for an empty bucket to fill up again. */
+    public Duration timeToFull() {
+        long periods = (capacity + refillTokens - 1) / refillTokens;
+        return refillPeriod.multipliedBy(periods);
+    }
+}
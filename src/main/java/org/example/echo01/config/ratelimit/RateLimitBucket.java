@@ -0,0 +1,28 @@
+package org.example.echo01.config.ratelimit;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Shared bucket state for {@link RateLimitScope#CLUSTER} limits. Only mapped so the schema
+ * is created with the others; rows are read and written by bucket4j's JDBC proxy manager.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "rate_limit_buckets")
+public class RateLimitBucket {
+
+    @Id
+    @Column(length = 512)
+    private String id;
+
+    @Column(length = 1024)
+    private byte[] state;
+}
@@ -0,0 +1,11 @@
+package org.example.echo01.config.ratelimit;
+
+/**
+ * What a policy counts requests by. Anonymous requests are always counted by IP.
+ */
+public enum RateLimitKey {
+    /** The authenticated user, so all of a user's devices share one bucket. */
+    PRINCIPAL,
+    /** The client address as resolved by the servlet container (see {@code server.forward-headers-strategy}). */
+    IP
+}
@@ -0,0 +1,55 @@
+package org.example.echo01.config.ratelimit;
+
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.springframework.http.server.PathContainer;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of the loaded policies, pre-sorted by tier (anonymous, then one per
+ * {@link Role}) so resolving a request only walks the policies that can apply to its caller.
+ * Swapped as a whole when the configuration is reloaded.
+ */
+public final class RateLimitPolicies {
+
+    private static final int ANONYMOUS = 0;
+
+    private final RateLimitPolicy[][] byTier;
+    private final RateLimitPolicy login;
+    private final List<RateLimitPolicy> all;
+
+    public RateLimitPolicies(RateLimitPolicy[][] byTier, RateLimitPolicy login, List<RateLimitPolicy> all) {
+        this.byTier = byTier;
+        this.login = login;
+        this.all = all;
+    }
+
+    public static int tiers() {
+        return Role.values().length + 1;
+    }
+
+    /** Index of the tier requests by a principal with this role (null when anonymous) fall into. */
+    public static int tierOf(Role role) {
+        return role == null ? ANONYMOUS : role.ordinal() + 1;
+    }
+
+    /** First policy matching the caller's tier and the path; the default policy matches everything. */
+    public RateLimitPolicy resolve(User principal, PathContainer path) {
+        for (RateLimitPolicy policy : byTier[tierOf(principal != null ? principal.getRole() : null)]) {
+            if (policy.matches(path)) {
+                return policy;
+            }
+        }
+        throw new IllegalStateException("No rate limit policy for " + path.value());
+    }
+
+    public RateLimitPolicy login() {
+        return login;
+    }
+
+    /** Every policy including the login one, each once. */
+    public List<RateLimitPolicy> all() {
+        return all;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.echo01.config.ratelimit;
+
+import org.example.echo01.auth.entities.User;
+import org.springframework.http.server.PathContainer;
+
+/**
+ * A rate limit bound to the requests it applies to. Every policy has its own store, so client
+ * keys never need to be combined with the policy id on the request path.
+ *
+ * @param matcher null for the catch-all default and the login policy
+ * @param key     null for the login policy, which is keyed by email
+ */
+public record RateLimitPolicy(String id, RouteMatcher matcher, RateLimit limit, RateLimitKey key, RateLimitStore store) {
+
+    public boolean matches(PathContainer path) {
+        return matcher == null || matcher.matches(path);
+    }
+
+    public RateLimitProbe tryConsume(User principal, String remoteAddr) {
+        String clientKey = key == RateLimitKey.PRINCIPAL && principal != null ? principal.getUsername() : remoteAddr;
+        return store.tryConsume(clientKey, limit, 1);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.echo01.config.ratelimit;
+
+/**
+ * Outcome of one consumption attempt; mirrors bucket4j's {@code ConsumptionProbe}.
+ */
+public record RateLimitProbe(boolean consumed, long remainingTokens, long nanosToWaitForRefill) {
+
+    // Accepted probes for common bucket sizes are shared, so admitting a request allocates nothing
+    private static final RateLimitProbe[] CONSUMED = new RateLimitProbe[1024];
+
+    static {
+        for (int i = 0; i < CONSUMED.length; i++) {
+            CONSUMED[i] = new RateLimitProbe(true, i, 0);
+        }
+    }
+
+    public static RateLimitProbe consumed(long remainingTokens) {
+        return remainingTokens < CONSUMED.length ? CONSUMED[(int) remainingTokens] : new RateLimitProbe(true, remainingTokens, 0);
+    }
+}
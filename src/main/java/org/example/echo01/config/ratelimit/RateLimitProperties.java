@@ -0,0 +1,75 @@
+package org.example.echo01.config.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code application.rate-limit.*}. The top-level limit applies to every {@code /api/**} request;
+ * entries in {@code routes} override it for matching paths and callers, first match wins. Route
+ * fields left unset inherit the top-level value.
+ * <p>
+ * Everything except {@code stripes} and the cluster table can also be set in {@code policy-file},
+ * which is re-read when it changes; its values take precedence over the application properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "application.rate-limit")
+public class RateLimitProperties {
+
+    private long capacity = 10;
+    private long refillTokens = 10;
+    private Duration refillPeriod = Duration.ofMinutes(1);
+    private RateLimitScope scope = RateLimitScope.LOCAL;
+    private RateLimitKey key = RateLimitKey.IP;
+
+    private int stripes = 0;
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /** Properties file overriding these settings, reloaded without a restart. */
+    private String policyFile;
+    /**
+     * Bump when changing the limits of cluster-scoped routes: buckets already stored in the database
+     * keep their old configuration until they see a higher version.
+     */
+    private long version = 0;
+
+    private Cluster cluster = new Cluster();
+    private Login login = new Login();
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Cluster {
+        /** Tokens a node takes from the shared bucket at once and then spends locally. */
+        private long batchSize = 5;
+        /** Unspent reserved tokens are handed back to the shared bucket after this long. */
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private String table = "rate_limit_buckets";
+    }
+
+    /** Login attempts per email address, on top of the per-IP limit of the login route. */
+    @Data
+    public static class Login {
+        private long capacity = 5;
+        private long refillTokens = 5;
+        private Duration refillPeriod = Duration.ofMinutes(15);
+        private RateLimitScope scope;
+    }
+
+    @Data
+    public static class Route {
+        /** Defaults to the pattern followed by the roles. */
+        private String id;
+        private String pattern;
+        /** Role names, or ANONYMOUS for unauthenticated requests; empty applies to everyone. */
+        private List<String> roles = new ArrayList<>();
+        private RateLimitKey key;
+        private Long capacity;
+        private Long refillTokens;
+        private Duration refillPeriod;
+        private RateLimitScope scope;
+        private Long batchSize;
+    }
+}
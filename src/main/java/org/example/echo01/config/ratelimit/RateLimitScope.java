@@ -0,0 +1,8 @@
+package org.example.echo01.config.ratelimit;
+
+public enum RateLimitScope {
+    /** Buckets live in this JVM; each replica enforces the limit on its own. */
+    LOCAL,
+    /** Buckets live in the shared database; the limit holds across all replicas. */
+    CLUSTER
+}
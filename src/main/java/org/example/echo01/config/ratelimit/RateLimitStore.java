@@ -0,0 +1,16 @@
+package org.example.echo01.config.ratelimit;
+
+public interface RateLimitStore {
+
+    /**
+     * Takes {@code tokens} from the bucket identified by {@code key}, creating it full with
+     * {@code limit} if it does not exist yet.
+     */
+    RateLimitProbe tryConsume(String key, RateLimit limit, long tokens);
+
+    /**
+     * Whether {@code tokens} could be taken from the bucket right now, without taking them; a
+     * bucket that does not exist yet counts as full.
+     */
+    RateLimitProbe estimate(String key, RateLimit limit, long tokens);
+}
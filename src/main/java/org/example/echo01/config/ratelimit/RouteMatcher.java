@@ -0,0 +1,82 @@
+package org.example.echo01.config.ratelimit;
+
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path pattern compiled once when the policies are loaded and matched against the
+ * {@link PathContainer} Spring MVC has already parsed for the request, without allocating.
+ * Supports the subset of {@code PathPattern} syntax rate limit routes need: literal segments,
+ * {@code *} or {@code {name}} for exactly one segment, and a trailing {@code **} or
+ * {@code {*name}} for any remainder. Empty segments and trailing slashes are ignored.
+ */
+public final class RouteMatcher {
+
+    // null entries match any single segment
+    private final String[] segments;
+    private final boolean matchesRemainder;
+    private final String pattern;
+
+    private RouteMatcher(String pattern, String[] segments, boolean matchesRemainder) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.matchesRemainder = matchesRemainder;
+    }
+
+    public static RouteMatcher compile(String pattern) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Rate limit route pattern must start with '/': " + pattern);
+        }
+        String[] parts = pattern.substring(1).split("/");
+        List<String> segments = new ArrayList<>(parts.length);
+        boolean matchesRemainder = false;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty()) {
+                continue;
+            }
+            if (part.equals("**") || (part.startsWith("{*") && part.endsWith("}"))) {
+                if (i != parts.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported at the end of a rate limit route: " + pattern);
+                }
+                matchesRemainder = true;
+            } else if (part.equals("*") || (part.startsWith("{") && part.endsWith("}"))) {
+                segments.add(null);
+            } else if (part.indexOf('*') >= 0 || part.indexOf('{') >= 0 || part.indexOf('?') >= 0) {
+                throw new IllegalArgumentException("Partial segment wildcards are not supported in rate limit routes: " + pattern);
+            } else {
+                segments.add(part);
+            }
+        }
+        return new RouteMatcher(pattern, segments.toArray(new String[0]), matchesRemainder);
+    }
+
+    public boolean matches(PathContainer path) {
+        List<PathContainer.Element> elements = path.elements();
+        int matched = 0;
+        for (int i = 0, size = elements.size(); i < size; i++) {
+            if (!(elements.get(i) instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            String value = segment.valueToMatch();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (matched == segments.length) {
+                return matchesRemainder;
+            }
+            String expected = segments[matched++];
+            if (expected != null && !expected.equals(value)) {
+                return false;
+            }
+        }
+        return matched == segments.length;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.echo01.config.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for a very large number of keys. Each bucket is a single {@code long} holding
+ * the time of its last refill (high 40 bits, millis since the store was created) and its token
+ * count (low 24 bits), updated with CAS. Keys are spread over power-of-two stripes, each an
+ * open-addressing table guarded by its own lock: lookups and token updates share the read lock,
+ * only inserting a new key or removing idle ones takes the write lock.
+ * <p>
+ * Idle keys are removed by {@link #evictIdle(long)}. A key is idle when its bucket has not been
+ * refilled for the idle timeout; as long as that timeout is at least the longest
+ * {@link RateLimit#timeToFull()}, dropping a bucket is indistinguishable from keeping a full one.
+ */
+public class StripedRateLimitStore implements RateLimitStore {
+
+    static final int TOKEN_BITS = 24;
+    static final long MAX_TOKENS = (1L << TOKEN_BITS) - 1;
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    // Low hash bits pick the stripe, the remaining bits index within it
+    private final int stripeShift;
+    private final LongSupplier clock;
+    private final long epochMillis;
+
+    public StripedRateLimitStore(int stripeCount) {
+        this(stripeCount, System::currentTimeMillis);
+    }
+
+    StripedRateLimitStore(int stripeCount, LongSupplier clock) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new Stripe[count];
+        this.stripeShift = Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(stripeShift);
+        }
+        this.clock = clock;
+        this.epochMillis = clock.getAsLong();
+    }
+
+    @Override
+    public RateLimitProbe tryConsume(String key, RateLimit limit, long tokens) {
+        int hash = spread(key.hashCode());
+        Stripe stripe = stripes[hash & (stripes.length - 1)];
+        int tableHash = hash >>> stripeShift;
+        long now = Math.max(0, clock.getAsLong() - epochMillis);
+
+        long stamp = stripe.lock.readLock();
+        try {
+            int slot = stripe.find(key, tableHash);
+            if (slot >= 0) {
+                return consume(stripe.states, slot, limit, tokens, now, false);
+            }
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+
+        stamp = stripe.lock.writeLock();
+        try {
+            int slot = stripe.find(key, tableHash);
+            if (slot < 0) {
+                slot = stripe.insert(key, tableHash, pack(now, limit.capacity()));
+            }
+            return consume(stripe.states, slot, limit, tokens, now, false);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public RateLimitProbe estimate(String key, RateLimit limit, long tokens) {
+        int hash = spread(key.hashCode());
+        Stripe stripe = stripes[hash & (stripes.length - 1)];
+        long now = Math.max(0, clock.getAsLong() - epochMillis);
+
+        long stamp = stripe.lock.readLock();
+        try {
+            int slot = stripe.find(key, hash >>> stripeShift);
+            if (slot < 0) {
+                return tokens <= limit.capacity()
+                        ? RateLimitProbe.consumed(limit.capacity() - tokens)
+                        : new RateLimitProbe(false, limit.capacity(), Long.MAX_VALUE);
+            }
+            return consume(stripe.states, slot, limit, tokens, now, true);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes keys whose bucket was last refilled more than {@code idleTimeoutMillis} ago.
+     *
+     * @return number of keys removed
+     */
+    public int evictIdle(long idleTimeoutMillis) {
+        long cutoff = clock.getAsLong() - epochMillis - idleTimeoutMillis;
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                removed += stripe.retainRefilledAfter(cutoff);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        return removed;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    // With dryRun the bucket is left as it is
+    private static RateLimitProbe consume(AtomicLongArray states, int slot, RateLimit limit, long requested, long now,
+                                          boolean dryRun) {
+        long capacity = limit.capacity();
+        long period = limit.refillPeriod().toMillis();
+        while (true) {
+            long state = states.get(slot);
+            long refilledAt = state >>> TOKEN_BITS;
+            long available = Math.min(state & MAX_TOKENS, capacity);
+
+            long elapsedPeriods = now > refilledAt ? (now - refilledAt) / period : 0;
+            if (elapsedPeriods > 0) {
+                // Capped so the multiplication cannot overflow after a long idle time
+                long periodsToFull = (capacity - available + limit.refillTokens() - 1) / limit.refillTokens();
+                available = Math.min(capacity, available + Math.min(elapsedPeriods, periodsToFull) * limit.refillTokens());
+                refilledAt += elapsedPeriods * period;
+            }
+
+            if (available < requested) {
+                long missingPeriods = (requested - available + limit.refillTokens() - 1) / limit.refillTokens();
+                long waitMillis = refilledAt + missingPeriods * period - now;
+                return new RateLimitProbe(false, available, TimeUnit.MILLISECONDS.toNanos(Math.max(0, waitMillis)));
+            }
+            if (dryRun) {
+                return RateLimitProbe.consumed(available - requested);
+            }
+            if (states.compareAndSet(slot, state, pack(refilledAt, available - requested))) {
+                return RateLimitProbe.consumed(available - requested);
+            }
+        }
+    }
+
+    private static long pack(long refilledAt, long tokens) {
+        return (refilledAt << TOKEN_BITS) | tokens;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    /**
+     * Linear-probing table. Keys are never removed in place; eviction rebuilds the table,
+     * so probing never has to skip tombstones.
+     */
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private final int shift;
+        private String[] keys = new String[INITIAL_STRIPE_CAPACITY];
+        private AtomicLongArray states = new AtomicLongArray(INITIAL_STRIPE_CAPACITY);
+        private int size;
+
+        private Stripe(int shift) {
+            this.shift = shift;
+        }
+
+        private int find(String key, int hash) {
+            String[] table = keys;
+            int mask = table.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                String candidate = table[i];
+                if (candidate == null) {
+                    return -1;
+                }
+                if (candidate.equals(key)) {
+                    return i;
+                }
+            }
+        }
+
+        private int insert(String key, int hash, long state) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2, Long.MIN_VALUE);
+            }
+            int slot = place(keys, key, hash);
+            keys[slot] = key;
+            states.set(slot, state);
+            size++;
+            return slot;
+        }
+
+        private int retainRefilledAfter(long cutoff) {
+            int before = size;
+            int capacity = INITIAL_STRIPE_CAPACITY;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            rehash(capacity, cutoff);
+            return before - size;
+        }
+
+        // Only called under the write lock, so no CAS can race with the copy
+        private void rehash(int capacity, long cutoff) {
+            String[] oldKeys = keys;
+            AtomicLongArray oldStates = states;
+            String[] newKeys = new String[capacity];
+            AtomicLongArray newStates = new AtomicLongArray(capacity);
+            int newSize = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                String key = oldKeys[i];
+                long state = oldStates.get(i);
+                if (key != null && (state >>> TOKEN_BITS) > cutoff) {
+                    int slot = place(newKeys, key, spread(key.hashCode()) >>> shift);
+                    newKeys[slot] = key;
+                    newStates.set(slot, state);
+                    newSize++;
+                }
+            }
+            keys = newKeys;
+            states = newStates;
+            size = newSize;
+        }
+
+        private static int place(String[] table, String key, int hash) {
+            int mask = table.length - 1;
+            int i = hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+-- Moves an existing tokens table (PostgreSQL) from storing the compact JWT to storing its jti claim
+-- and expiry. Run once, with the application stopped or with ddl-auto=validate, before deploying
+-- the version that reads tokens by jti. Run it outside a transaction (plain psql -f), since the
+-- index is built CONCURRENTLY to keep the table writable.
+--
+-- The claims are read from the JWT payload without verifying the signature; the rows were written
+-- by the application itself. Rows whose token has no jti claim cannot be looked up any more and are
+-- deleted: their sessions end and the clients have to log in again.
+
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS jti UUID;
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP(6) WITH TIME ZONE;
+
+WITH claims AS (
+    SELECT id,
+           convert_from(decode(
+                   translate(split_part(token, '.', 2), '-_', '+/')
+                   || repeat('=', (4 - length(split_part(token, '.', 2)) % 4) % 4),
+                   'base64'), 'UTF8')::json AS payload
+    FROM tokens
+    WHERE jti IS NULL AND token IS NOT NULL
+)
+UPDATE tokens t
+SET jti        = CASE WHEN c.payload ->> 'jti' ~* '^[0-9a-f]{8}-([0-9a-f]{4}-){3}[0-9a-f]{12}$'
+                      THEN (c.payload ->> 'jti')::uuid END,
+    expires_at = to_timestamp((c.payload ->> 'exp')::bigint)
+FROM claims c
+WHERE t.id = c.id;
+
+DELETE FROM tokens WHERE jti IS NULL OR expires_at IS NULL;
+
+ALTER TABLE tokens ALTER COLUMN jti SET NOT NULL;
+ALTER TABLE tokens ALTER COLUMN expires_at SET NOT NULL;
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_tokens_jti ON tokens (jti);
+
+-- The old unique constraint and its index go with the column
+ALTER TABLE tokens DROP COLUMN token;
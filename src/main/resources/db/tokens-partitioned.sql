@@ -0,0 +1,45 @@
+-- Daily range partitioning of the tokens table (PostgreSQL 12+), for
+-- application.security.jwt.reaper.partitioned=true. The reaper creates the partitions for the coming
+-- days (at startup and on every run) and drops the ones past the retention cutoff; rows outside every
+-- partition land in tokens_default and are deleted in batches like on an unpartitioned table. Once
+-- tokens_default holds rows of a day, Postgres refuses that day's partition, so the first days are
+-- created here, before any login.
+--
+-- Every unique constraint of a partitioned table must include the partition key, so the jti and
+-- the primary key are unique per (value, created_at). Run with spring.jpa.hibernate.ddl-auto=validate
+-- (or none), otherwise Hibernate recreates tokens as a plain table on startup.
+
+CREATE SEQUENCE IF NOT EXISTS tokens_seq INCREMENT BY 50;
+
+CREATE TABLE tokens (
+    id          BIGINT       NOT NULL,
+    jti         UUID         NOT NULL,
+    expires_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    token_type  VARCHAR(255),
+    revoked     BOOLEAN      NOT NULL,
+    expired     BOOLEAN      NOT NULL,
+    device_id   VARCHAR(128),
+    family_id   UUID,
+    generation  INTEGER      NOT NULL,
+    user_id     BIGINT REFERENCES users (id),
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    created_by  VARCHAR(255),
+    modified_by VARCHAR(255),
+    PRIMARY KEY (id, created_at),
+    UNIQUE (jti, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_tokens_user_valid ON tokens (user_id, revoked, expired);
+CREATE INDEX idx_tokens_expires_at ON tokens (expires_at);
+CREATE INDEX idx_tokens_family ON tokens (family_id);
+
+CREATE TABLE tokens_default PARTITION OF tokens DEFAULT;
+
+DO $$
+BEGIN
+    FOR i IN 0..7 LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF tokens FOR VALUES FROM (%L) TO (%L)',
+                       'tokens_p' || to_char(current_date + i, 'YYYYMMDD'), current_date + i, current_date + i + 1);
+    END LOOP;
+END $$;
@@ -0,0 +1,9 @@
+-- Adds refresh-token families to an existing tokens table (PostgreSQL), for deployments that do not
+-- let Hibernate manage the schema. Existing rows are access tokens outside any family.
+
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS family_id UUID;
+ALTER TABLE tokens ADD COLUMN IF NOT EXISTS generation INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tokens_family ON tokens (family_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tokens_expires_at ON tokens (expires_at);
+DROP INDEX CONCURRENTLY IF EXISTS idx_tokens_created_at;
@@ -0,0 +1,4 @@
+-- Adds the optimistic-lock version of users (PostgreSQL), for deployments that do not let Hibernate
+-- manage the schema. Every update bumps it, which is what keeps cached users from going stale.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,140 @@
+package org.example.echo01.auth.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.AuthenticationMode;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.revocation.InMemoryRevocationBus;
+import org.example.echo01.auth.revocation.RevocationIndex;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.example.echo01.auth.services.TokenWriteBehind;
+import org.example.echo01.auth.services.VerifiedToken;
+import org.example.echo01.auth.services.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of {@link JwtAuthenticationFilter} per authentication mode. Repository calls are
+ * stubbed with a simulated database round-trip so the stateful numbers reflect the two queries
+ * it issues per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Param({"STATEFUL", "STATELESS"})
+    public AuthenticationMode mode;
+
+    @Param({"0", "250"})
+    public long dbRoundTripMicros;
+
+    @Param({"true", "false"})
+    public boolean verifiedCache;
+
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        User user = User.builder()
+                .id(1L)
+                .firstname("Bench")
+                .lastname("User")
+                .email("bench@example.com")
+                .password("encoded")
+                .role(Role.USER)
+                .build();
+
+        JwtService jwtService = new JwtService(SECRET_KEY, 3_600_000L, 7_200_000L);
+        String jwt = jwtService.generateToken(user);
+        authorizationHeader = "Bearer " + jwt;
+
+        VerifiedToken verified = jwtService.verify(jwt);
+        Token storedToken = Token.builder()
+                .jti(verified.jti())
+                .expiresAt(Instant.ofEpochMilli(verified.expiresAtMillis()))
+                .user(user)
+                .build();
+        UserDetailsService userDetailsService = username -> {
+            simulateRoundTrip();
+            return user;
+        };
+        TokenRepository tokenRepository = (TokenRepository) Proxy.newProxyInstance(
+                TokenRepository.class.getClassLoader(),
+                new Class<?>[]{TokenRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findByJti")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    simulateRoundTrip();
+                    return Optional.of(storedToken);
+                });
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(
+                jwtService, meterRegistry, verifiedCache, 100_000, 300_000);
+        // Disabled, so it never writes and needs no transaction manager
+        TokenWriteBehind tokenWriteBehind = new TokenWriteBehind(
+                tokenRepository, null, meterRegistry, false, 50, 50, 10_000);
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(
+                jwtService,
+                tokenRepository,
+                new RevocationIndex(100_000, 0.01),
+                new InMemoryRevocationBus(meterRegistry),
+                verifiedTokenCache,
+                tokenWriteBehind);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRepository,
+                tokenRevocationService, verifiedTokenCache, tokenWriteBehind);
+        ReflectionTestUtils.setField(filter, "authenticationMode", mode);
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp(JwtAuthenticationFilterBenchmark benchmark) {
+            request = new MockHttpServletRequest("GET", "/api/v1/articles");
+            request.addHeader("Authorization", benchmark.authorizationHeader);
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object authenticate(RequestState state) throws Exception {
+        SecurityContextHolder.clearContext();
+        state.request.removeAttribute(VerifiedToken.REQUEST_ATTRIBUTE);
+        filter.doFilter(state.request, state.response, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private void simulateRoundTrip() {
+        if (dbRoundTripMicros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbRoundTripMicros));
+        }
+    }
+}
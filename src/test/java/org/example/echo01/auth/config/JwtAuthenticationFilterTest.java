@@ -0,0 +1,134 @@
+package org.example.echo01.auth.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.AuthenticationMode;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.revocation.InMemoryRevocationBus;
+import org.example.echo01.auth.revocation.RevocationEvent;
+import org.example.echo01.auth.revocation.RevocationIndex;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.TokenRevocationService;
+import org.example.echo01.auth.services.TokenWriteBehind;
+import org.example.echo01.auth.services.VerifiedTokenCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final long ACCESS_LIFETIME = 60_000;
+    private static final long REFRESH_LIFETIME = 600_000;
+
+    private final JwtService jwtService = new JwtService(SECRET_KEY, ACCESS_LIFETIME, REFRESH_LIFETIME);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final User user = User.builder().id(1L).email("test@example.com").role(Role.USER).build();
+    private TokenRevocationService tokenRevocationService;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(jwtService, meterRegistry, true, 1_000, 300_000);
+        // Disabled, so it never writes and needs no transaction manager
+        TokenWriteBehind tokenWriteBehind = new TokenWriteBehind(
+                tokenRepository, null, meterRegistry, false, 50, 50, 10_000);
+        tokenRevocationService = new TokenRevocationService(
+                jwtService,
+                tokenRepository,
+                new RevocationIndex(1_000, 0.01),
+                new InMemoryRevocationBus(meterRegistry),
+                verifiedTokenCache,
+                tokenWriteBehind);
+        ReflectionTestUtils.setField(tokenRevocationService, "jwtExpiration", ACCESS_LIFETIME);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenRepository,
+                tokenRevocationService, verifiedTokenCache, tokenWriteBehind);
+        ReflectionTestUtils.setField(filter, "authenticationMode", AuthenticationMode.STATELESS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void whenStatelessAccessTokenPresented_thenAuthenticatedFromClaimsWithoutQueries() throws Exception {
+        Authentication authentication = authenticate(jwtService.generateToken(user));
+
+        assertNotNull(authentication);
+        User principal = (User) authentication.getPrincipal();
+        assertEquals(1L, principal.getId());
+        assertEquals("test@example.com", principal.getEmail());
+        assertEquals(Role.USER, principal.getRole());
+        verifyNoInteractions(userDetailsService, tokenRepository);
+    }
+
+    @Test
+    void whenTokenJtiIsRevoked_thenNotAuthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        var verified = jwtService.verify(token);
+        tokenRevocationService.onRevocations(List.of(
+                new RevocationEvent(verified.id(), verified.expiresAtMillis(), System.currentTimeMillis())));
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void whenTokenIssuedBeforeGlobalCutoff_thenNotAuthenticated() throws Exception {
+        String token = jwtService.generateToken(user);
+        long now = System.currentTimeMillis();
+        tokenRevocationService.onRevocations(List.of(
+                new RevocationEvent(RevocationEvent.ALL_TOKENS, now + ACCESS_LIFETIME, now)));
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void whenTokenHasNoUserIdOrRoleClaims_thenNotAuthenticated() throws Exception {
+        User legacy = User.builder().email("test@example.com").build();
+
+        assertNull(authenticate(jwtService.generateToken(legacy)));
+    }
+
+    @Test
+    void whenRefreshTokenPresentedAsBearer_thenNotAuthenticated() throws Exception {
+        assertNull(authenticate(jwtService.generateRefreshToken(user)));
+    }
+
+    @Test
+    void whenRefreshTokenWithoutTypeClaimPresentedAsBearer_thenNotAuthenticated() throws Exception {
+        // Refresh tokens signed before the typ claim existed
+        String token = jwtService.buildToken(new HashMap<>(), user, REFRESH_LIFETIME);
+
+        assertNull(authenticate(token));
+    }
+
+    private Authentication authenticate(String jwt) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/articles");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Authentication[] seen = new Authentication[1];
+
+        filter.doFilter(request, response,
+                (req, res) -> seen[0] = SecurityContextHolder.getContext().getAuthentication());
+
+        assertEquals(200, response.getStatus());
+        return seen[0];
+    }
+}
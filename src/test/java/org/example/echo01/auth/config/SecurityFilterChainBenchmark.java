@@ -0,0 +1,95 @@
+package org.example.echo01.auth.config;
+
+import org.example.echo01.Echo01Application;
+import org.example.echo01.auth.dto.request.RegisterRequest;
+import org.example.echo01.auth.services.AuthenticationService;
+import org.example.echo01.load.PingRoute;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * One authenticated request through the whole servlet stack: the Spring Security filter chain
+ * with {@link JwtAuthenticationFilter}, the rate limit interceptor and {@link PingRoute}, against
+ * the full application context on an in-memory database (MockMvc, no sockets). Complements
+ * {@link JwtAuthenticationFilterBenchmark}, which measures the filter alone with stubbed queries.
+ * Rate limits are raised so that every request is accepted, but each still consumes a token.
+ * The stack takes some 30k requests to reach steady state, hence the longer warm-up.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SecurityFilterChainBenchmark {
+
+    @Param({"stateful", "stateless"})
+    public String authenticationMode;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String authorizationHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Command-line arguments, so they take precedence over application.properties
+        context = new SpringApplicationBuilder(Echo01Application.class, PingRoute.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:filter-chain-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.mode=never",
+                "--logging.level.root=WARN",
+                "--logging.level.org.example.echo01=WARN",
+                "--logging.file.name=",
+                "--application.instrumentation.enabled=false",
+                "--application.instrumentation.jdbc.enabled=false",
+                "--application.security.password-hashing.calibrate=false",
+                "--application.security.password-hashing.bcrypt-strength=4",
+                "--application.security.jwt.authentication-mode=" + authenticationMode,
+                // A list is bound from one source only, so this replaces the shipped routes
+                "--application.rate-limit.routes[0].pattern=/api/**",
+                "--application.rate-limit.routes[0].key=principal",
+                "--application.rate-limit.routes[0].capacity=10000000",
+                "--application.rate-limit.routes[0].refill-tokens=10000000",
+                "--application.rate-limit.routes[0].refill-period=1s");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+        var registered = context.getBean(AuthenticationService.class).register(RegisterRequest.builder()
+                .firstname("Bench")
+                .lastname("User")
+                .email("filter-chain@example.com")
+                .password("password123")
+                .build());
+        authorizationHeader = "Bearer " + registered.getAccessToken();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        return mockMvc.perform(get(PingRoute.PATH).header(HttpHeaders.AUTHORIZATION, authorizationHeader))
+                .andReturn()
+                .getResponse()
+                .getStatus();
+    }
+}
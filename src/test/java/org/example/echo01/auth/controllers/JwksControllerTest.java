@@ -0,0 +1,33 @@
+package org.example.echo01.auth.controllers;
+
+import org.example.echo01.auth.keys.SigningKeys;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwksControllerTest {
+
+    private final SigningKeys signingKeys = mock(SigningKeys.class);
+
+    @Test
+    void whenKeysActivateAfterADelay_thenTheJwksIsCachedNoLongerThanInstancesLeaveOfIt() {
+        when(signingKeys.publicJwks()).thenReturn(List.of(Map.of("kid", "key-1")));
+
+        var response = new JwksController(signingKeys, 120_000, 60_000).jwks();
+
+        assertEquals("max-age=60, public", response.getHeaders().getCacheControl());
+        assertEquals(List.of(Map.of("kid", "key-1")), response.getBody().get("keys"));
+    }
+
+    @Test
+    void whenTheDelayLeavesNoTimeToCache_thenTheJwksIsRevalidated() {
+        var response = new JwksController(signingKeys, 60_000, 60_000).jwks();
+
+        assertEquals("no-cache", response.getHeaders().getCacheControl());
+    }
+}
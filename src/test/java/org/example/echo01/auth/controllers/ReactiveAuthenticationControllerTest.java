@@ -0,0 +1,126 @@
+package org.example.echo01.auth.controllers;
+
+import org.example.echo01.auth.dto.response.AuthenticationResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:reactive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.database=h2",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.r2dbc.url=r2dbc:h2:mem:///reactive?options=MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+    "spring.r2dbc.username=sa",
+    "spring.r2dbc.password=",
+    "spring.sql.init.mode=never",
+    "spring.liquibase.enabled=false",
+    "application.security.password-hashing.calibrate=false",
+    "application.security.password-hashing.bcrypt-strength=4"
+})
+class ReactiveAuthenticationControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void whenRegistered_thenTheAccessTokenAuthenticatesRequests() {
+        AuthenticationResponse registered = register(uniqueEmail());
+
+        get("/actuator/metrics", registered.getAccessToken()).expectStatus().isOk();
+        webTestClient.get().uri("/actuator/metrics").exchange().expectStatus().isForbidden();
+        get("/actuator/metrics", registered.getRefreshToken()).expectStatus().isForbidden();
+    }
+
+    @Test
+    void whenLoggingIn_thenEarlierSessionsAreRevoked() {
+        String email = uniqueEmail();
+        AuthenticationResponse registered = register(email);
+
+        webTestClient.post().uri("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(credentials(email, "wrong-password"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+        AuthenticationResponse loggedIn = webTestClient.post().uri("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(credentials(email, "password123"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthenticationResponse.class)
+                .returnResult().getResponseBody();
+
+        assertNotNull(loggedIn);
+        get("/actuator/metrics", registered.getAccessToken()).expectStatus().isForbidden();
+        get("/actuator/metrics", loggedIn.getAccessToken()).expectStatus().isOk();
+    }
+
+    @Test
+    void whenRefreshedAndLoggedOut_thenTheSharedRotationAndRevocationApply() {
+        AuthenticationResponse registered = register(uniqueEmail());
+
+        AuthenticationResponse refreshed = refresh(registered.getRefreshToken())
+                .expectStatus().isOk()
+                .expectBody(AuthenticationResponse.class)
+                .returnResult().getResponseBody();
+        assertNotNull(refreshed);
+        refresh(registered.getRefreshToken()).expectStatus().isBadRequest();
+        get("/actuator/metrics", registered.getAccessToken()).expectStatus().isForbidden();
+
+        webTestClient.post().uri("/api/v1/auth/logout")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshed.getAccessToken())
+                .exchange()
+                .expectStatus().isOk();
+        get("/actuator/metrics", refreshed.getAccessToken()).expectStatus().isForbidden();
+    }
+
+    private AuthenticationResponse register(String email) {
+        AuthenticationResponse response = webTestClient.post().uri("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"firstname":"Reactive","lastname":"Test","email":"%s","password":"password123"}
+                        """.formatted(email))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthenticationResponse.class)
+                .returnResult().getResponseBody();
+        assertNotNull(response);
+        assertTrue(response.isSuccess());
+        return response;
+    }
+
+    private WebTestClient.ResponseSpec refresh(String refreshToken) {
+        return webTestClient.post().uri("/api/v1/auth/refresh-token")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + refreshToken)
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec get(String uri, String accessToken) {
+        return webTestClient.get().uri(uri)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                .exchange();
+    }
+
+    private static String credentials(String email, String password) {
+        return """
+                {"email":"%s","password":"%s"}
+                """.formatted(email, password);
+    }
+
+    private static String uniqueEmail() {
+        return "reactive-" + UUID.randomUUID() + "@example.com";
+    }
+}
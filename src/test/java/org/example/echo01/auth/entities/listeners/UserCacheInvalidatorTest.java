@@ -0,0 +1,85 @@
+package org.example.echo01.auth.entities.listeners;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.auth.revocation.InMemoryRevocationBus;
+import org.example.echo01.auth.services.UserCache;
+import org.example.echo01.config.AuditConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"
+})
+@Import({AuditConfig.class, UserCacheInvalidatorTest.CacheConfig.class})
+class UserCacheInvalidatorTest {
+
+    @TestConfiguration
+    static class CacheConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        UserCache userCache(UserRepository userRepository, MeterRegistry meterRegistry) {
+            return new UserCache(userRepository, new InMemoryRevocationBus(meterRegistry), meterRegistry, true, 1_000, 60_000);
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void whenAUserIsDisabledThroughJpa_thenTheCachedCopyIsEvicted() {
+        Long id = userRepository.saveAndFlush(user()).getId();
+        assertTrue(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+
+        User managed = userRepository.findById(id).orElseThrow();
+        managed.setEnabled(false);
+        userRepository.saveAndFlush(managed);
+
+        User cached = userCache.findByEmail("alice@example.com").orElseThrow();
+        assertFalse(cached.isEnabled());
+        assertEquals(1L, cached.getVersion());
+    }
+
+    // Entries are only written to the second-level cache once the transaction completes
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void whenSecondLevelCacheIsEnabled_thenUsersAreReadFromIt() {
+        Long id = userRepository.save(user()).getId();
+        entityManagerFactory.getCache().evictAll();
+
+        userRepository.findById(id);
+
+        assertTrue(entityManagerFactory.getCache().contains(User.class, id));
+        userRepository.deleteById(id);
+    }
+
+    private static User user() {
+        return User.builder().email("alice@example.com").password("hash").role(Role.USER).build();
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.echo01.auth.hashing;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of one password check, which dominates login, and of hashing a new
+ * password (registration, upgrades on login). SampleTime mode reports p50/p99 per encoder
+ * configuration; run with {@code -t <n>} to see the effect of concurrency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt-10", "bcrypt-12", "argon2-2", "pbkdf2-310000"})
+    public String config;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = config.split("-");
+        int cost = Integer.parseInt(parts[1]);
+        encoder = switch (parts[0]) {
+            case PasswordEncoderCalibrator.BCRYPT -> new BCryptPasswordEncoder(cost);
+            case PasswordEncoderCalibrator.ARGON2 -> PasswordEncoderCalibrator.argon2(cost);
+            case PasswordEncoderCalibrator.PBKDF2 -> PasswordEncoderCalibrator.pbkdf2(cost);
+            default -> throw new IllegalArgumentException(config);
+        };
+        hash = encoder.encode("benchmark-password");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("benchmark-password", hash);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("benchmark-password");
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.echo01.auth.hashing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordEncoderCalibratorTest {
+
+    @Test
+    void whenTargetIsBelowFloor_thenBcryptKeepsConfiguredStrength() {
+        PasswordEncoder encoder = new PasswordEncoderCalibrator("bcrypt", true, 0, 4).create();
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$04$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void whenStoredHashIsUnprefixedBcrypt_thenItMatchesAndNeedsUpgrade() {
+        PasswordEncoder encoder = new PasswordEncoderCalibrator("bcrypt", false, 0, 4).create();
+        String legacyHash = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertTrue(encoder.matches("secret", legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void whenAlgorithmIsArgon2_thenBcryptHashesStillMatchAndNeedUpgrade() {
+        PasswordEncoder bcrypt = new PasswordEncoderCalibrator("bcrypt", false, 0, 4).create();
+        PasswordEncoder argon2 = new PasswordEncoderCalibrator("argon2", false, 0, 4).create();
+        String bcryptHash = bcrypt.encode("secret");
+
+        String argon2Hash = argon2.encode("secret");
+
+        assertTrue(argon2Hash.startsWith("{argon2}"));
+        assertTrue(argon2.matches("secret", bcryptHash));
+        assertTrue(argon2.upgradeEncoding(bcryptHash));
+        assertFalse(argon2.upgradeEncoding(argon2Hash));
+    }
+
+    @Test
+    void whenAlgorithmIsUnknown_thenFailsAtStartup() {
+        assertThrows(IllegalStateException.class,
+                () -> new PasswordEncoderCalibrator("md5", false, 0, 4).create());
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.echo01.auth.hashing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.common.exceptions.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void whenPoolAndQueueAreFull_thenFailsFastWithRetryAfter() throws Exception {
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 1, 10_000, 3);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> executor.execute("matches", () -> {
+            started.countDown();
+            return awaitRelease();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture.runAsync(() -> executor.execute("matches", this::awaitRelease));
+        waitForQueueDepth(1);
+
+        ServiceBusyException ex = assertThrows(ServiceBusyException.class,
+                () -> executor.execute("matches", () -> true));
+
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("auth.password.hash.rejected").counter().count());
+    }
+
+    @Test
+    void whenWaitExceedsLimit_thenFailsAndDropsQueuedTask() throws Exception {
+        executor = new PasswordHashingExecutor(meterRegistry, 1, 4, 50, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> executor.execute("matches", () -> {
+            started.countDown();
+            return awaitRelease();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceBusyException.class, () -> executor.execute("matches", () -> true));
+        assertEquals(0.0, meterRegistry.get("auth.password.hash.queue.depth").gauge().value());
+    }
+
+    @Test
+    void whenEncoding_thenQueueWaitAndHashTimeAreRecorded() {
+        executor = new PasswordHashingExecutor(meterRegistry, 2, 4, 10_000, 1);
+        var encoder = new OffloadingPasswordEncoder(new BCryptPasswordEncoder(4), executor);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash.time").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hash.queue.wait").tag("operation", "matches").timer().count());
+    }
+
+    private boolean awaitRelease() {
+        try {
+            return release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        for (int i = 0; i < 500 && meterRegistry.get("auth.password.hash.queue.depth").gauge().value() < depth; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
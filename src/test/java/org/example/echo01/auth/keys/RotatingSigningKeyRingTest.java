@@ -0,0 +1,210 @@
+package org.example.echo01.auth.keys;
+
+import io.jsonwebtoken.JwtException;
+import org.example.echo01.auth.entities.JwtSigningKey;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.JwtSigningKeyRepository;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.common.locks.JobLocks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RotatingSigningKeyRingTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String ENCRYPTION_KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+    private final List<JwtSigningKey> stored = new ArrayList<>();
+    private JwtSigningKeyRepository repository;
+    private JobLocks jobLocks;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(JwtSigningKeyRepository.class);
+        jobLocks = mock(JobLocks.class);
+        when(jobLocks.tryAcquire(eq(RotatingSigningKeyRing.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(repository.save(any(JwtSigningKey.class))).thenAnswer(invocation -> {
+            stored.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(repository.findAllByAlgorithmAndRetiresAtAfterOrderByCreatedAtDesc(anyString(), any(Instant.class)))
+                .thenAnswer(invocation -> stored.stream()
+                        .filter(key -> key.getRetiresAt().isAfter(invocation.getArgument(1)))
+                        .sorted(Comparator.comparing(JwtSigningKey::getCreatedAt).reversed())
+                        .toList());
+        user = User.builder().id(1L).email("test@example.com").role(Role.USER).build();
+    }
+
+    private RotatingSigningKeyRing ring(HmacSigningKeys legacyKeys) {
+        return new RotatingSigningKeyRing(repository, legacyKeys, new SigningKeyCipher(ENCRYPTION_KEY), jobLocks,
+                Duration.ofDays(1), Duration.ofMinutes(2), Duration.ofDays(7));
+    }
+
+    @Test
+    void whenRingIsEmpty_thenFirstKeyIsGeneratedAndPublished() {
+        RotatingSigningKeyRing ring = ring(null);
+
+        assertEquals(1, stored.size());
+        assertEquals(stored.get(0).getKid(), ring.current().kid());
+        assertEquals("EC", ring.publicJwks().get(0).get("kty"));
+        assertFalse(ring.publicJwks().get(0).containsKey("d"));
+    }
+
+    @Test
+    void whenTokenSignedByAnotherInstance_thenVerifiedWithSharedKey() {
+        JwtService signer = new JwtService(ring(null), 60_000, 600_000);
+        JwtService verifier = new JwtService(ring(null), 60_000, 600_000);
+
+        String token = signer.generateToken(user);
+
+        assertEquals(1, stored.size());
+        assertEquals(user.getEmail(), verifier.verify(token).subject());
+    }
+
+    @Test
+    void whenNewestKeyIsOld_thenRotatedKeyIsPendingAndOldKeyStillVerifies() {
+        RotatingSigningKeyRing ring = ring(null);
+        JwtService jwtService = new JwtService(ring, 60_000, 600_000);
+        String issuedBeforeRotation = jwtService.generateToken(user);
+        JwtSigningKey first = stored.get(0);
+        first.setCreatedAt(first.getCreatedAt().minus(Duration.ofDays(2)));
+
+        ring.refresh();
+
+        assertEquals(2, stored.size());
+        assertEquals(2, ring.publicJwks().size());
+        assertEquals(first.getKid(), ring.current().kid());
+        assertEquals(user.getEmail(), jwtService.verify(issuedBeforeRotation).subject());
+    }
+
+    @Test
+    void whenSeveralNodesSeeAnOldKey_thenOnlyOneNewKeyIsGenerated() {
+        RotatingSigningKeyRing first = ring(null);
+        RotatingSigningKeyRing second = ring(null);
+        JwtSigningKey old = stored.get(0);
+        old.setCreatedAt(old.getCreatedAt().minus(Duration.ofDays(2)));
+
+        first.refresh();
+        second.refresh();
+
+        assertEquals(2, stored.size());
+        assertEquals(2, second.publicJwks().size());
+    }
+
+    @Test
+    void whenAnotherNodeHoldsTheRotationLease_thenNoKeyIsGenerated() {
+        RotatingSigningKeyRing ring = ring(null);
+        JwtSigningKey old = stored.get(0);
+        old.setCreatedAt(old.getCreatedAt().minus(Duration.ofDays(2)));
+        when(jobLocks.tryAcquire(eq(RotatingSigningKeyRing.LOCK_NAME), any(Duration.class))).thenReturn(false);
+
+        ring.refresh();
+
+        assertEquals(1, stored.size());
+        assertEquals(old.getKid(), ring.current().kid());
+    }
+
+    @Test
+    void whenKeyIsStored_thenPrivateKeyIsEncryptedAndBoundToItsKid() {
+        RotatingSigningKeyRing ring = ring(null);
+        JwtSigningKey key = stored.get(0);
+
+        assertFalse(Arrays.equals(ring.current().signingKey().getEncoded(), key.getPrivateKey()));
+        SigningKeyCipher otherKey = new SigningKeyCipher(Base64.getEncoder().encodeToString(new byte[32]));
+        assertThrows(GeneralSecurityException.class, () -> otherKey.decrypt(key.getKid(), key.getPrivateKey()));
+        SigningKeyCipher sameKey = new SigningKeyCipher(ENCRYPTION_KEY);
+        assertThrows(GeneralSecurityException.class, () -> sameKey.decrypt("another-kid", key.getPrivateKey()));
+    }
+
+    @Test
+    void whenKeyWasStoredBeforeEncryption_thenItStillVerifies() throws Exception {
+        RotatingSigningKeyRing ring = ring(null);
+        String token = new JwtService(ring, 60_000, 600_000).generateToken(user);
+        JwtSigningKey key = stored.get(0);
+        key.setPrivateKey(new SigningKeyCipher(ENCRYPTION_KEY).decrypt(key.getKid(), key.getPrivateKey()));
+
+        assertEquals(user.getEmail(), new JwtService(ring(null), 60_000, 600_000).verify(token).subject());
+    }
+
+    @Test
+    void whenHmacNotAccepted_thenLegacyTokensAreRejected() {
+        String legacyToken = new JwtService(SECRET_KEY, 60_000, 600_000).generateToken(user);
+
+        JwtService strict = new JwtService(ring(null), 60_000, 600_000);
+        JwtService lenient = new JwtService(ring(new HmacSigningKeys(SECRET_KEY)), 60_000, 600_000);
+
+        assertThrows(JwtException.class, () -> strict.verify(legacyToken));
+        assertEquals(user.getEmail(), lenient.verify(legacyToken).subject());
+    }
+
+    @Test
+    void whenTokenCarriesAnUnknownKid_thenItResolvesWithoutBlockingOnlyOnceTheRingHasReloaded() {
+        RotatingSigningKeyRing verifierRing = ring(null);
+        // The signer's key is created after the verifier last loaded the table
+        stored.clear();
+        JwtService signer = new JwtService(ring(null), 60_000, 600_000);
+        JwtService verifier = new JwtService(verifierRing, 60_000, 600_000);
+        String token = signer.generateToken(user);
+        ReflectionTestUtils.setField(verifierRing, "lastReload", Instant.EPOCH);
+
+        assertTrue(signer.resolvesKeyWithoutBlocking(token));
+        assertFalse(verifier.resolvesKeyWithoutBlocking(token));
+        assertEquals(user.getEmail(), verifier.verify(token).subject());
+        assertTrue(verifier.resolvesKeyWithoutBlocking(token));
+    }
+
+    @Test
+    void whenManyRequestsCarryAnUnknownKidAtOnce_thenTheRingReloadsOnce() throws Exception {
+        RotatingSigningKeyRing ring = ring(null);
+        ReflectionTestUtils.setField(ring, "lastReload", Instant.EPOCH);
+        clearInvocations(repository);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> lookups = new ArrayList<>();
+        Callable<Object> lookup = () -> {
+            start.await();
+            return ring.verificationKey("unknown-kid", "ES256");
+        };
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(lookup));
+            }
+            start.countDown();
+            for (Future<?> result : lookups) {
+                assertNull(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        verify(repository, times(1)).findAllByAlgorithmAndRetiresAtAfterOrderByCreatedAtDesc(anyString(), any(Instant.class));
+    }
+}
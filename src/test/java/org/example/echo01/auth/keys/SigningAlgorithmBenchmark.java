@@ -0,0 +1,83 @@
+package org.example.echo01.auth.keys;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify cost per algorithm. HS256 is the shared-secret default; ES256 is what the
+ * rotating key ring uses; RS256 is included for comparison only.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"HS256", "ES256", "RS256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        SigningKey key;
+        if (signatureAlgorithm.isHmac()) {
+            Key secret = Keys.secretKeyFor(signatureAlgorithm);
+            key = new SigningKey("bench", signatureAlgorithm, secret, secret, null);
+        } else {
+            KeyPair keyPair = Keys.keyPairFor(signatureAlgorithm);
+            key = new SigningKey("bench", signatureAlgorithm, keyPair.getPrivate(), keyPair.getPublic(), null);
+        }
+        jwtService = new JwtService(new FixedSigningKeys(key), 3_600_000L, 7_200_000L);
+        user = User.builder()
+                .id(1L)
+                .email("bench@example.com")
+                .role(Role.USER)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+
+    private record FixedSigningKeys(SigningKey key) implements SigningKeys {
+
+        @Override
+        public SigningKey current() {
+            return key;
+        }
+
+        @Override
+        public Key verificationKey(String kid, String algorithm) {
+            return key.verificationKey();
+        }
+
+        @Override
+        public List<Map<String, Object>> publicJwks() {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.echo01.auth.reaper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.common.locks.JobLocks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The partitioned path of {@link TokenReaper}, on a {@code tokens} table set up by
+ * {@code db/tokens-partitioned.sql}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TokenReaperPartitionTest {
+
+    private static final long JWT_EXPIRATION = 60_000;
+    private static final long RETENTION = 60_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JobLocks jobLocks = mock(JobLocks.class);
+    private final LocalDate today = LocalDate.now();
+    private JdbcTemplate jdbcTemplate;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute("drop table if exists tokens cascade");
+        jdbcTemplate.execute("drop table if exists users cascade");
+        jdbcTemplate.execute("create table users (id bigint primary key)");
+        jdbcTemplate.execute(new ClassPathResource("db/tokens-partitioned.sql").getContentAsString(StandardCharsets.UTF_8));
+        when(jobLocks.tryAcquire(anyString(), any())).thenReturn(true);
+    }
+
+    @Test
+    void whenStarted_thenTheCurrentAndUpcomingPartitionsExistBeforeAnyRun() {
+        reaper(10);
+
+        for (int i = 0; i <= 10; i++) {
+            assertTrue(partitions().contains(partition(today.plusDays(i))), "missing " + partition(today.plusDays(i)));
+        }
+    }
+
+    @Test
+    void whenPartitionIsPastTheCutoff_thenItIsDroppedWithItsRows() {
+        LocalDate old = today.minusDays(30);
+        createPartition(old);
+        insert(old.atTime(12, 0));
+        insert(old.atTime(13, 0));
+        insert(LocalDateTime.now());
+        TokenReaper reaper = reaper(7);
+
+        reaper.reap();
+
+        assertFalse(partitions().contains(partition(old)));
+        assertEquals(1, meterRegistry.get("tokens.reaper.partitions.dropped").counter().count());
+        assertEquals(1, count());
+    }
+
+    @Test
+    void whenDefaultPartitionAlreadyHoldsRowsOfADay_thenThatDayIsSkippedAndExpiredRowsAreStillDeleted() {
+        // As if logins had run before the partition of the day was created
+        jdbcTemplate.execute("drop table " + partition(today));
+        insert(today.atStartOfDay());
+        insert(today.atStartOfDay().plusMinutes(1));
+        TokenReaper reaper = reaper(7);
+        jdbcTemplate.execute("drop table " + partition(today.plusDays(7)));
+
+        reaper.reap();
+
+        List<String> partitions = partitions();
+        assertFalse(partitions.contains(partition(today)));
+        assertTrue(partitions.contains(partition(today.plusDays(7))));
+        // Both rows expired long before the cutoff, in the default partition
+        assertEquals(0, count());
+        assertEquals(2, meterRegistry.get("tokens.reaper.purged").tag("method", "delete").counter().count());
+    }
+
+    private TokenReaper reaper(int partitionsAhead) {
+        return new TokenReaper(jdbcTemplate, jobLocks, meterRegistry, JWT_EXPIRATION, JWT_EXPIRATION, RETENTION,
+                1_000, 1_000_000, 60_000, true, partitionsAhead);
+    }
+
+    private void createPartition(LocalDate day) {
+        jdbcTemplate.execute("create table " + partition(day) + " partition of tokens for values from ('"
+                + day + "') to ('" + day.plusDays(1) + "')");
+    }
+
+    private void insert(LocalDateTime createdAt) {
+        LocalDateTime expiresAt = createdAt.plusSeconds(JWT_EXPIRATION / 1000);
+        jdbcTemplate.update("insert into tokens (id, jti, expires_at, token_type, revoked, expired, generation, created_at) "
+                        + "values (?, ?, ?, 'ACCESS', false, false, 0, ?)",
+                ++nextId, UUID.randomUUID(), Timestamp.valueOf(expiresAt), Timestamp.valueOf(createdAt));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                + "where i.inhparent = to_regclass('tokens')", String.class);
+    }
+
+    private long count() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from tokens", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static String partition(LocalDate day) {
+        return "tokens_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.echo01.auth.reaper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.common.locks.JobLocks;
+import org.example.echo01.config.AuditConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AuditConfig.class)
+class TokenReaperTest {
+
+    private static final long JWT_EXPIRATION = 60_000;
+    private static final long RETENTION = 60_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().email("alice@example.com").role(Role.USER).build());
+    }
+
+    @Test
+    void whenTokensOutliveExpiryAndRetention_thenTheyArePurgedInBatchesAndRecentOnesKept() {
+        LocalDateTime now = LocalDateTime.now();
+        save("recent", now);
+        save("expired-within-retention", now.minusSeconds(90));
+        for (int i = 0; i < 25; i++) {
+            save("old-" + i, now.minusMinutes(10));
+        }
+        TokenReaper reaper = reaper(new JobLocks(jdbcTemplate), 10, 1_000_000);
+
+        reaper.reap();
+
+        assertEquals(2, tokenRepository.count());
+        assertTrue(tokenRepository.findByJti(jti("recent")).isPresent());
+        assertTrue(tokenRepository.findByJti(jti("expired-within-retention")).isPresent());
+        assertEquals(25, meterRegistry.get("tokens.reaper.purged").tag("method", "delete").counter().count());
+        assertEquals(2, meterRegistry.get("tokens.table.rows").gauge().value());
+    }
+
+    @Test
+    void whenAnotherNodeHoldsTheLease_thenNothingIsPurged() {
+        save("old", LocalDateTime.now().minusMinutes(10));
+        JobLocks otherNode = new JobLocks(jdbcTemplate);
+        assertTrue(otherNode.tryAcquire(TokenReaper.LOCK_NAME, Duration.ofMinutes(5)));
+
+        reaper(new JobLocks(jdbcTemplate), 10, 1_000_000).reap();
+        assertEquals(1, tokenRepository.count());
+
+        otherNode.release(TokenReaper.LOCK_NAME);
+        reaper(new JobLocks(jdbcTemplate), 10, 1_000_000).reap();
+        assertEquals(0, tokenRepository.count());
+    }
+
+    @Test
+    void whenPurging_thenDeletionsArePacedToTheRowBudget() {
+        for (int i = 0; i < 50; i++) {
+            save("old-" + i, LocalDateTime.now().minusMinutes(10));
+        }
+        TokenReaper reaper = reaper(new JobLocks(jdbcTemplate), 10, 100);
+
+        long started = System.nanoTime();
+        assertEquals(50, reaper.purge());
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        // 50 rows at 100 rows/s
+        assertTrue(elapsedMillis >= 450, "purge took only " + elapsedMillis + " ms");
+    }
+
+    private TokenReaper reaper(JobLocks jobLocks, int batchSize, int maxRowsPerSecond) {
+        return new TokenReaper(jdbcTemplate, jobLocks, meterRegistry, JWT_EXPIRATION, JWT_EXPIRATION, RETENTION,
+                batchSize, maxRowsPerSecond, 60_000, false, 7);
+    }
+
+    private static UUID jti(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void save(String name, LocalDateTime createdAt) {
+        Token token = tokenRepository.saveAndFlush(Token.builder()
+                .user(user)
+                .jti(jti(name))
+                .expiresAt(createdAt.plus(Duration.ofMillis(JWT_EXPIRATION)).atZone(ZoneId.systemDefault()).toInstant())
+                .tokenType(TokenType.ACCESS)
+                .build());
+        jdbcTemplate.update("update tokens set created_at = ? where id = ?", Timestamp.valueOf(createdAt), token.getId());
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.echo01.auth.repositories;
+
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.VerifiedToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stateful-mode token lookup against a file-backed H2 tokens table keyed either by the compact
+ * JWT ({@code jwt}, the previous schema) or by its {@code jti} as a UUID. Setup prints the size
+ * of the unique index, measured as the growth of the compacted database file when it is built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenLookupBenchmark {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    @Param({"jwt", "jti"})
+    public String key;
+
+    @Param({"200000"})
+    public int rows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement lookup;
+    private VerifiedToken[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JwtService jwtService = new JwtService(SECRET_KEY, 3_600_000L, 7_200_000L);
+        tokens = new VerifiedToken[rows];
+        long keyBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            User user = User.builder().id((long) i).email("user" + i + "@example.com").role(Role.USER).build();
+            tokens[i] = jwtService.issueAccessToken(Map.of(), user);
+            keyBytes += tokens[i].token().length();
+        }
+
+        directory = Files.createTempDirectory("token-lookup");
+        String column = key.equals("jwt") ? "token varchar(1024) not null" : "jti uuid not null";
+        try (Connection setup = open(); Statement statement = setup.createStatement()) {
+            statement.execute("create table tokens (id bigint primary key, " + column
+                    + ", revoked boolean not null, expired boolean not null)");
+            try (PreparedStatement insert = setup.prepareStatement("insert into tokens values (?, ?, false, false)")) {
+                for (int i = 0; i < rows; i++) {
+                    insert.setLong(1, i);
+                    bindKey(insert, 2, tokens[i]);
+                    insert.addBatch();
+                    if (i % 1000 == 999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            statement.execute("shutdown compact");
+        }
+        long withoutIndex = databaseSize();
+        try (Connection setup = open(); Statement statement = setup.createStatement()) {
+            statement.execute("create unique index uk_tokens_key on tokens (" + (key.equals("jwt") ? "token" : "jti") + ")");
+            statement.execute("shutdown compact");
+        }
+        long indexBytes = databaseSize() - withoutIndex;
+        System.out.printf("%n[%s] average JWT %d bytes, key %d bytes, unique index %.1f MB (%d bytes/row)%n",
+                key, keyBytes / rows, key.equals("jwt") ? keyBytes / rows : 16,
+                indexBytes / 1_048_576.0, indexBytes / rows);
+
+        connection = open();
+        lookup = connection.prepareStatement("select id, revoked, expired from tokens where "
+                + (key.equals("jwt") ? "token" : "jti") + " = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean findToken() throws SQLException {
+        VerifiedToken token = tokens[ThreadLocalRandom.current().nextInt(rows)];
+        bindKey(lookup, 1, token);
+        try (ResultSet resultSet = lookup.executeQuery()) {
+            return resultSet.next() && !resultSet.getBoolean(2) && !resultSet.getBoolean(3);
+        }
+    }
+
+    // The jti variant pays for parsing the claim into a UUID, as the filter does
+    private void bindKey(PreparedStatement statement, int index, VerifiedToken token) throws SQLException {
+        if (key.equals("jwt")) {
+            statement.setString(index, token.token());
+        } else {
+            statement.setObject(index, token.jti());
+        }
+    }
+
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:" + directory.resolve("tokens") + ";MODE=PostgreSQL", "sa", "");
+    }
+
+    private long databaseSize() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
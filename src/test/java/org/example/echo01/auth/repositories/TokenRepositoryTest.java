@@ -0,0 +1,112 @@
+package org.example.echo01.auth.repositories;
+
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.config.AuditConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AuditConfig.class)
+class TokenRepositoryTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(User.builder().email("alice@example.com").role(Role.USER).build());
+        bob = userRepository.save(User.builder().email("bob@example.com").role(Role.USER).build());
+    }
+
+    @Test
+    void whenHistoricalTokensExist_thenOnlyTokensThatAreNeitherExpiredNorRevokedAreValid() {
+        save(alice, "expired-only", null, false, true);
+        save(alice, "revoked-only", null, true, false);
+        save(alice, "revoked", null, true, true);
+        save(alice, "valid", null, false, false);
+
+        assertEquals(List.of(jti("valid")), validTokens(alice));
+    }
+
+    @Test
+    void whenRevokingByUserOrDevice_thenOnlyMatchingValidTokensAreUpdated() {
+        save(alice, "phone", "phone", false, false);
+        save(alice, "laptop", "laptop", false, false);
+        save(alice, "old", null, false, true);
+        save(bob, "bob", null, false, false);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        assertEquals(1, tokenRepository.revokeAllByUserAndDevice(alice.getId(), "phone", now));
+        assertEquals(List.of(jti("laptop")), validTokens(alice));
+
+        assertEquals(1, tokenRepository.revokeAllByUser(alice.getId(), now));
+        assertTrue(tokenRepository.findAllValidTokensByUser(alice.getId()).isEmpty());
+        assertEquals(List.of(jti("bob")), validTokens(bob));
+
+        Token phone = tokenRepository.findByJti(jti("phone")).orElseThrow();
+        assertTrue(phone.isRevoked() && phone.isExpired());
+        assertEquals(now, phone.getUpdatedAt());
+        assertEquals(2, tokenRepository.findAllByRevokedTrueAndUpdatedAtAfter(now.minusSeconds(1)).size());
+    }
+
+    @Test
+    void whenRevokingEverything_thenEveryValidTokenIsRevokedInOneStatement() {
+        save(alice, "alice", null, false, false);
+        save(bob, "bob", null, false, false);
+        save(bob, "old", null, true, true);
+
+        assertEquals(2, tokenRepository.revokeAll(LocalDateTime.now()));
+        assertEquals(0, tokenRepository.revokeSessionOf(jti("alice"), LocalDateTime.now()));
+        assertTrue(tokenRepository.findAllValidTokensByUser(alice.getId()).isEmpty());
+        assertTrue(tokenRepository.findAllValidTokensByUser(bob.getId()).isEmpty());
+    }
+
+    @Test
+    void whenLookingUpByJti_thenTheStoredTokenIsFound() {
+        save(alice, "alice", null, false, false);
+
+        Token token = tokenRepository.findByJti(jti("alice")).orElseThrow();
+        assertEquals(alice.getId(), token.getUser().getId());
+        assertTrue(tokenRepository.findByJti(jti("unknown")).isEmpty());
+    }
+
+    private List<UUID> validTokens(User user) {
+        return tokenRepository.findAllValidTokensByUser(user.getId()).stream().map(TokenRef::jti).toList();
+    }
+
+    private static UUID jti(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void save(User user, String name, String deviceId, boolean revoked, boolean expired) {
+        tokenRepository.save(Token.builder()
+                .user(user)
+                .jti(jti(name))
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .tokenType(TokenType.ACCESS)
+                .deviceId(deviceId)
+                .revoked(revoked)
+                .expired(expired)
+                .build());
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.echo01.auth.revocation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRevocationBusTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryRevocationBus revocationBus;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        revocationBus = new InMemoryRevocationBus(meterRegistry);
+    }
+
+    @Test
+    void whenPublishing_thenEverySubscriberIndexesTheBatch() {
+        long now = System.currentTimeMillis();
+        RevocationIndex first = new RevocationIndex(1_000, 0.01);
+        RevocationIndex second = new RevocationIndex(1_000, 0.01);
+        revocationBus.subscribe(indexingListener(first));
+        revocationBus.subscribe(indexingListener(second));
+
+        revocationBus.publish(List.of(
+                new RevocationEvent("jti-1", now + 60_000, now),
+                new RevocationEvent("jti-2", now + 60_000, now)
+        ), null);
+
+        assertTrue(first.isRevoked("jti-1"));
+        assertTrue(second.isRevoked("jti-2"));
+        assertEquals(2, meterRegistry.get("revocation.bus.events.received").counter().count());
+        assertEquals(2, meterRegistry.get("revocation.bus.propagation.lag").timer().count());
+        assertEquals(now, meterRegistry.get("revocation.bus.high.water.mark").gauge().value());
+    }
+
+    @Test
+    void whenPublishing_thenThePublisherIsNotHandedItsOwnEvents() {
+        long now = System.currentTimeMillis();
+        List<RevocationEvent> delivered = new ArrayList<>();
+        RevocationListener publisher = new RevocationListener() {
+            @Override
+            public void onRevocations(List<RevocationEvent> events) {
+                delivered.addAll(events);
+            }
+
+            @Override
+            public void onReconnect(long highWaterMarkMillis) {
+            }
+        };
+        RevocationIndex other = new RevocationIndex(1_000, 0.01);
+        revocationBus.subscribe(publisher);
+        revocationBus.subscribe(indexingListener(other));
+
+        revocationBus.publish(List.of(new RevocationEvent("jti-1", now + 60_000, now)), publisher);
+
+        assertTrue(delivered.isEmpty());
+        assertTrue(other.isRevoked("jti-1"));
+        assertEquals(1, meterRegistry.get("revocation.bus.events.received").counter().count());
+    }
+
+    @Test
+    void whenOnlyThePublisherIsSubscribed_thenNothingIsCountedAsReceived() {
+        long now = System.currentTimeMillis();
+        RevocationListener publisher = indexingListener(new RevocationIndex(1_000, 0.01));
+        revocationBus.subscribe(publisher);
+
+        revocationBus.publish(List.of(new RevocationEvent("jti-1", now + 60_000, now)), publisher);
+
+        assertEquals(1, meterRegistry.get("revocation.bus.events.published").counter().count());
+        assertEquals(0, meterRegistry.get("revocation.bus.events.received").counter().count());
+        assertEquals(0, meterRegistry.get("revocation.bus.propagation.lag").timer().count());
+    }
+
+    private static RevocationListener indexingListener(RevocationIndex index) {
+        return new RevocationListener() {
+            @Override
+            public void onRevocations(List<RevocationEvent> events) {
+                events.forEach(event -> index.revoke(event.jti(), event.expiresAtMillis()));
+            }
+
+            @Override
+            public void onReconnect(long highWaterMarkMillis) {
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.echo01.auth.revocation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two buses, as two instances would run them, talking through a real Postgres.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresRevocationBusTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private final SimpleMeterRegistry firstMeters = new SimpleMeterRegistry();
+    private final SimpleMeterRegistry secondMeters = new SimpleMeterRegistry();
+    private final RecordingListener firstListener = new RecordingListener();
+    private final RecordingListener secondListener = new RecordingListener();
+    private PostgresRevocationBus first;
+    private PostgresRevocationBus second;
+
+    @BeforeEach
+    void setUp() {
+        first = start("bus-first", firstMeters, firstListener);
+        second = start("bus-second", secondMeters, secondListener);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        first.stop();
+        second.stop();
+    }
+
+    @Test
+    void whenOneInstancePublishes_thenOnlyTheOtherReceives() {
+        long now = System.currentTimeMillis();
+
+        first.publish(List.of(new RevocationEvent("jti-1", now + 60_000, now)), firstListener);
+        awaitUntil(() -> secondListener.events().size() == 1);
+        // Once the reply has arrived, the first bus would have seen its own NOTIFY too
+        second.publish(List.of(new RevocationEvent("jti-2", now + 60_000, now)), secondListener);
+        awaitUntil(() -> firstListener.events().size() == 1);
+
+        assertEquals("jti-1", secondListener.events().get(0).jti());
+        assertEquals(now, secondListener.events().get(0).revokedAtMillis());
+        assertEquals("jti-2", firstListener.events().get(0).jti());
+        assertEquals(1, secondMeters.get("revocation.bus.events.received").counter().count());
+    }
+
+    @Test
+    void whenManyEventsArePublished_thenTheyTravelInBatchesThatFitANotify() {
+        long now = System.currentTimeMillis();
+        List<RevocationEvent> events = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            events.add(new RevocationEvent("jti-" + i, now + 60_000, now));
+        }
+
+        first.publish(events, firstListener);
+        awaitUntil(() -> secondListener.events().size() == 250);
+
+        assertTrue(secondListener.batches.size() >= 3);
+        assertTrue(secondListener.batches.stream().allMatch(batch -> batch.size() <= 100));
+        assertEquals(events.stream().map(RevocationEvent::jti).toList(),
+                secondListener.events().stream().map(RevocationEvent::jti).toList());
+        assertEquals(250, firstMeters.get("revocation.bus.events.published").counter().count());
+    }
+
+    @Test
+    void whenConnectionIsLost_thenBusReconnectsAndReplaysFromTheLastRevocationReceived() {
+        long revokedAt = System.currentTimeMillis();
+        first.publish(List.of(new RevocationEvent("jti-1", revokedAt + 60_000, revokedAt)), firstListener);
+        awaitUntil(() -> secondListener.events().size() == 1);
+
+        terminateConnectionsOf("bus-second");
+        awaitUntil(() -> !secondListener.reconnects.isEmpty());
+
+        long replayFrom = secondListener.reconnects.get(0);
+        assertTrue(replayFrom <= revokedAt);
+        assertTrue(replayFrom >= revokedAt - 5_000);
+        assertEquals(1, secondMeters.get("revocation.bus.reconnects").counter().count());
+        assertTrue(firstListener.reconnects.isEmpty());
+
+        // Listening again after the catch-up
+        long now = System.currentTimeMillis();
+        first.publish(List.of(new RevocationEvent("jti-2", now + 60_000, now)), firstListener);
+        awaitUntil(() -> secondListener.events().size() == 2);
+    }
+
+    private static PostgresRevocationBus start(String name, SimpleMeterRegistry meterRegistry,
+                                               RevocationListener listener) {
+        DataSourceProperties properties = new DataSourceProperties();
+        String url = postgres.getJdbcUrl();
+        properties.setUrl(url + (url.contains("?") ? "&" : "?") + "ApplicationName=" + name);
+        properties.setUsername(postgres.getUsername());
+        properties.setPassword(postgres.getPassword());
+        PostgresRevocationBus bus = new PostgresRevocationBus(properties, meterRegistry);
+        ReflectionTestUtils.setField(bus, "pollIntervalMillis", 10);
+        ReflectionTestUtils.setField(bus, "reconnectBackoffMillis", 100L);
+        ReflectionTestUtils.setField(bus, "catchUpSkewMillis", 5_000L);
+        bus.subscribe(listener);
+        bus.start();
+        awaitUntil(() -> isListening(name));
+        return bus;
+    }
+
+    private static boolean isListening(String applicationName) {
+        // The worker's last statement is the LISTEN until it first publishes
+        return count("SELECT count(*) FROM pg_stat_activity WHERE application_name = ? AND query LIKE 'LISTEN%'",
+                applicationName) > 0;
+    }
+
+    private static void terminateConnectionsOf(String applicationName) {
+        count("SELECT count(pg_terminate_backend(pid)) FROM pg_stat_activity WHERE application_name = ?",
+                applicationName);
+    }
+
+    private static long count(String sql, String applicationName) {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, applicationName);
+            try (var resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the revocation bus");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private static class RecordingListener implements RevocationListener {
+        final List<List<RevocationEvent>> batches = new CopyOnWriteArrayList<>();
+        final List<Long> reconnects = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onRevocations(List<RevocationEvent> events) {
+            batches.add(events);
+        }
+
+        @Override
+        public void onReconnect(long highWaterMarkMillis) {
+            reconnects.add(highWaterMarkMillis);
+        }
+
+        List<RevocationEvent> events() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+    }
+}
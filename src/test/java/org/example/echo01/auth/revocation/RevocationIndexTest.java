@@ -0,0 +1,66 @@
+package org.example.echo01.auth.revocation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationIndexTest {
+
+    private RevocationIndex revocationIndex;
+
+    @BeforeEach
+    void setUp() {
+        revocationIndex = new RevocationIndex(1_000, 0.01);
+    }
+
+    @Test
+    void whenTokenRevoked_thenReportedAsRevoked() {
+        String jti = UUID.randomUUID().toString();
+
+        revocationIndex.revoke(jti, System.currentTimeMillis() + 60_000);
+
+        assertTrue(revocationIndex.isRevoked(jti));
+        assertFalse(revocationIndex.isRevoked(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void whenTokenAlreadyExpired_thenNotStored() {
+        revocationIndex.revoke(UUID.randomUUID().toString(), System.currentTimeMillis() - 1);
+
+        assertEquals(0, revocationIndex.size());
+    }
+
+    @Test
+    void whenEvictingExpired_thenOnlyLiveEntriesRemain() {
+        long now = System.currentTimeMillis();
+        String shortLived = UUID.randomUUID().toString();
+        String longLived = UUID.randomUUID().toString();
+        revocationIndex.revoke(shortLived, now + 1_000);
+        revocationIndex.revoke(longLived, now + 60_000);
+
+        revocationIndex.evictExpired(now + 5_000);
+
+        assertFalse(revocationIndex.isRevoked(shortLived));
+        assertTrue(revocationIndex.isRevoked(longLived));
+        assertEquals(1, revocationIndex.size());
+    }
+
+    @Test
+    void whenManyTokensRevoked_thenNoFalseNegatives() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        String[] jtis = new String[5_000];
+        for (int i = 0; i < jtis.length; i++) {
+            jtis[i] = UUID.randomUUID().toString();
+            revocationIndex.revoke(jtis[i], expiresAt);
+        }
+
+        revocationIndex.evictExpired(System.currentTimeMillis());
+
+        for (String jti : jtis) {
+            assertTrue(revocationIndex.isRevoked(jti));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.echo01.auth.security;
 import org.example.echo01.auth.entities.User;
 import org.example.echo01.auth.enums.Role;
 import org.example.echo01.auth.services.JwtService;
+import org.example.echo01.auth.services.VerifiedToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.test.context.TestPropertySource;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +49,15 @@ class JwtServiceTest {
                 .build();
     }
 
+    @Test
+    void whenIssuingAccessToken_thenReturnedClaimsMatchTheParsedToken() {
+        VerifiedToken issued = jwtService.issueAccessToken(
+                Map.of(JwtService.DEVICE_ID_CLAIM, "phone"), userDetails);
+
+        assertEquals(jwtService.verify(issued.token()), issued);
+        assertNotNull(issued.jti());
+    }
+
     @Test
     void whenGeneratingToken_thenSuccess() {
         String token = jwtService.generateToken(userDetails);
@@ -117,4 +128,17 @@ class JwtServiceTest {
         assertNotNull(expiration);
         assertTrue(expiration.after(issuedAt));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void whenVerifyingToken_thenClaimsViewExposesEmbeddedUser() {
+        String token = jwtService.generateToken(userDetails);
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("test@example.com", verified.subject());
+        assertEquals(1L, verified.userId());
+        assertEquals("USER", verified.role());
+        assertNotNull(verified.id());
+        assertTrue(jwtService.isTokenValid(verified, userDetails));
+    }
+}
\ No newline at end of file
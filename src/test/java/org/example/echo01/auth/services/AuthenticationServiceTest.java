@@ -5,9 +5,9 @@ import org.example.echo01.auth.dto.request.RegisterRequest;
 import org.example.echo01.auth.dto.response.AuthenticationResponse;
 import org.example.echo01.auth.entities.User;
 import org.example.echo01.auth.enums.Role;
-import org.example.echo01.auth.repositories.TokenRepository;
 import org.example.echo01.auth.repositories.UserRepository;
 import org.example.echo01.common.exceptions.CustomException;
+import org.example.echo01.config.RateLimitConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,14 +15,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.ArrayList;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,18 +31,27 @@ class AuthenticationServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private TokenRepository tokenRepository;
-
     @Mock
     private PasswordEncoder passwordEncoder;
 
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RateLimitConfig rateLimitConfig;
+
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private AuthenticationService authenticationService;
 
@@ -82,9 +91,7 @@ class AuthenticationServiceTest {
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
-        when(jwtService.generateToken(any(User.class))).thenReturn("jwtToken");
-        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refreshToken");
-        when(tokenRepository.save(any())).thenReturn(null);
+        when(refreshTokenService.issue(user, null)).thenReturn(tokens(null));
 
         AuthenticationResponse response = authenticationService.register(registerRequest);
 
@@ -95,9 +102,7 @@ class AuthenticationServiceTest {
         verify(userRepository).existsByEmail(registerRequest.getEmail());
         verify(passwordEncoder).encode(registerRequest.getPassword());
         verify(userRepository).save(any(User.class));
-        verify(jwtService).generateToken(any(User.class));
-        verify(jwtService).generateRefreshToken(any(User.class));
-        verify(tokenRepository).save(any());
+        verify(refreshTokenService).issue(user, null);
     }
 
     @Test
@@ -108,16 +113,13 @@ class AuthenticationServiceTest {
                 () -> authenticationService.register(registerRequest));
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
-        verifyNoMoreInteractions(passwordEncoder, jwtService, tokenRepository);
+        verifyNoMoreInteractions(passwordEncoder, jwtService, refreshTokenService);
     }
 
     @Test
     void login_WithValidCredentials_ShouldSucceed() {
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
-        when(jwtService.generateToken(any(User.class))).thenReturn("jwtToken");
-        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refreshToken");
-        when(tokenRepository.findAllValidTokenByUser(anyLong())).thenReturn(new ArrayList<>());
-        when(tokenRepository.save(any())).thenReturn(null);
+        when(userCache.findByEmail(anyString())).thenReturn(Optional.of(user));
+        when(refreshTokenService.issue(user, null)).thenReturn(tokens(null));
 
         AuthenticationResponse response = authenticationService.login(loginRequest);
 
@@ -128,16 +130,40 @@ class AuthenticationServiceTest {
         verify(authenticationManager).authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
         );
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(jwtService).generateToken(user);
-        verify(jwtService).generateRefreshToken(user);
-        verify(tokenRepository).findAllValidTokenByUser(user.getId());
-        verify(tokenRepository).save(any());
+        verify(userCache).findByEmail(loginRequest.getEmail());
+        verify(tokenRevocationService).replaceSessions(user.getId(), null);
+        verify(refreshTokenService).issue(user, null);
+        verify(rateLimitConfig, never()).recordFailedLogin(any());
+    }
+
+    @Test
+    void login_WithBadCredentials_ShouldCountTheFailedAttempt() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticationService.login(loginRequest));
+
+        verify(rateLimitConfig).checkLoginAttempt(loginRequest.getEmail());
+        verify(rateLimitConfig).recordFailedLogin(loginRequest.getEmail());
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    void login_WithDeviceId_ShouldOnlyReplaceThatDevicesSession() {
+        loginRequest.setDeviceId("phone");
+        when(userCache.findByEmail(anyString())).thenReturn(Optional.of(user));
+        when(refreshTokenService.issue(user, "phone")).thenReturn(tokens("phone"));
+
+        AuthenticationResponse response = authenticationService.login(loginRequest);
+
+        assertEquals("jwtToken", response.getAccessToken());
+        verify(tokenRevocationService).replaceSessions(user.getId(), "phone");
+        verify(tokenRevocationService, never()).replaceSessions(user.getId(), null);
+        verify(refreshTokenService).issue(user, "phone");
     }
 
     @Test
     void login_WithInvalidEmail_ShouldThrowException() {
-        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userCache.findByEmail(anyString())).thenReturn(Optional.empty());
 
         assertThrows(CustomException.class,
                 () -> authenticationService.login(loginRequest));
@@ -145,7 +171,17 @@ class AuthenticationServiceTest {
         verify(authenticationManager).authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
         );
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verifyNoMoreInteractions(jwtService, tokenRepository);
+        verify(userCache).findByEmail(loginRequest.getEmail());
+        verifyNoMoreInteractions(jwtService, refreshTokenService);
+    }
+
+    private TokenPair tokens(String deviceId) {
+        return new TokenPair(token("jwtToken", deviceId, null), token("refreshToken", deviceId, JwtService.REFRESH_TYPE));
+    }
+
+    private VerifiedToken token(String jwt, String deviceId, String type) {
+        long now = System.currentTimeMillis();
+        return new VerifiedToken(jwt, user.getEmail(), UUID.randomUUID().toString(), user.getId(),
+                user.getRole().name(), deviceId, type, now, now + 60_000);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package org.example.echo01.auth.services;
+
+import org.example.echo01.Echo01Application;
+import org.example.echo01.auth.dto.request.LoginRequest;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login latency for a user with many historical tokens, against the full application context on
+ * an in-memory database. History rows are expired but not revoked, which the old
+ * {@code expired = false or revoked = false} query still matched; they are reset before every
+ * invocation so both paths always see the same data.
+ * <ul>
+ *     <li>{@code login}: the current {@link AuthenticationService#login} end to end</li>
+ *     <li>{@code bulkRevoke}: its token bookkeeping alone (one select, one UPDATE, one insert)</li>
+ *     <li>{@code legacyRevoke}: the previous bookkeeping (load every matching entity, mutate,
+ *     {@code saveAll}, publish every token)</li>
+ *     <li>{@code refresh}: one refresh-token rotation (family lookup, conditional UPDATE, batched
+ *     insert of the next pair), which no longer depends on the user's history</li>
+ * </ul>
+ * Password hashing runs at the lowest bcrypt cost so it does not drown the database work.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "history@example.com";
+    private static final String PASSWORD = "password123";
+
+    @Param({"10", "5000"})
+    public int historicalTokens;
+
+    private ConfigurableApplicationContext context;
+    private AuthenticationService authenticationService;
+    private TokenRevocationService tokenRevocationService;
+    private RefreshTokenService refreshTokenService;
+    private TokenRepository tokenRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private LoginRequest request;
+    private VerifiedToken refreshToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Command-line arguments, so they take precedence over application.properties
+        context = new SpringApplicationBuilder(Echo01Application.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:login-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.mode=never",
+                "--logging.level.root=WARN",
+                "--logging.level.org.example.echo01=WARN",
+                "--logging.file.name=",
+                "--application.instrumentation.enabled=false",
+                "--application.security.password-hashing.calibrate=false",
+                "--application.security.password-hashing.bcrypt-strength=4",
+                "--application.rate-limit.login.capacity=1000000",
+                "--application.rate-limit.login.refill-tokens=1000000");
+        authenticationService = context.getBean(AuthenticationService.class);
+        tokenRevocationService = context.getBean(TokenRevocationService.class);
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+        tokenRepository = context.getBean(TokenRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .email(EMAIL)
+                .password(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .role(Role.USER)
+                .build());
+        List<Token> history = new ArrayList<>(historicalTokens);
+        for (int i = 0; i < historicalTokens; i++) {
+            history.add(Token.builder()
+                    .user(user)
+                    .jti(UUID.randomUUID())
+                    .expiresAt(Instant.now().plusSeconds(3600))
+                    .tokenType(TokenType.ACCESS)
+                    .expired(true)
+                    .revoked(false)
+                    .build());
+        }
+        tokenRepository.saveAll(history);
+        request = LoginRequest.builder().email(EMAIL).password(PASSWORD).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetHistory() {
+        jdbcTemplate.update("update tokens set revoked = false, expired = true where user_id = ? and device_id is null",
+                user.getId());
+        refreshToken = refreshTokenService.issue(user, null).refreshToken();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object login() {
+        return authenticationService.login(request);
+    }
+
+    @Benchmark
+    public Object refresh() {
+        return refreshTokenService.rotate(refreshToken);
+    }
+
+    @Benchmark
+    public Object bulkRevoke() {
+        tokenRevocationService.revokeUserTokens(user.getId());
+        return tokenRepository.save(newToken());
+    }
+
+    @Benchmark
+    public Object legacyRevoke() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Token> validUserTokens = entityManager.createQuery("""
+                            select t from Token t inner join User u on t.user.id = u.id
+                            where u.id = :userId and (t.expired = false or t.revoked = false)
+                            """, Token.class)
+                    .setParameter("userId", user.getId())
+                    .getResultList();
+            validUserTokens.forEach(token -> {
+                token.setExpired(true);
+                token.setRevoked(true);
+            });
+            tokenRepository.saveAll(validUserTokens);
+            tokenRevocationService.revokeAll(validUserTokens.stream()
+                    .map(token -> new TokenRef(token.getJti(), token.getExpiresAt()))
+                    .toList());
+        });
+        return tokenRepository.save(newToken());
+    }
+
+    private Token newToken() {
+        return Token.builder()
+                .user(user)
+                .jti(UUID.randomUUID())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .tokenType(TokenType.ACCESS)
+                .expired(false)
+                .revoked(false)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.echo01.auth.services;
+
+import org.example.echo01.auth.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordUpgradeServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserCache userCache;
+
+    @InjectMocks
+    private PasswordUpgradeService passwordUpgradeService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void whenSameUserUpgradedTwice_thenOneRowGuardedByOriginalHash() {
+        User first = User.builder().id(1L).version(3L).password("old").build();
+        User second = User.builder().id(1L).password("old").build();
+        User other = User.builder().id(2L).password("old2").build();
+
+        passwordUpgradeService.updatePassword(first, "new1");
+        passwordUpgradeService.updatePassword(second, "new2");
+        passwordUpgradeService.updatePassword(other, "new3");
+        passwordUpgradeService.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertTrue(batch.getValue().stream().anyMatch(row ->
+                row[0].equals("new2") && row[1].equals(1L) && row[2].equals("old")));
+        assertEquals("new1", first.getPassword());
+        verify(userCache).evict(argThat(user -> user.getId().equals(1L) && user.getVersion() == 4L));
+    }
+
+    @Test
+    void whenNothingPending_thenNoWrite() {
+        passwordUpgradeService.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
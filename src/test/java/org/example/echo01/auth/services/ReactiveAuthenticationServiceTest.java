@@ -0,0 +1,49 @@
+package org.example.echo01.auth.services;
+
+import org.example.echo01.auth.dto.request.LoginRequest;
+import org.example.echo01.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveAuthenticationServiceTest {
+
+    private final ReactiveAuthenticationManager authenticationManager = mock(ReactiveAuthenticationManager.class);
+    private final RateLimitConfig rateLimitConfig = mock(RateLimitConfig.class);
+    private final ReactiveAuthenticationService authenticationService = new ReactiveAuthenticationService(
+            null, null, null, null, authenticationManager, null, null, null, null, rateLimitConfig);
+
+    @Test
+    void whenLoginFails_thenTheRateLimitIsCheckedAndChargedOffTheEventLoop() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> threads.add(Thread.currentThread().getName()))
+                .when(rateLimitConfig).checkLoginAttempt(anyString());
+        doAnswer(invocation -> threads.add(Thread.currentThread().getName()))
+                .when(rateLimitConfig).recordFailedLogin(anyString());
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(Mono.error(new BadCredentialsException("Bad credentials")));
+        LoginRequest request = LoginRequest.builder()
+                .email("alice@example.com")
+                .password("wrong-password")
+                .build();
+
+        // Subscribed from a non-blocking thread, like a request on the event loop
+        Mono<?> login = authenticationService.login(request).subscribeOn(Schedulers.parallel());
+
+        assertThrows(BadCredentialsException.class, login::block);
+        assertEquals(2, threads.size());
+        assertTrue(threads.stream().allMatch(thread -> thread.startsWith("boundedElastic")), threads.toString());
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.echo01.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.common.exceptions.CustomException;
+import org.example.echo01.config.AuditConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import(AuditConfig.class)
+class RefreshTokenServiceTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final long REFRESH_EXPIRATION = 600_000;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JwtService jwtService = new JwtService(SECRET_KEY, 60_000, REFRESH_EXPIRATION);
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+    private RefreshTokenService refreshTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().email("alice@example.com").role(Role.USER).build());
+        var tokenWriteBehind = new TokenWriteBehind(
+                tokenRepository, transactionManager, new SimpleMeterRegistry(), false, 50, 50, 10_000);
+        refreshTokenService = new RefreshTokenService(
+                jwtService, tokenRepository, userRepository, tokenRevocationService, tokenWriteBehind);
+        reuseGrace(10_000);
+    }
+
+    @Test
+    void whenRotating_thenTheCurrentGenerationIsRevokedAndTheNextIssuedInTheSameFamily() {
+        TokenPair login = refreshTokenService.issue(user, "phone");
+
+        TokenPair rotated = refreshTokenService.rotate(login.refreshToken());
+
+        Token oldAccess = token(login.accessToken());
+        Token oldRefresh = token(login.refreshToken());
+        Token newRefresh = token(rotated.refreshToken());
+        assertTrue(oldAccess.isRevoked() && oldRefresh.isRevoked());
+        assertFalse(newRefresh.isRevoked() || token(rotated.accessToken()).isRevoked());
+        assertEquals(oldRefresh.getFamilyId(), newRefresh.getFamilyId());
+        assertEquals(1, newRefresh.getGeneration());
+        assertEquals(TokenType.REFRESH, newRefresh.getTokenType());
+        assertEquals("phone", rotated.accessToken().deviceId());
+        verify(tokenRevocationService).revokeAll(anyCollection());
+    }
+
+    @Test
+    void whenARotatedRefreshTokenIsReplayedAfterTheGracePeriod_thenTheWholeFamilyIsRevoked() {
+        TokenPair login = refreshTokenService.issue(user, null);
+        TokenPair rotated = refreshTokenService.rotate(login.refreshToken());
+        reuseGrace(0);
+
+        assertThrows(CustomException.class, () -> refreshTokenService.rotate(login.refreshToken()));
+
+        assertTrue(token(rotated.refreshToken()).isRevoked());
+        assertTrue(token(rotated.accessToken()).isRevoked());
+        verify(tokenRevocationService, atLeastOnce()).revokeAll(anyCollection());
+    }
+
+    @Test
+    void whenARotatedRefreshTokenIsReplayedWithinTheGracePeriod_thenOnlyTheReplayIsRefused() {
+        TokenPair login = refreshTokenService.issue(user, null);
+        TokenPair rotated = refreshTokenService.rotate(login.refreshToken());
+
+        assertThrows(CustomException.class, () -> refreshTokenService.rotate(login.refreshToken()));
+
+        assertFalse(token(rotated.refreshToken()).isRevoked());
+    }
+
+    @Test
+    void whenAnAccessTokenIsPresented_thenItIsNotAcceptedAsRefreshToken() {
+        TokenPair login = refreshTokenService.issue(user, null);
+
+        assertThrows(CustomException.class, () -> refreshTokenService.rotate(login.accessToken()));
+        assertFalse(token(login.refreshToken()).isRevoked());
+    }
+
+    @Test
+    void whenALegacyRefreshTokenIsPresented_thenItIsExchangedOnce() {
+        VerifiedToken legacy = jwtService.verify(jwtService.buildToken(Map.of(), user, REFRESH_EXPIRATION));
+
+        TokenPair exchanged = refreshTokenService.rotate(legacy);
+
+        assertTrue(exchanged.refreshToken().isRefreshToken());
+        assertTrue(tokenRepository.findByJti(legacy.jti()).orElseThrow().isRevoked());
+        assertThrows(CustomException.class, () -> refreshTokenService.rotate(legacy));
+    }
+
+    private Token token(VerifiedToken token) {
+        return tokenRepository.findByJti(token.jti()).orElseThrow();
+    }
+
+    private void reuseGrace(long millis) {
+        ReflectionTestUtils.setField(refreshTokenService, "reuseGraceMillis", millis);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.echo01.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.revocation.RevocationBus;
+import org.example.echo01.auth.revocation.RevocationIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TokenRevocationServiceTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final RevocationBus revocationBus = mock(RevocationBus.class);
+    private final TokenRef token = new TokenRef(UUID.randomUUID(), Instant.now().plusSeconds(60));
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        JwtService jwtService = new JwtService(SECRET_KEY, 60_000, 600_000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TokenRepository tokenRepository = mock(TokenRepository.class);
+        tokenRevocationService = new TokenRevocationService(
+                jwtService,
+                tokenRepository,
+                new RevocationIndex(1_000, 0.01),
+                revocationBus,
+                new VerifiedTokenCache(jwtService, meterRegistry, true, 1_000, 300_000),
+                new TokenWriteBehind(tokenRepository, null, meterRegistry, false, 50, 50, 10_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void whenRevokingOutsideATransaction_thenIndexedAndPublishedRightAway() {
+        tokenRevocationService.revokeAll(List.of(token));
+
+        assertTrue(tokenRevocationService.isRevoked(token.jti().toString()));
+        verify(revocationBus).publish(anyList(), any());
+    }
+
+    @Test
+    void whenRevokingInsideATransaction_thenIndexedAndPublishedOnlyOnceItCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        tokenRevocationService.revokeAll(List.of(token));
+
+        assertFalse(tokenRevocationService.isRevoked(token.jti().toString()));
+        verify(revocationBus, never()).publish(anyList(), any());
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        assertTrue(tokenRevocationService.isRevoked(token.jti().toString()));
+        verify(revocationBus).publish(anyList(), any());
+    }
+
+    @Test
+    void whenTheTransactionRollsBack_thenNothingIsRevoked() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        tokenRevocationService.revokeAll(List.of(token));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertFalse(tokenRevocationService.isRevoked(token.jti().toString()));
+        verify(revocationBus, never()).publish(anyList(), any());
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.echo01.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.Token;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.enums.TokenType;
+import org.example.echo01.auth.repositories.TokenRef;
+import org.example.echo01.auth.repositories.TokenRepository;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.config.AuditConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not transactional: the write-behind commits its own transactions
+@DataJpaTest
+@Import(AuditConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenWriteBehindTest {
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder().email(UUID.randomUUID() + "@example.com").role(Role.USER).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void whenQueued_thenTokensAreServedFromMemoryUntilTheirBatchIsWritten() {
+        TokenWriteBehind writeBehind = writeBehind(60_000);
+        Token access = token(user, TokenType.ACCESS);
+        Token refresh = token(user, TokenType.REFRESH);
+
+        writeBehind.insert(List.of(access, refresh));
+
+        assertTrue(writeBehind.findUnflushed(access.getJti()).isPresent());
+        assertTrue(tokenRepository.findByJti(access.getJti()).isEmpty());
+        assertEquals(2, writeBehind.findUnflushedTokensOf(user.getId(), null).size());
+
+        writeBehind.flush();
+
+        assertTrue(writeBehind.findUnflushed(access.getJti()).isEmpty());
+        assertTrue(tokenRepository.findByJti(access.getJti()).isPresent());
+        assertTrue(tokenRepository.findByJti(refresh.getJti()).isPresent());
+        assertEquals(1, meterRegistry.get("auth.tokens.write.batch.size").summary().count());
+        assertEquals(2, meterRegistry.get("auth.tokens.write.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void whenATokenIsRevokedBeforeItIsWritten_thenItIsWrittenRevoked() {
+        TokenWriteBehind writeBehind = writeBehind(60_000);
+        Token access = token(user, TokenType.ACCESS);
+
+        writeBehind.insert(List.of(access));
+        writeBehind.revoke(user.getId(), List.of(new TokenRef(access.getJti(), access.getExpiresAt())));
+        assertTrue(writeBehind.findUnflushedTokensOf(user.getId(), null).isEmpty());
+        writeBehind.flush();
+
+        assertTrue(tokenRepository.findByJti(access.getJti()).orElseThrow().isRevoked());
+    }
+
+    @Test
+    void whenStarted_thenQueuedWritesAreWrittenWithinTheMaxDelay() throws InterruptedException {
+        TokenWriteBehind writeBehind = writeBehind(10);
+        writeBehind.start();
+        try {
+            Token access = token(user, TokenType.ACCESS);
+            writeBehind.insert(List.of(access));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (tokenRepository.findByJti(access.getJti()).isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(tokenRepository.findByJti(access.getJti()).isPresent());
+        } finally {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void whenStopped_thenTheQueueIsDrained() throws InterruptedException {
+        TokenWriteBehind writeBehind = writeBehind(60_000);
+        writeBehind.start();
+        Token access = token(user, TokenType.ACCESS);
+        writeBehind.insert(List.of(access));
+
+        writeBehind.stop();
+
+        assertTrue(tokenRepository.findByJti(access.getJti()).isPresent());
+    }
+
+    @Test
+    void whenARowIsRefused_thenTheRestOfTheBatchIsStillWritten() {
+        TokenWriteBehind writeBehind = writeBehind(60_000);
+        Token orphan = token(User.builder().id(Long.MAX_VALUE).version(0L).role(Role.USER).build(), TokenType.ACCESS);
+        Token access = token(user, TokenType.ACCESS);
+
+        writeBehind.insert(List.of(orphan, access));
+        writeBehind.flush();
+
+        assertTrue(tokenRepository.findByJti(access.getJti()).isPresent());
+        assertTrue(tokenRepository.findByJti(orphan.getJti()).isEmpty());
+        assertTrue(writeBehind.findUnflushed(orphan.getJti()).isEmpty());
+        assertEquals(1, meterRegistry.get("auth.tokens.write.failures").counter().count());
+    }
+
+    @Test
+    void whenTheDatabaseFailsWhileWritingRowsOneByOne_thenTheRestAreRequeued() {
+        // Third saveAll: the batch and the orphan's own insert hit the constraint, then the connection drops
+        AtomicInteger saves = new AtomicInteger();
+        TokenRepository failing = (TokenRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TokenRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("saveAll") && saves.incrementAndGet() == 3) {
+                        throw new DataAccessResourceFailureException("connection reset");
+                    }
+                    try {
+                        return method.invoke(tokenRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        TokenWriteBehind writeBehind = new TokenWriteBehind(failing, transactionManager, meterRegistry, true, 50, 60_000, 10_000);
+        Token orphan = token(User.builder().id(Long.MAX_VALUE).version(0L).role(Role.USER).build(), TokenType.ACCESS);
+        Token access = token(user, TokenType.ACCESS);
+        Token refresh = token(user, TokenType.REFRESH);
+
+        writeBehind.insert(List.of(orphan, access, refresh));
+        assertThrows(DataAccessResourceFailureException.class, writeBehind::flush);
+
+        assertTrue(writeBehind.findUnflushed(orphan.getJti()).isEmpty());
+        assertTrue(writeBehind.findUnflushed(access.getJti()).isPresent());
+        assertTrue(writeBehind.findUnflushed(refresh.getJti()).isPresent());
+        assertTrue(tokenRepository.findByJti(access.getJti()).isEmpty());
+
+        writeBehind.flush();
+
+        assertTrue(tokenRepository.findByJti(access.getJti()).isPresent());
+        assertTrue(tokenRepository.findByJti(refresh.getJti()).isPresent());
+        assertTrue(writeBehind.findUnflushed(access.getJti()).isEmpty());
+        assertTrue(writeBehind.findUnflushed(refresh.getJti()).isEmpty());
+    }
+
+    private TokenWriteBehind writeBehind(long maxDelayMillis) {
+        return new TokenWriteBehind(tokenRepository, transactionManager, meterRegistry, true, 50, maxDelayMillis, 10_000);
+    }
+
+    private static Token token(User user, TokenType type) {
+        return Token.builder()
+                .user(user)
+                .jti(UUID.randomUUID())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .tokenType(type)
+                .expired(false)
+                .revoked(false)
+                .build();
+    }
+}
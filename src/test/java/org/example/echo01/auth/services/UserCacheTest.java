@@ -0,0 +1,138 @@
+package org.example.echo01.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.example.echo01.auth.revocation.InMemoryRevocationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryRevocationBus revocationBus;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        revocationBus = new InMemoryRevocationBus(meterRegistry);
+        userCache = new UserCache(userRepository, revocationBus, meterRegistry, true, 1_000, 60_000);
+    }
+
+    @Test
+    void whenLoadedByEmail_thenLaterReadsByEmailAndIdAreHitsReturningCopies() {
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user(0, true)));
+        userCache.findByEmail("alice@example.com");
+
+        User byEmail = userCache.findByEmail("alice@example.com").orElseThrow();
+        byEmail.setPassword("changed");
+        User byId = userCache.findById(1L).orElseThrow();
+
+        assertEquals("hash", byId.getPassword());
+        assertNotSame(byEmail, byId);
+        verify(userRepository, times(1)).findByEmail("alice@example.com");
+        verify(userRepository, never()).findById(any());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "users.by-email").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void whenEvicted_thenTheNextReadLoadsTheNewState() {
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(user(0, true)))
+                .thenReturn(Optional.of(user(1, false)));
+        userCache.findByEmail("alice@example.com");
+
+        userCache.evict(user(1, false));
+
+        assertFalse(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+        assertFalse(userCache.findById(1L).orElseThrow().isEnabled());
+    }
+
+    @Test
+    void whenAReaderLoadsTheRowFromBeforeAnEviction_thenThatCopyIsNeverCached() {
+        // The change is flushed (and evicted) while another request still reads the committed, older row
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(user(0, true)))
+                .thenReturn(Optional.of(user(0, true)))
+                .thenReturn(Optional.of(user(1, false)));
+        userCache.evict(user(1, false));
+
+        assertTrue(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+        assertTrue(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+        assertFalse(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+        assertFalse(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+
+        verify(userRepository, times(3)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void whenEmailChanges_thenThePreviousEmailIsNoLongerServed() {
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(user(0, true)))
+                .thenReturn(Optional.empty());
+        userCache.findByEmail("alice@example.com");
+
+        User renamed = user(1, true);
+        renamed.setEmail("alice@example.org");
+        userCache.evict(renamed);
+
+        assertTrue(userCache.findByEmail("alice@example.com").isEmpty());
+    }
+
+    @Test
+    void whenAnotherInstanceEvictsTheUser_thenItsStaleCopyIsNotServed() {
+        UserCache otherInstance = new UserCache(userRepository, revocationBus, meterRegistry, true, 1_000, 60_000);
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(user(0, true)))
+                .thenReturn(Optional.of(user(1, false)));
+        userCache.findByEmail("alice@example.com");
+
+        otherInstance.evict(user(1, false));
+
+        assertFalse(userCache.findByEmail("alice@example.com").orElseThrow().isEnabled());
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void whenTheBusReconnects_thenEverythingIsReloaded() {
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user(0, true)));
+        userCache.findByEmail("alice@example.com");
+
+        userCache.onReconnect(System.currentTimeMillis());
+        userCache.findByEmail("alice@example.com");
+
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void whenDisabled_thenEveryReadGoesToTheRepository() {
+        userCache = new UserCache(userRepository, revocationBus, meterRegistry, false, 1_000, 60_000);
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user(0, true)));
+
+        userCache.findByEmail("alice@example.com");
+        userCache.findByEmail("alice@example.com");
+
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    private static User user(long version, boolean enabled) {
+        return User.builder()
+                .id(1L)
+                .version(version)
+                .email("alice@example.com")
+                .password("hash")
+                .role(Role.USER)
+                .enabled(enabled)
+                .build();
+    }
+}
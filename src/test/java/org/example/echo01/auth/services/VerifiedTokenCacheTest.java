@@ -0,0 +1,60 @@
+package org.example.echo01.auth.services;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET_KEY, 60_000, 600_000);
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(jwtService, meterRegistry, true, 1_000, 300_000);
+        user = User.builder().id(1L).email("test@example.com").role(Role.USER).build();
+    }
+
+    @Test
+    void whenSameTokenVerifiedTwice_thenSecondCallIsAHit() {
+        String token = jwtService.generateToken(user);
+
+        VerifiedToken first = verifiedTokenCache.verify(token);
+        VerifiedToken second = verifiedTokenCache.verify(token);
+
+        assertSame(first, second);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "jwt.verified").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void whenInvalidatedByTokenId_thenTokenIsVerifiedAgain() {
+        String token = jwtService.generateToken(user);
+        VerifiedToken first = verifiedTokenCache.verify(token);
+
+        verifiedTokenCache.invalidate(List.of(first.id()));
+
+        assertNotSame(first, verifiedTokenCache.verify(token));
+    }
+
+    @Test
+    void whenTokenExpired_thenNotServedFromCache() {
+        String token = jwtService.buildToken(new HashMap<>(), user, -1_000);
+
+        assertThrows(JwtException.class, () -> verifiedTokenCache.verify(token));
+    }
+}
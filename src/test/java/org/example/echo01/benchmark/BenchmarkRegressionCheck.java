@@ -0,0 +1,127 @@
+package org.example.echo01.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result ({@code -rf json}) with a baseline and fails when a benchmark got
+ * slower, or allocates more per operation ({@code gc.alloc.rate.norm}, with {@code -prof gc}),
+ * by more than {@code threshold}. Run by the {@code benchmark} profile after the benchmarks:
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.includes=Jwt -Djmh.baseline=benchmarks/baseline.json -Djmh.threshold=0.10
+ * </pre>
+ * A slowdown only counts when it is also larger than the two error margins together, so noisy
+ * benchmarks do not fail the build on overlapping confidence intervals. Benchmarks missing from the
+ * baseline are listed as new. Baselines are only comparable on the machine that recorded them: to
+ * record one, copy {@code target/jmh-result.json} there. Without a baseline file the check only
+ * prints that it was skipped.
+ */
+public class BenchmarkRegressionCheck {
+
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    // Allocation differences this small (B/op) are JIT noise, e.g. an escape analysis that failed once
+    private static final double ALLOCATION_TOLERANCE_BYTES = 16;
+
+    record Result(String benchmark, String metric, double baseline, double current, double change, boolean regression) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = options(args);
+        File current = new File(options.getOrDefault("current", "target/jmh-result.json"));
+        File baseline = new File(options.getOrDefault("baseline", "benchmarks/baseline.json"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "0.10"));
+        if (!baseline.isFile()) {
+            System.out.printf("No benchmark baseline at %s, skipping the regression check%n", baseline);
+            return;
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        List<Result> results = compare(mapper.readTree(baseline), mapper.readTree(current), threshold);
+        results.forEach(result -> System.out.printf("%-4s %-90s %-20s %14.3f -> %14.3f %+8.1f%%%n",
+                result.regression() ? "FAIL" : "ok", result.benchmark(), result.metric(),
+                result.baseline(), result.current(), result.change() * 100));
+        long regressions = results.stream().filter(Result::regression).count();
+        if (regressions > 0) {
+            System.out.printf("%d benchmark regressions beyond %.0f%% against %s%n", regressions, threshold * 100, baseline);
+            System.exit(1);
+        }
+    }
+
+    /** One result per metric of every current benchmark that the baseline has too. */
+    static List<Result> compare(JsonNode baseline, JsonNode current, double threshold) {
+        Map<String, JsonNode> baselineRuns = new HashMap<>();
+        baseline.forEach(run -> baselineRuns.put(key(run), run));
+
+        List<Result> results = new ArrayList<>();
+        for (JsonNode run : current) {
+            JsonNode before = baselineRuns.get(key(run));
+            if (before == null) {
+                System.out.printf("new  %s%n", key(run));
+                continue;
+            }
+            boolean higherIsBetter = "thrpt".equals(run.path("mode").asText());
+            results.add(compareScore(key(run), run.path("primaryMetric").path("scoreUnit").asText(),
+                    before.path("primaryMetric"), run.path("primaryMetric"), higherIsBetter, threshold));
+
+            JsonNode allocationBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            JsonNode allocation = run.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            if (allocationBefore.has("score") && allocation.has("score")) {
+                double base = allocationBefore.path("score").asDouble();
+                double now = allocation.path("score").asDouble();
+                double change = relativeChange(base, now);
+                results.add(new Result(key(run), ALLOCATION_METRIC, base, now, change,
+                        change > threshold && now - base > ALLOCATION_TOLERANCE_BYTES));
+            }
+        }
+        return results;
+    }
+
+    private static Result compareScore(String key, String unit, JsonNode before, JsonNode now,
+                                       boolean higherIsBetter, double threshold) {
+        double base = before.path("score").asDouble();
+        double score = now.path("score").asDouble();
+        double change = relativeChange(base, score);
+        double slowdown = higherIsBetter ? -change : change;
+        double margin = errorOf(before) + errorOf(now);
+        return new Result(key, unit, base, score, change,
+                slowdown > threshold && Math.abs(score - base) > margin);
+    }
+
+    // JMH writes "NaN" as the error of single-iteration runs
+    private static double errorOf(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static double relativeChange(double baseline, double current) {
+        return baseline == 0 ? (current == 0 ? 0 : Double.POSITIVE_INFINITY) : (current - baseline) / baseline;
+    }
+
+    // Benchmark method, mode and @Param values identify a run
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        String key = run.path("benchmark").asText() + " [" + run.path("mode").asText() + "]";
+        return params.isEmpty() ? key : key + " " + params;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.echo01.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkRegressionCheckTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void whenThroughputDropsBeyondTheThreshold_thenItIsARegression() throws Exception {
+        List<BenchmarkRegressionCheck.Result> results = BenchmarkRegressionCheck.compare(
+                runs(run("Jwt.verify", "thrpt", 1000, 10, 64)),
+                runs(run("Jwt.verify", "thrpt", 800, 10, 64)),
+                0.10);
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).regression());
+        assertEquals(-0.2, results.get(0).change(), 1e-9);
+        assertFalse(results.get(1).regression());
+    }
+
+    @Test
+    void whenLatencyDropsOrStaysWithinTheErrorMargin_thenItIsNoRegression() throws Exception {
+        assertFalse(BenchmarkRegressionCheck.compare(
+                runs(run("Login.login", "sample", 10, 1, 0)),
+                runs(run("Login.login", "sample", 8, 1, 0)),
+                0.10).get(0).regression());
+        assertFalse(BenchmarkRegressionCheck.compare(
+                runs(run("Login.login", "sample", 10, 2, 0)),
+                runs(run("Login.login", "sample", 12, 2, 0)),
+                0.10).get(0).regression());
+        assertTrue(BenchmarkRegressionCheck.compare(
+                runs(run("Login.login", "sample", 10, 0.5, 0)),
+                runs(run("Login.login", "sample", 12, 0.5, 0)),
+                0.10).get(0).regression());
+    }
+
+    @Test
+    void whenAllocationGrowsBeyondTheTolerance_thenItIsARegression() throws Exception {
+        assertFalse(BenchmarkRegressionCheck.compare(
+                runs(run("Policy.anonymous", "thrpt", 100, 1, 0)),
+                runs(run("Policy.anonymous", "thrpt", 100, 1, 8)),
+                0.10).get(1).regression());
+        assertTrue(BenchmarkRegressionCheck.compare(
+                runs(run("Policy.anonymous", "thrpt", 100, 1, 64)),
+                runs(run("Policy.anonymous", "thrpt", 100, 1, 128)),
+                0.10).get(1).regression());
+    }
+
+    @Test
+    void whenParamsDiffer_thenTheRunsAreNotCompared() throws Exception {
+        JsonNode baseline = runs(run("Filter.authenticate", "thrpt", 1000, 10, 0));
+        JsonNode current = runs(run("Filter.authenticate", "thrpt", 100, 10, 0));
+        ((ObjectNode) current.get(0)).putObject("params").put("mode", "STATELESS");
+
+        assertTrue(BenchmarkRegressionCheck.compare(baseline, current, 0.10).isEmpty());
+    }
+
+    private JsonNode runs(String... runs) throws Exception {
+        return mapper.readTree("[" + String.join(",", runs) + "]");
+    }
+
+    private static String run(String benchmark, String mode, double score, double error, double allocation) {
+        return """
+                {"benchmark": "%s", "mode": "%s",
+                 "primaryMetric": {"score": %s, "scoreError": %s, "scoreUnit": "ops/s"},
+                 "secondaryMetrics": {"gc.alloc.rate.norm": {"score": %s, "scoreError": 0.0, "scoreUnit": "B/op"}}}
+                """.formatted(benchmark, mode, score, error, allocation);
+    }
+}
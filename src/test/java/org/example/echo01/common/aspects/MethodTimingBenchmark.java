@@ -0,0 +1,101 @@
+package org.example.echo01.common.aspects;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call overhead of method instrumentation on a trivial service method. {@code legacyAspect}
+ * is the former catch-all LoggingAspect with DEBUG off (its cheapest configuration);
+ * {@code sampled} and {@code timed} go through MethodTimingInterceptor at the given rate.
+ * Under the old aspect every bean method on the request path paid this; now only opted-in ones do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MethodTimingBenchmark {
+
+    @Param({"plain", "legacyAspect", "timed", "sampled"})
+    public String mode;
+
+    private final PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    private Greeter greeter;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(LegacyLoggingAspect.class)).setLevel(Level.INFO);
+        Greeter target = new Greeter();
+        greeter = switch (mode) {
+            case "plain" -> target;
+            case "legacyAspect" -> {
+                AspectJProxyFactory factory = new AspectJProxyFactory(target);
+                factory.setProxyTargetClass(true);
+                factory.addAspect(new LegacyLoggingAspect());
+                yield factory.getProxy();
+            }
+            case "timed", "sampled" -> {
+                ProxyFactory factory = new ProxyFactory(target);
+                factory.setProxyTargetClass(true);
+                factory.addAdvisor(new DefaultPointcutAdvisor(
+                        new InstrumentedMethodPointcut(Set.of()),
+                        new MethodTimingInterceptor(() -> meterRegistry, "timed".equals(mode) ? 1.0 : 0.1)));
+                yield (Greeter) factory.getProxy();
+            }
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @Benchmark
+    public int call() {
+        return greeter.length("user-" + (counter++ & 1023));
+    }
+
+    @Instrumented
+    public static class Greeter {
+        public int length(String name) {
+            return name.length();
+        }
+    }
+
+    // Copy of the removed org.example.echo01.common.aspects.LoggingAspect, scoped to the benchmark target
+    @Aspect
+    public static class LegacyLoggingAspect {
+
+        private static final org.slf4j.Logger log = LoggerFactory.getLogger(LegacyLoggingAspect.class);
+
+        @Around("execution(* org.example.echo01..*.*(..))")
+        public Object logMethodExecution(ProceedingJoinPoint joinPoint) throws Throwable {
+            String methodName = joinPoint.getSignature().getName();
+            String className = joinPoint.getTarget().getClass().getSimpleName();
+
+            log.debug("Entering method {} in class {}", methodName, className);
+            long startTime = System.currentTimeMillis();
+
+            try {
+                Object result = joinPoint.proceed();
+                long endTime = System.currentTimeMillis();
+                log.debug("Method {} in class {} completed in {}ms", methodName, className, (endTime - startTime));
+                return result;
+            } catch (Exception e) {
+                log.error("Error in method {} in class {}: {}", methodName, className, e.getMessage(), e);
+                throw e;
+            }
+        }
+    }
+}
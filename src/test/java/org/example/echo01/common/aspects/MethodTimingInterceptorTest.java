@@ -0,0 +1,87 @@
+package org.example.echo01.common.aspects;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodTimingInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    public static class Service {
+        @Instrumented
+        public String hot(String value) {
+            if (value == null) {
+                throw new IllegalArgumentException();
+            }
+            return value;
+        }
+
+        public String cold() {
+            return "cold";
+        }
+
+        public String configured() {
+            return "configured";
+        }
+    }
+
+    private Service proxy(double sampleRate) {
+        ProxyFactory factory = new ProxyFactory(new Service());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new DefaultPointcutAdvisor(
+                new InstrumentedMethodPointcut(Set.of("Service.configured")),
+                new MethodTimingInterceptor(() -> meterRegistry, sampleRate)));
+        return (Service) factory.getProxy();
+    }
+
+    @Test
+    void whenMethodIsAnnotatedOrConfigured_thenCallsAreTimed() {
+        Service service = proxy(1.0);
+
+        service.hot("a");
+        service.hot("b");
+        service.configured();
+        service.cold();
+        assertThrows(IllegalArgumentException.class, () -> service.hot(null));
+
+        assertEquals(2, timerCount("hot", "none"));
+        assertEquals(1, timerCount("configured", "none"));
+        assertEquals(1, timerCount("hot", "IllegalArgumentException"));
+        assertTrue(meterRegistry.find(MethodTimingInterceptor.METRIC_NAME).tag("method", "cold").timers().isEmpty());
+    }
+
+    @Test
+    void whenSampleRateIsZero_thenNothingIsRecorded() {
+        Service service = proxy(0.0);
+
+        for (int i = 0; i < 100; i++) {
+            service.hot("a");
+        }
+
+        assertTrue(meterRegistry.find(MethodTimingInterceptor.METRIC_NAME).timers().isEmpty());
+    }
+
+    @Test
+    void whenClassHasNoMatchingMethod_thenPointcutRejectsIt() throws Exception {
+        var pointcut = new InstrumentedMethodPointcut(Set.of());
+
+        assertFalse(AopUtils.canApply(pointcut, String.class));
+        assertFalse(pointcut.matches(Service.class.getMethod("cold"), Service.class));
+        assertTrue(pointcut.matches(Service.class.getMethod("hot", String.class), Service.class));
+    }
+
+    private long timerCount(String method, String exception) {
+        return meterRegistry.get(MethodTimingInterceptor.METRIC_NAME)
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer()
+                .count();
+    }
+}
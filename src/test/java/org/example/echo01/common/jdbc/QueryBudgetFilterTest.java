@@ -0,0 +1,147 @@
+package org.example.echo01.common.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryBudgetFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryBudgetProperties properties = new QueryBudgetProperties();
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1");
+        dataSource = QueryCountingDataSource.wrap(h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists tokens");
+            statement.execute("create table tokens (id int primary key, user_id int, revoked boolean)");
+            statement.execute("insert into tokens values (1, 1, false), (2, 1, false), (3, 2, false)");
+        }
+    }
+
+    @Test
+    void whenRequestRunsStatements_thenTheyAreRecordedByEndpoint() throws Exception {
+        handle(request("GET", "/api/v1/tokens/1", "/api/v1/tokens/{id}"), () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                query(connection, 1);
+                update(connection, "update tokens set revoked = true where user_id = 1");
+            }
+        });
+
+        assertEquals(2, summary("db.request.statements", "/api/v1/tokens/{id}").totalAmount());
+        // One row read, two updated
+        assertEquals(3, summary("db.request.rows", "/api/v1/tokens/{id}").totalAmount());
+        assertEquals(1, meterRegistry.get("db.request.time").tag("endpoint", "/api/v1/tokens/{id}").timer().count());
+        assertTrue(meterRegistry.find("db.request.budget.exceeded").counters().isEmpty());
+    }
+
+    @Test
+    void whenStatementRepeatsPastTheLimit_thenFailActionFailsTheRequest() {
+        properties.setAction(QueryBudgetAction.FAIL);
+        properties.setMaxRepeats(2);
+
+        QueryBudgetExceededException exception = assertThrows(QueryBudgetExceededException.class, () ->
+                handle(request("DELETE", "/api/v1/sessions/all", "/api/v1/sessions/all"), () -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        for (int id = 1; id <= 3; id++) {
+                            query(connection, id);
+                        }
+                    }
+                }));
+
+        assertTrue(exception.getMessage().contains("3x [select id from tokens where id = ?]"));
+        assertEquals(1, meterRegistry.get("db.request.budget.exceeded").tag("reason", "repeated").counter().count());
+    }
+
+    @Test
+    void whenRequestExceedsItsBudget_thenLogActionOnlyCountsIt() throws Exception {
+        properties.getBudgets().put("/api/v1/auth/logout", 1);
+
+        // Not routed to a handler, so tagged by its path because that has a budget
+        handle(request("POST", "/api/v1/auth/logout", null), () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                query(connection, 1);
+                update(connection, "update tokens set revoked = true where id = 1");
+            }
+        });
+        handle(request("POST", "/unmapped", null), () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                query(connection, 1);
+            }
+        });
+
+        assertEquals(1, meterRegistry.get("db.request.budget.exceeded")
+                .tag("endpoint", "/api/v1/auth/logout").tag("reason", "budget").counter().count());
+        assertEquals(1, summary("db.request.statements", QueryBudgetFilter.UNKNOWN).count());
+    }
+
+    @Test
+    void whenNoRequestIsActive_thenConnectionsAreNotWrapped() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            assertFalse(Proxy.isProxyClass(connection.getClass()));
+        }
+    }
+
+    private interface Work {
+        void run() throws Exception;
+    }
+
+    private void handle(MockHttpServletRequest request, Work work) throws Exception {
+        FilterChain chain = (req, res) -> {
+            try {
+                work.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        new QueryBudgetFilter(properties, meterRegistry).doFilter(request, new MockHttpServletResponse(), chain);
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        return request;
+    }
+
+    private static void query(Connection connection, int id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select id from tokens where id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    // drain
+                }
+            }
+        }
+    }
+
+    private static void update(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private DistributionSummary summary(String name, String endpoint) {
+        return meterRegistry.get(name).tag("endpoint", endpoint).summary();
+    }
+}
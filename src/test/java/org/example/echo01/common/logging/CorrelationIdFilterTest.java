@@ -0,0 +1,42 @@
+package org.example.echo01.common.logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    @Test
+    void whenCallerSendsAnId_thenItIsUsedForTheRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/ping");
+        request.addHeader(CorrelationIdFilter.HEADER, "edge-7f3a.1");
+
+        assertEquals("edge-7f3a.1", handle(request).get());
+    }
+
+    @Test
+    void whenIdIsMissingOrUnsafe_thenOneIsGenerated() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/ping");
+        request.addHeader(CorrelationIdFilter.HEADER, "forged\n{\"level\":\"ERROR\"}");
+
+        String requestId = handle(request).get();
+
+        assertTrue(requestId.matches("[0-9a-f]{16}"));
+        assertNull(MDC.get(CorrelationIdFilter.MDC_KEY));
+    }
+
+    private AtomicReference<String> handle(MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> seen = new AtomicReference<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> seen.set(MDC.get(CorrelationIdFilter.MDC_KEY)));
+        assertEquals(seen.get(), response.getHeader(CorrelationIdFilter.HEADER));
+        return seen;
+    }
+}
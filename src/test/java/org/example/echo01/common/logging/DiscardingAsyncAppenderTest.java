@@ -0,0 +1,61 @@
+package org.example.echo01.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscardingAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    /** Holds the async worker on the first event until released. */
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event.getMessage());
+        }
+    }
+
+    @Test
+    void whenQueueIsNearlyFull_thenOnlyDebugAndTraceAreDropped() throws Exception {
+        BlockingAppender target = new BlockingAppender();
+        target.setContext(context);
+        target.start();
+        DiscardingAsyncAppender appender = new DiscardingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(5);
+        appender.setDiscardingThreshold(6);
+        appender.addAppender(target);
+        appender.start();
+
+        // Every event finds the queue below the threshold, so each is up for discarding
+        for (Level level : List.of(Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR)) {
+            LoggingEvent event = new LoggingEvent("test", context.getLogger("test"), level, level.toString(), null, null);
+            event.setMDCPropertyMap(Map.of());
+            appender.doAppend(event);
+        }
+        target.release.countDown();
+        appender.stop();
+
+        assertEquals(List.of("INFO", "WARN", "ERROR"), target.received);
+        assertEquals(2, appender.getDiscardedCount());
+    }
+}
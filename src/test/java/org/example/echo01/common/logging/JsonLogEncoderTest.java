@@ -0,0 +1,59 @@
+package org.example.echo01.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLogEncoderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final JsonLogEncoder encoder = new JsonLogEncoder();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void whenEventIsEncoded_thenItIsOneLineOfJsonWithTheMdc() throws Exception {
+        LoggingEvent event = event(Level.WARN, "Token {} for \"{}\"\nrejected\t\u0001", null, "42", "zoë 😀");
+
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.lines().count());
+        JsonNode json = mapper.readTree(line);
+        assertEquals("WARN", json.get("level").asText());
+        assertEquals("org.example.echo01.Test", json.get("logger").asText());
+        assertEquals("Token 42 for \"zoë 😀\"\nrejected\t\u0001", json.get("message").asText());
+        assertEquals("abc123", json.get("requestId").asText());
+        assertFalse(json.has("exception"));
+    }
+
+    @Test
+    void whenEventHasAThrowable_thenTheStackTraceIsIncluded() throws Exception {
+        LoggingEvent event = event(Level.ERROR, "Failed", new IllegalStateException("boom"));
+
+        JsonNode json = mapper.readTree(encoder.encode(event));
+
+        assertTrue(json.get("exception").asText().startsWith("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    void whenEventsFollowALargeOne_thenTheyAreNotPaddedOrTruncated() throws Exception {
+        String large = "x".repeat(JsonLogEncoder.MAX_RETAINED_CHARS * 2);
+
+        assertEquals(large, mapper.readTree(encoder.encode(event(Level.INFO, large, null))).get("message").asText());
+        assertEquals("small", mapper.readTree(encoder.encode(event(Level.INFO, "small", null))).get("message").asText());
+    }
+
+    private LoggingEvent event(Level level, String message, Throwable throwable, Object... arguments) {
+        LoggingEvent event = new LoggingEvent("test", context.getLogger("org.example.echo01.Test"), level, message, throwable, arguments);
+        event.setMDCPropertyMap(Map.of(CorrelationIdFilter.MDC_KEY, "abc123"));
+        return event;
+    }
+}
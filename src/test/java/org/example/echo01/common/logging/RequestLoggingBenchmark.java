@@ -0,0 +1,169 @@
+package org.example.echo01.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.example.echo01.Echo01Application;
+import org.example.echo01.auth.dto.request.RegisterRequest;
+import org.example.echo01.auth.services.AuthenticationService;
+import org.example.echo01.load.PingRoute;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Latency of one authenticated request, as in {@code SecurityFilterChainBenchmark}, with the
+ * request path logging at the development levels (DEBUG for Spring Security and the application)
+ * through each pipeline:
+ * <ul>
+ *     <li>{@code off}: no logging, the baseline</li>
+ *     <li>{@code sync}: the development file appender, pattern with caller data, on the request thread</li>
+ *     <li>{@code async}: the production pipeline, {@link JsonLogEncoder} behind {@link DiscardingAsyncAppender}</li>
+ * </ul>
+ * Logs go to {@code target/benchmark-logs} and the console is left out, since the forked JVM's
+ * output would only measure the terminal. Compare the percentiles, not just the mean: a blocking
+ * appender shows up in the tail first.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RequestLoggingBenchmark {
+
+    private static final String LOG_FILE = "target/benchmark-logs/request-logging-%s.log";
+
+    @Param({"off", "sync", "async"})
+    public String logging;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String authorizationHeader;
+    private DiscardingAsyncAppender asyncAppender;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Echo01Application.class, PingRoute.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:request-logging-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                "--spring.sql.init.mode=never",
+                "--logging.level.root=WARN",
+                "--logging.level.org.example.echo01=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.file.name=",
+                "--application.instrumentation.enabled=false",
+                "--application.instrumentation.jdbc.enabled=false",
+                "--application.security.password-hashing.calibrate=false",
+                "--application.security.password-hashing.bcrypt-strength=4",
+                // A list is bound from one source only, so this replaces the shipped routes
+                "--application.rate-limit.routes[0].pattern=/api/**",
+                "--application.rate-limit.routes[0].key=principal",
+                "--application.rate-limit.routes[0].capacity=10000000",
+                "--application.rate-limit.routes[0].refill-tokens=10000000",
+                "--application.rate-limit.routes[0].refill-period=1s");
+        @SuppressWarnings("unchecked")
+        FilterRegistrationBean<CorrelationIdFilter> correlationId =
+                context.getBean("correlationIdFilter", FilterRegistrationBean.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(correlationId.getFilter())
+                .apply(springSecurity())
+                .build();
+        var registered = context.getBean(AuthenticationService.class).register(RegisterRequest.builder()
+                .firstname("Bench")
+                .lastname("User")
+                .email("request-logging@example.com")
+                .password("password123")
+                .build());
+        authorizationHeader = "Bearer " + registered.getAccessToken();
+        configureLogging();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (asyncAppender != null) {
+            System.out.printf("Discarded %d log events%n", asyncAppender.getDiscardedCount());
+            asyncAppender.stop();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        return mockMvc.perform(get(PingRoute.PATH).header(HttpHeaders.AUTHORIZATION, authorizationHeader))
+                .andReturn()
+                .getResponse()
+                .getStatus();
+    }
+
+    // Replaces the appenders logback-spring.xml set up, once the application has started
+    private void configureLogging() {
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        for (Logger logger : loggerContext.getLoggerList()) {
+            logger.detachAndStopAllAppenders();
+            logger.setAdditive(true);
+        }
+        ch.qos.logback.classic.Level level = logging.equals("off")
+                ? ch.qos.logback.classic.Level.OFF
+                : ch.qos.logback.classic.Level.DEBUG;
+        loggerContext.getLogger("org.example.echo01").setLevel(level);
+        loggerContext.getLogger("org.springframework.security").setLevel(level);
+        if (logging.equals("off")) {
+            return;
+        }
+
+        Encoder<ILoggingEvent> encoder;
+        if (logging.equals("sync")) {
+            PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+            pattern.setPattern("%d %p %C{1} [%t] %X{requestId} %m%n");
+            encoder = pattern;
+        } else {
+            encoder = new JsonLogEncoder();
+        }
+        encoder.setContext(loggerContext);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(loggerContext);
+        file.setName("BenchmarkFile");
+        file.setFile(LOG_FILE.formatted(logging));
+        file.setAppend(false);
+        file.setEncoder(encoder);
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        if (logging.equals("async")) {
+            DiscardingAsyncAppender async = new DiscardingAsyncAppender();
+            async.setContext(loggerContext);
+            async.setName("BenchmarkAsync");
+            async.setQueueSize(8192);
+            async.addAppender(file);
+            async.start();
+            asyncAppender = async;
+            appender = async;
+        }
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.echo01.common.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtlpTraceExporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TracingProperties.Otlp properties = new TracingProperties.Otlp();
+    // Stands in for an OpenTelemetry collector's OTLP/HTTP receiver
+    private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+    private HttpServer collector;
+    private volatile int collectorStatus = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/v1/traces", exchange -> {
+            received.add(objectMapper.readTree(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(collectorStatus, -1);
+            exchange.close();
+        });
+        collector.start();
+        properties.setEndpoint("http://localhost:" + collector.getAddress().getPort() + "/v1/traces");
+        properties.setBatchSize(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        collector.stop(0);
+    }
+
+    @Test
+    void whenTracesAreFlushed_thenCollectorReceivesRequestAndStageSpans() {
+        OtlpTraceExporter exporter = new OtlpTraceExporter(properties, objectMapper, meterRegistry);
+        exporter.accept(trace());
+        exporter.accept(trace());
+        exporter.accept(trace());
+
+        exporter.flush();
+
+        // batch-size 2: two requests
+        assertEquals(2, received.size());
+        JsonNode resourceSpans = received.get(0).get("resourceSpans").get(0);
+        assertEquals("echo01", resourceSpans.at("/resource/attributes/0/value/stringValue").asText());
+        JsonNode spans = resourceSpans.at("/scopeSpans/0/spans");
+        assertEquals(6, spans.size());
+        JsonNode root = spans.get(0);
+        JsonNode login = spans.get(1);
+        JsonNode hash = spans.get(2);
+        assertEquals("POST /api/v1/auth/login", root.get("name").asText());
+        assertEquals(2, root.get("kind").asInt());
+        assertFalse(root.has("parentSpanId"));
+        assertEquals(root.get("spanId"), login.get("parentSpanId"));
+        assertEquals(login.get("spanId"), hash.get("parentSpanId"));
+        assertEquals(root.get("traceId"), hash.get("traceId"));
+        assertTrue(root.get("traceId").asText().matches("[0-9a-f]{32}"));
+        assertTrue(hash.get("endTimeUnixNano").asLong() <= root.get("endTimeUnixNano").asLong());
+        assertEquals(3, meterRegistry.get("tracing.export.traces").counter().count());
+    }
+
+    @Test
+    void whenQueueIsFull_thenTracesAreDroppedAndCounted() {
+        properties.setQueueCapacity(1);
+        OtlpTraceExporter exporter = new OtlpTraceExporter(properties, objectMapper, meterRegistry);
+
+        exporter.accept(trace());
+        exporter.accept(trace());
+
+        assertEquals(1, meterRegistry.get("tracing.export.dropped").counter().count());
+    }
+
+    @Test
+    void whenCollectorRefusesBatch_thenItIsCountedAsFailed() {
+        collectorStatus = 503;
+        OtlpTraceExporter exporter = new OtlpTraceExporter(properties, objectMapper, meterRegistry);
+        exporter.accept(trace());
+
+        exporter.flush();
+
+        assertEquals(1, meterRegistry.get("tracing.export.failures").counter().count());
+        assertEquals(0, meterRegistry.get("tracing.export.traces").counter().count());
+    }
+
+    private static Trace trace() {
+        Trace trace = Trace.begin("req-1", "POST", "/api/v1/auth/login", 8);
+        int login = trace.open("AuthenticationService.login");
+        trace.close(trace.open("OffloadingPasswordEncoder.matches"));
+        trace.close(login);
+        trace.finish("/api/v1/auth/login", 200);
+        return trace;
+    }
+}
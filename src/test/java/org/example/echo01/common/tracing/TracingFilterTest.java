@@ -0,0 +1,123 @@
+package org.example.echo01.common.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracingFilterTest {
+
+    private final TracingProperties properties = new TracingProperties();
+    private final TraceBuffer buffer = new TraceBuffer(8);
+    private final List<Trace> exported = new ArrayList<>();
+
+    public static class Hasher {
+        public boolean matches(String password) {
+            return !password.isEmpty();
+        }
+    }
+
+    public static class Login {
+        private final Hasher hasher;
+
+        public Login(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        public boolean login(String password) {
+            return hasher.matches(password) && hasher.matches(password);
+        }
+
+        public String untraced() {
+            return "untraced";
+        }
+    }
+
+    private Login proxiedLogin() {
+        Hasher hasher = (Hasher) proxy(new Hasher());
+        return (Login) proxy(new Login(hasher));
+    }
+
+    private Object proxy(Object target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new DefaultPointcutAdvisor(
+                new TracedMethodPointcut(Set.of("Login.login", "Hasher.*")), new TracingInterceptor()));
+        return factory.getProxy();
+    }
+
+    @Test
+    void whenRequestCallsStages_thenTheyAreRecordedAsNestedSpans() throws Exception {
+        Login login = proxiedLogin();
+
+        handle(() -> {
+            login.login("secret");
+            login.untraced();
+        });
+
+        Trace trace = buffer.slowest(1).get(0);
+        assertEquals("/api/v1/auth/login", trace.route());
+        assertEquals(200, trace.status());
+        assertEquals(List.of("Login.login", "Hasher.matches", "Hasher.matches"),
+                trace.spans().stream().map(Trace.Span::name).toList());
+        assertEquals(List.of(-1, 0, 0), trace.spans().stream().map(Trace.Span::parent).toList());
+        assertTrue(trace.spans().stream().allMatch(span -> span.durationNanos() >= 0));
+        assertEquals(List.of(trace), exported);
+        assertNull(Trace.current());
+
+        TracesEndpoint.TraceView view = new TracesEndpoint(buffer).slowest().get(0);
+        assertEquals(2, view.stages().get("Hasher.matches").calls());
+        assertEquals(1, view.spans().get(1).depth());
+    }
+
+    @Test
+    void whenCallTreeExceedsMaxSpans_thenTheRestIsCountedAsDropped() throws Exception {
+        properties.setMaxSpans(2);
+        Login login = proxiedLogin();
+
+        handle(() -> login.login("secret"));
+
+        Trace trace = buffer.slowest(1).get(0);
+        assertEquals(2, trace.spans().size());
+        assertEquals(1, trace.droppedSpans());
+    }
+
+    @Test
+    void whenRequestIsNotSampled_thenNothingIsRecorded() throws Exception {
+        properties.setSampleRate(0.0);
+        Login login = proxiedLogin();
+
+        handle(() -> assertNull(Trace.current()));
+        login.login("secret");
+
+        assertTrue(buffer.slowest(10).isEmpty());
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    void whenBufferIsFull_thenTheOldestTracesAreOverwritten() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            handle(() -> { });
+        }
+
+        assertEquals(8, buffer.slowest(100).size());
+        assertFalse(buffer.slowest(100).contains(exported.get(0)));
+    }
+
+    private void handle(Runnable handler) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        new TracingFilter(properties, buffer, exported::add).doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/auth/login");
+                    handler.run();
+                });
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.echo01.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.common.exceptions.TooManyRequestsException;
+import org.example.echo01.config.ratelimit.RateLimitKey;
+import org.example.echo01.config.ratelimit.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.server.PathContainer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitConfigTest {
+
+    private static final PathContainer POSTS = PathContainer.parsePath("/api/v1/posts/42");
+    private static final PathContainer LOGIN = PathContainer.parsePath("/api/v1/auth/login");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void whenCallerHasRole_thenTierPolicyAppliesPerPrincipal() {
+        RateLimitConfig config = config(properties());
+        User alice = user("alice@example.com", Role.USER);
+        User bob = user("bob@example.com", Role.USER);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(config.tryConsume(POSTS, alice, "10.0.0.1").consumed());
+        }
+        assertFalse(config.tryConsume(POSTS, alice, "10.0.0.2").consumed());
+        // Same office IP, different user: own bucket
+        assertTrue(config.tryConsume(POSTS, bob, "10.0.0.1").consumed());
+        assertEquals(4, config.tryConsume(POSTS, user("carol@example.com", Role.ADMIN), "10.0.0.1").remainingTokens());
+    }
+
+    @Test
+    void whenAnonymous_thenRoutesAreMatchedByPatternAndLimitedPerIp() {
+        RateLimitConfig config = config(properties());
+
+        assertEquals("/api/v1/auth/**[anonymous]", config.policies().resolve(null, LOGIN).id());
+        assertEquals("default", config.policies().resolve(null, POSTS).id());
+        assertEquals("default", config.policies().resolve(null, PathContainer.parsePath("/api/v1/authors")).id());
+        assertTrue(config.tryConsume(LOGIN, null, "10.0.0.1").consumed());
+        assertFalse(config.tryConsume(LOGIN, null, "10.0.0.1").consumed());
+        assertTrue(config.tryConsume(LOGIN, null, "10.0.0.2").consumed());
+    }
+
+    @Test
+    void whenFailedLoginsForOneEmailExceedLimit_thenRejectedWithRetryAfter() {
+        RateLimitConfig config = config(properties());
+
+        config.checkLoginAttempt("victim@example.com");
+        config.recordFailedLogin("victim@example.com");
+        config.checkLoginAttempt("Victim@Example.com ");
+        config.recordFailedLogin("Victim@Example.com ");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> config.checkLoginAttempt("victim@example.com"));
+        assertEquals(60, e.getRetryAfterSeconds());
+        config.checkLoginAttempt("someone-else@example.com");
+    }
+
+    @Test
+    void whenLoginsSucceed_thenTheyAreNeverLimited() {
+        RateLimitConfig config = config(properties());
+
+        for (int i = 0; i < 10; i++) {
+            config.checkLoginAttempt("alice@example.com");
+        }
+    }
+
+    @Test
+    void whenPolicyFileChanges_thenPoliciesAreReloadedKeepingBuckets() throws IOException {
+        Path file = tempDir.resolve("rate-limit.properties");
+        Files.writeString(file, "application.rate-limit.routes[0].pattern=/api/v1/posts/*\n"
+                + "application.rate-limit.routes[0].capacity=1\n");
+        RateLimitProperties properties = properties();
+        properties.setPolicyFile(file.toString());
+        RateLimitConfig config = config(properties);
+        User alice = user("alice@example.com", Role.USER);
+
+        assertEquals("/api/v1/posts/*", config.policies().resolve(alice, POSTS).id());
+        assertTrue(config.tryConsume(POSTS, alice, "10.0.0.1").consumed());
+        assertFalse(config.tryConsume(POSTS, alice, "10.0.0.1").consumed());
+
+        Files.writeString(file, "application.rate-limit.routes[0].pattern=/api/v1/posts/*\n"
+                + "application.rate-limit.routes[0].capacity=5\n"
+                + "application.rate-limit.routes[1].pattern=/api/v1/comments/**\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        config.reloadPolicies();
+
+        assertEquals("/api/v1/comments/**", config.policies()
+                .resolve(alice, PathContainer.parsePath("/api/v1/comments/7")).id());
+        // The bucket survived the reload: still empty, only the capacity grew
+        assertFalse(config.tryConsume(POSTS, alice, "10.0.0.1").consumed());
+
+        Files.writeString(file, "application.rate-limit.routes[0].pattern=/api/**/posts\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 20_000));
+        config.reloadPolicies();
+        assertEquals("/api/v1/comments/**", config.policies()
+                .resolve(alice, PathContainer.parsePath("/api/v1/comments/7")).id());
+    }
+
+    private static RateLimitProperties properties() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setCapacity(2);
+        properties.setRefillTokens(2);
+        properties.setStripes(2);
+        properties.getLogin().setCapacity(2);
+        properties.getLogin().setRefillTokens(2);
+        properties.getLogin().setRefillPeriod(Duration.ofMinutes(1));
+
+        RateLimitProperties.Route login = new RateLimitProperties.Route();
+        login.setPattern("/api/v1/auth/**");
+        login.setRoles(List.of("anonymous"));
+        login.setCapacity(1L);
+        login.setRefillTokens(1L);
+        RateLimitProperties.Route admins = new RateLimitProperties.Route();
+        admins.setPattern("/api/**");
+        admins.setRoles(List.of("ADMIN"));
+        admins.setKey(RateLimitKey.PRINCIPAL);
+        admins.setCapacity(5L);
+        admins.setRefillTokens(5L);
+        RateLimitProperties.Route users = new RateLimitProperties.Route();
+        users.setPattern("/api/**");
+        users.setRoles(List.of("USER", "AUTHOR"));
+        users.setKey(RateLimitKey.PRINCIPAL);
+        users.setCapacity(3L);
+        users.setRefillTokens(3L);
+        properties.setRoutes(List.of(login, admins, users));
+        return properties;
+    }
+
+    private static RateLimitConfig config(RateLimitProperties properties) {
+        return new RateLimitConfig(properties, new StandardEnvironment(), new SimpleMeterRegistry(),
+                new StaticListableBeanFactory().getBeanProvider(DataSource.class));
+    }
+
+    private static User user(String email, Role role) {
+        return User.builder().id(1L).email(email).role(role).build();
+    }
+}
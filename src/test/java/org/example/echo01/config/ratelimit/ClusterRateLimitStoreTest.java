@@ -0,0 +1,160 @@
+package org.example.echo01.config.ratelimit;
+
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several application contexts, each with its own cluster store, share one embedded database
+ * (H2 in PostgreSQL mode), exercising the same SQL the application runs against Postgres.
+ */
+class ClusterRateLimitStoreTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimitStoreTest.class);
+
+    private static final int NODES = 3;
+    private static final int THREADS_PER_NODE = 4;
+    private static final String URL = "jdbc:h2:mem:rate-limit-cluster;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+
+    @Configuration
+    static class NodeConfig {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource(URL, "sa", "");
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ProxyManager<String> proxyManager(DataSource dataSource) {
+            return new JdbcBucketProxyManager(dataSource, "rate_limit_buckets");
+        }
+
+        @Bean
+        ClusterRateLimitStore clusterRateLimitStore(ProxyManager<String> proxyManager, MeterRegistry meterRegistry) {
+            return new ClusterRateLimitStore(proxyManager, new StripedRateLimitStore(16), 10,
+                    Duration.ofMinutes(1), Duration.ofMinutes(10), meterRegistry);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rate_limit_buckets (id VARCHAR(512) PRIMARY KEY, state BYTEA)");
+        jdbcTemplate.execute("DELETE FROM rate_limit_buckets");
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new AnnotationConfigApplicationContext(NodeConfig.class));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    @Test
+    void whenAllNodesHammerOneClient_thenClusterNeverExceedsTheLimit() throws Exception {
+        RateLimit limit = new RateLimit(1_000, 1, Duration.ofDays(1));
+
+        long consumed = hammer(limit, 600, i -> "client");
+
+        assertTrue(consumed <= 1_000, "consumed " + consumed);
+        nodes.forEach(node -> node.getBean(ClusterRateLimitStore.class).releaseAll());
+        @SuppressWarnings("unchecked")
+        ProxyManager<String> proxyManager = nodes.get(0).getBean(ProxyManager.class);
+        long remaining = proxyManager.builder().build("client", () -> { throw new AssertionError("bucket must exist"); })
+                .getAvailableTokens();
+        assertEquals(1_000, consumed + remaining);
+    }
+
+    @Test
+    void whenClientsAreSpreadOut_thenMostRequestsAreServedFromReservations() throws Exception {
+        RateLimit limit = new RateLimit(1_000, 1_000, Duration.ofMinutes(1));
+        int perThread = 2_000;
+
+        long start = System.nanoTime();
+        long consumed = hammer(limit, perThread, i -> "client-" + (i % 50));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long requests = (long) NODES * THREADS_PER_NODE * perThread;
+        double syncs = nodes.stream()
+                .mapToDouble(node -> node.getBean(MeterRegistry.class).get("rate.limit.cluster.syncs").counter().count())
+                .sum();
+        logger.info("{} requests across {} nodes in {}s ({} req/s), {} database syncs",
+                requests, NODES, String.format("%.2f", seconds), (long) (requests / seconds), (long) syncs);
+        assertEquals(requests, consumed);
+        assertTrue(syncs <= requests / 5.0, "syncs " + syncs);
+    }
+
+    @Test
+    void whenOneNodeDrainsTheBucket_thenAnotherEstimatesItEmptyWithoutTakingTokens() {
+        RateLimit limit = new RateLimit(3, 3, Duration.ofMinutes(15));
+        ClusterRateLimitStore first = nodes.get(0).getBean(ClusterRateLimitStore.class);
+        ClusterRateLimitStore second = nodes.get(1).getBean(ClusterRateLimitStore.class);
+
+        assertTrue(second.estimate("login", limit, 1).consumed());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(first.tryConsume("login", limit, 1, 1).consumed());
+        }
+
+        RateLimitProbe estimate = second.estimate("login", limit, 1);
+        assertFalse(estimate.consumed());
+        assertTrue(estimate.nanosToWaitForRefill() > 0);
+    }
+
+    private long hammer(RateLimit limit, int perThread, java.util.function.IntFunction<String> keys) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong consumed = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (AnnotationConfigApplicationContext node : nodes) {
+            ClusterRateLimitStore store = node.getBean(ClusterRateLimitStore.class);
+            for (int t = 0; t < THREADS_PER_NODE; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        if (store.tryConsume(keys.apply(i), limit, 1).consumed()) {
+                            consumed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        return consumed.get();
+    }
+}
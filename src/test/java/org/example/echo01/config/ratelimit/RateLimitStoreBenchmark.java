@@ -0,0 +1,82 @@
+package org.example.echo01.config.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit lookups across 1M distinct client keys from 64 threads. {@code striped} is the
+ * current store; {@code caffeineBucket} is the previous Caffeine + bucket4j design, with
+ * {@code caffeineMaxSize} at the old 100 (where buckets are evicted and recreated full, i.e.
+ * limiting silently stops) or large enough to hold every key. {@code tryConsumeHotKey} has every
+ * thread hit the same key (one client, or one shared principal behind a NAT), the worst case for
+ * contention on a single bucket; its limit is exhausted, so it measures the rejecting path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RateLimitStoreBenchmark {
+
+    private static final int KEYS = 1_000_000;
+    private static final RateLimit LIMIT = new RateLimit(10, 10, Duration.ofMinutes(1));
+
+    @Param({"striped", "caffeineBucket"})
+    public String store;
+
+    @Param({"1000000"})
+    public long caffeineMaxSize;
+
+    private String[] keys;
+    private StripedRateLimitStore stripedStore;
+    private Cache<String, Bucket> buckets;
+
+    @Setup
+    public void setUp() {
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+        }
+        stripedStore = new StripedRateLimitStore(4 * Runtime.getRuntime().availableProcessors());
+        buckets = Caffeine.newBuilder()
+                .maximumSize(caffeineMaxSize)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        // Start from a populated store, as in steady state
+        for (String key : keys) {
+            tryConsume(key);
+        }
+    }
+
+    @Benchmark
+    public boolean tryConsume() {
+        return tryConsume(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public boolean tryConsumeHotKey() {
+        return tryConsume(keys[0]);
+    }
+
+    private boolean tryConsume(String key) {
+        if ("striped".equals(store)) {
+            return stripedStore.tryConsume(key, LIMIT, 1).consumed();
+        }
+        return buckets.get(key, k -> Bucket.builder()
+                        .addLimit(Bandwidth.builder()
+                                .capacity(LIMIT.capacity())
+                                .refillIntervally(LIMIT.refillTokens(), LIMIT.refillPeriod())
+                                .build())
+                        .build())
+                .tryConsume(1);
+    }
+}
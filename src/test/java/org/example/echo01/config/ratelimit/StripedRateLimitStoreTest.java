@@ -0,0 +1,108 @@
+package org.example.echo01.config.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimitStoreTest {
+
+    private static final RateLimit LIMIT = new RateLimit(10, 10, Duration.ofMinutes(1));
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final StripedRateLimitStore store = new StripedRateLimitStore(8, clock::get);
+
+    @Test
+    void whenManyKeysAreActive_thenEachIsStillLimited() {
+        for (int i = 0; i < 10_000; i++) {
+            for (int n = 0; n < 10; n++) {
+                assertTrue(store.tryConsume("10.0." + i, LIMIT, 1).consumed());
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(store.tryConsume("10.0." + i, LIMIT, 1).consumed());
+        }
+        assertEquals(10_000, store.size());
+    }
+
+    @Test
+    void whenEstimated_thenNothingIsTaken() {
+        assertEquals(9, store.estimate("client", LIMIT, 1).remainingTokens());
+        drain("client");
+
+        RateLimitProbe estimate = store.estimate("client", LIMIT, 1);
+
+        assertFalse(estimate.consumed());
+        assertEquals(TimeUnit.MINUTES.toNanos(1), estimate.nanosToWaitForRefill());
+        clock.addAndGet(60_000);
+        assertEquals(9, store.estimate("client", LIMIT, 1).remainingTokens());
+        assertEquals(9, store.tryConsume("client", LIMIT, 1).remainingTokens());
+    }
+
+    @Test
+    void whenPeriodElapses_thenBucketIsRefilledOnce() {
+        drain("client");
+        clock.addAndGet(30_000);
+
+        RateLimitProbe rejected = store.tryConsume("client", LIMIT, 1);
+        assertFalse(rejected.consumed());
+        assertEquals(TimeUnit.SECONDS.toNanos(30), rejected.nanosToWaitForRefill());
+
+        clock.addAndGet(30_000);
+        RateLimitProbe consumed = store.tryConsume("client", LIMIT, 1);
+        assertTrue(consumed.consumed());
+        assertEquals(9, consumed.remainingTokens());
+    }
+
+    @Test
+    void whenIdleForLongerThanTimeout_thenKeyIsEvicted() {
+        drain("idle");
+        clock.addAndGet(Duration.ofMinutes(5).toMillis());
+        drain("active");
+
+        assertEquals(1, store.evictIdle(Duration.ofMinutes(2).toMillis()));
+        assertEquals(1, store.size());
+        assertFalse(store.tryConsume("active", LIMIT, 1).consumed());
+        assertTrue(store.tryConsume("idle", LIMIT, 1).consumed());
+    }
+
+    @Test
+    void whenManyThreadsShareOneKey_thenExactlyCapacityIsConsumed() throws Exception {
+        RateLimit limit = new RateLimit(1_000, 1, Duration.ofDays(1));
+        AtomicInteger consumed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (store.tryConsume("shared", limit, 1).consumed()) {
+                        consumed.incrementAndGet();
+                    }
+                    // New keys force inserts and rehashes on the same stripes meanwhile
+                    store.tryConsume("other-" + Thread.currentThread().getId() + "-" + i, limit, 1);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1_000, consumed.get());
+    }
+
+    private void drain(String key) {
+        for (int n = 0; n < 10; n++) {
+            assertTrue(store.tryConsume(key, LIMIT, 1).consumed());
+        }
+        assertFalse(store.tryConsume(key, LIMIT, 1).consumed());
+    }
+}
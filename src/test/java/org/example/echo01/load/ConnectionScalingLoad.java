@@ -0,0 +1,201 @@
+package org.example.echo01.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-model load against a running instance: {@code connections} clients each send an
+ * authenticated request, wait for the answer and send the next, for {@code duration} seconds after
+ * {@code warmup}. Used to compare Tomcat's platform thread pool with virtual threads
+ * ({@code spring.threads.virtual.enabled}) at high connection counts. The clients are asynchronous,
+ * so even 10k connections need only a couple of client threads; run the server in its own JVM.
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(deps) org.example.echo01.load.ConnectionScalingLoad \
+ *     --url=http://localhost:8080 --path=/actuator/health --connections=1000 --duration=30
+ * </pre>
+ * Registers a fresh user to obtain the bearer token, so the stateful filter does its token and
+ * user lookups on every request.
+ * <p>
+ * With {@code --idle=true} it instead opens {@code connections} keep-alive connections with one
+ * request each and leaves them idle for {@code duration} seconds, to measure what idle connections
+ * cost the server (heap, RSS) in the servlet and the {@code reactive} profile.
+ */
+public class ConnectionScalingLoad {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final HttpClient client;
+    private final URI target;
+    private final String token;
+    private final Histogram latencies = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean recording;
+    private volatile boolean running = true;
+
+    private ConnectionScalingLoad(HttpClient client, URI target, String token) {
+        this.client = client;
+        this.target = target;
+        this.token = token;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int connections = Integer.parseInt(options.getOrDefault("connections", "1000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        boolean idle = Boolean.parseBoolean(options.getOrDefault("idle", "false"));
+        if (idle) {
+            // Must be set before the client is created; the default closes pooled connections after 30s
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(duration + 60));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newFixedThreadPool(2))
+                .build();
+        ConnectionScalingLoad load = new ConnectionScalingLoad(client,
+                URI.create(url + options.getOrDefault("path", "/actuator/health")), register(client, url));
+        if (idle) {
+            load.holdIdle(connections, duration);
+        } else {
+            load.run(connections, warmup, duration);
+        }
+    }
+
+    /**
+     * Every body is left unread until all responses have arrived, so no connection returns to the
+     * client's pool early and each request needs a connection of its own.
+     */
+    private void holdIdle(int connections, int holdSeconds) throws Exception {
+        List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            responses.add(client.sendAsync(request(), HttpResponse.BodyHandlers.ofInputStream()));
+            if (i % 100 == 99) {
+                Thread.sleep(10);
+            }
+        }
+        for (CompletableFuture<HttpResponse<InputStream>> response : responses) {
+            try (InputStream body = response.get(60, TimeUnit.SECONDS).body()) {
+                body.readAllBytes();
+            } catch (ExecutionException | TimeoutException e) {
+                errors.incrementAndGet();
+            }
+        }
+        System.out.printf("idle connections=%d errors=%d, holding for %ds%n", connections, errors.get(), holdSeconds);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(holdSeconds));
+        System.exit(0);
+    }
+
+    private void run(int connections, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            next(finished);
+            if (i % 100 == 99) {
+                // Ramp up so the connection storm does not overflow the server's accept backlog
+                Thread.sleep(10);
+            }
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+        synchronized (latencies) {
+            latencies.reset();
+        }
+        errors.set(0);
+        recording = true;
+        long start = System.nanoTime();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+        recording = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        finished.await(60, TimeUnit.SECONDS);
+
+        synchronized (latencies) {
+            System.out.printf("connections=%d requests=%d errors=%d throughput=%.0f/s "
+                            + "p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms%n",
+                    connections, latencies.getTotalCount(), errors.get(), latencies.getTotalCount() / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+        }
+        System.exit(0);
+    }
+
+    private void next(CountDownLatch finished) {
+        if (!running) {
+            finished.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        client.sendAsync(request(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if (recording) {
+                if (failure != null || response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                } else {
+                    synchronized (latencies) {
+                        latencies.recordValue(Math.min(System.nanoTime() - sent, latencies.getHighestTrackableValue()));
+                    }
+                }
+            }
+            next(finished);
+        });
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(target)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    private static String register(HttpClient client, String url) throws Exception {
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        String body = """
+                {"firstname":"Load","lastname":"Test","email":"%s","password":"password123"}
+                """.formatted(email);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/api/v1/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ACCESS_TOKEN.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Registration failed: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,437 @@
+package org.example.echo01.load;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.echo01.Echo01Application;
+import org.example.echo01.auth.entities.User;
+import org.example.echo01.auth.enums.Role;
+import org.example.echo01.auth.repositories.UserRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model load against the application booted in-process on an in-memory H2 database in
+ * PostgreSQL mode, so it needs no external services. Seeds {@code users} accounts, then starts
+ * {@code rate} operations per second drawn from {@code mix}, whether or not earlier ones have
+ * completed, for {@code duration} seconds after {@code warmup}. Latency is measured from each
+ * operation's scheduled start, so a server that falls behind shows in the percentiles instead of
+ * silently lowering the rate (coordinated omission).
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(deps) org.example.echo01.load.MixedTrafficLoad \
+ *     --rate=500 --users=2000 --warmup=15 --duration=60 --mix=register:5,login:10,refresh:15,call:65,logout:5 \
+ *     --application.security.jwt.authentication-mode=stateless
+ * </pre>
+ * Options starting with {@code spring.}, {@code server.}, {@code logging.} or {@code application.}
+ * are passed to the application, e.g. the hashing cost or virtual threads; rate limits are raised
+ * so that they never reject. Each seeded user holds one session: {@code login} replaces it,
+ * {@code refresh} rotates it, {@code call} sends its access token to {@link PingRoute} and
+ * {@code logout} ends it; an operation on a user without a session logs in instead.
+ * <p>
+ * The report gives, per operation, throughput, errors, p50/p99/p999/max latency and the JDBC
+ * statements per request, read from the application's {@code db.request.statements} meters, then
+ * the GC pauses. Client and server share the JVM, so the pauses include the client's own
+ * collections.
+ */
+public class MixedTrafficLoad {
+
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern REFRESH_TOKEN = Pattern.compile("\"refreshToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final String PASSWORD = "password123";
+    private static final long MAX_LATENCY = TimeUnit.SECONDS.toNanos(60);
+
+    enum Operation {
+        REGISTER("/api/v1/auth/register"),
+        LOGIN("/api/v1/auth/login"),
+        REFRESH("/api/v1/auth/refresh-token"),
+        CALL(PingRoute.PATH),
+        LOGOUT("/api/v1/auth/logout");
+
+        final String path;
+
+        Operation(String path) {
+            this.path = path;
+        }
+    }
+
+    private static final class Session {
+        final String email;
+        final AtomicBoolean busy = new AtomicBoolean();
+        volatile String accessToken;
+        volatile String refreshToken;
+
+        Session(String email) {
+            this.email = email;
+        }
+    }
+
+    private static final class Stats {
+        final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final MeterRegistry meterRegistry;
+    private final Session[] sessions;
+    private final Operation[] mix;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Histogram gcPauses = new ConcurrentHistogram(MAX_LATENCY, 3);
+    private final LongAdder gcPauseMillis = new LongAdder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean recording;
+    private Map<String, double[]> statementsBeforeRecording = Map.of();
+
+    private MixedTrafficLoad(HttpClient client, String baseUrl, MeterRegistry meterRegistry, Session[] sessions,
+                             Operation[] mix) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.meterRegistry = meterRegistry;
+        this.sessions = sessions;
+        this.mix = mix;
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // HttpClient completes responses on the common pool, which on one or two cores starts a thread per task
+        System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "4");
+        Map<String, String> options = options(args);
+        int rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int maxOutstanding = Integer.parseInt(options.getOrDefault("max-outstanding", "10000"));
+        Operation[] mix = mix(options.getOrDefault("mix", "register:5,login:10,refresh:15,call:65,logout:5"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                Echo01Application.class, PingRoute.class)
+                .run(applicationArgs(options));
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        Session[] sessions = seed(context, users);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        MixedTrafficLoad load = new MixedTrafficLoad(
+                client, baseUrl, context.getBean(MeterRegistry.class), sessions, mix);
+        load.recordGcPauses();
+        load.run(rate, warmup, duration, maxOutstanding);
+        context.close();
+        System.exit(0);
+    }
+
+    private void run(int rate, int warmupSeconds, int durationSeconds, int maxOutstanding) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                break;
+            }
+            if (!recording && scheduled >= measureFrom) {
+                stats.values().forEach(s -> {
+                    s.latencies.reset();
+                    s.errors.reset();
+                });
+                gcPauses.reset();
+                gcPauseMillis.reset();
+                dropped.reset();
+                statementsBeforeRecording = statementTotals();
+                recording = true;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (outstanding.get() >= maxOutstanding) {
+                dropped.increment();
+                continue;
+            }
+            start(scheduled);
+        }
+        for (int i = 0; i < 600 && outstanding.get() > 0; i++) {
+            Thread.sleep(100);
+        }
+        recording = false;
+        report(rate, durationSeconds);
+    }
+
+    private void start(long scheduled) {
+        Operation operation = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+        if (operation == Operation.REGISTER) {
+            send(operation, post(operation, """
+                    {"firstname":"Load","lastname":"Test","email":"%s","password":"%s"}
+                    """.formatted("load-" + UUID.randomUUID() + "@example.com", PASSWORD), null), scheduled, null);
+            return;
+        }
+        Session session = acquire();
+        if (session == null) {
+            dropped.increment();
+            return;
+        }
+        if (session.accessToken == null) {
+            operation = Operation.LOGIN;
+        }
+        HttpRequest request = switch (operation) {
+            case LOGIN -> post(operation, """
+                    {"email":"%s","password":"%s"}
+                    """.formatted(session.email, PASSWORD), null);
+            case REFRESH -> post(operation, "", session.refreshToken);
+            case LOGOUT -> post(operation, "", session.accessToken);
+            default -> HttpRequest.newBuilder(URI.create(baseUrl + operation.path))
+                    .header("Authorization", "Bearer " + session.accessToken)
+                    .GET()
+                    .build();
+        };
+        send(operation, request, scheduled, session);
+    }
+
+    private void send(Operation operation, HttpRequest request, long scheduled, Session session) {
+        outstanding.incrementAndGet();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+            long latency = System.nanoTime() - scheduled;
+            boolean ok = failure == null && response.statusCode() == 200;
+            if (session != null) {
+                update(session, operation, ok ? response.body() : null);
+                session.busy.set(false);
+            }
+            if (recording) {
+                Stats s = stats.get(operation);
+                s.latencies.recordValue(Math.min(latency, MAX_LATENCY));
+                if (!ok) {
+                    s.errors.increment();
+                }
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    // A failed refresh or logout leaves the session unusable, so the next operation logs in again
+    private static void update(Session session, Operation operation, String body) {
+        if (body == null || operation == Operation.LOGOUT) {
+            if (operation != Operation.CALL) {
+                session.accessToken = null;
+                session.refreshToken = null;
+            }
+            return;
+        }
+        if (operation == Operation.LOGIN || operation == Operation.REFRESH) {
+            session.accessToken = token(ACCESS_TOKEN, body);
+            session.refreshToken = token(REFRESH_TOKEN, body);
+        }
+    }
+
+    // Operations on one session are never in flight together, or a rotation would fail the other
+    private Session acquire() {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            Session session = sessions[ThreadLocalRandom.current().nextInt(sessions.length)];
+            if (session.busy.compareAndSet(false, true)) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    private HttpRequest post(Operation operation, String body, String bearerToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + operation.path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (bearerToken != null) {
+            builder.header("Authorization", "Bearer " + bearerToken);
+        }
+        return builder.build();
+    }
+
+    private void report(int rate, int durationSeconds) {
+        Map<String, double[]> statements = statementTotals();
+        System.out.printf("target=%d/s dropped=%d%n", rate, dropped.sum());
+        System.out.printf("%-9s %9s %7s %10s %9s %9s %9s %9s %11s%n",
+                "operation", "requests", "errors", "rate/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "stmts/req");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram latencies = stats.get(operation).latencies;
+            total += latencies.getTotalCount();
+            System.out.printf("%-9s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %11.2f%n",
+                    operation.name().toLowerCase(), latencies.getTotalCount(), stats.get(operation).errors.sum(),
+                    (double) latencies.getTotalCount() / durationSeconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()),
+                    statementsPerRequest(statements, operation.path));
+        }
+        System.out.printf("total     %9d %18.1f%n", total, (double) total / durationSeconds);
+        System.out.printf("gc pauses=%d total=%dms p99=%.2fms max=%.2fms%n", gcPauses.getTotalCount(),
+                gcPauseMillis.sum(), millis(gcPauses.getValueAtPercentile(99)), millis(gcPauses.getMaxValue()));
+    }
+
+    /**
+     * Requests and statements so far by endpoint. Every route the load calls is its own endpoint
+     * tag: the controller and {@link PingRoute} patterns have no variables, and logout, which no
+     * handler serves, is tagged with its path because it has a query budget.
+     */
+    private Map<String, double[]> statementTotals() {
+        Map<String, double[]> totals = new HashMap<>();
+        for (DistributionSummary summary : meterRegistry.find("db.request.statements").summaries()) {
+            double[] total = totals.computeIfAbsent(summary.getId().getTag("endpoint"), endpoint -> new double[2]);
+            total[0] += summary.count();
+            total[1] += summary.totalAmount();
+        }
+        return totals;
+    }
+
+    /** Statements per request to {@code path} while recording, or NaN without requests. */
+    private double statementsPerRequest(Map<String, double[]> statements, String path) {
+        double[] total = statements.getOrDefault(path, new double[2]);
+        double[] before = statementsBeforeRecording.getOrDefault(path, new double[2]);
+        double requests = total[0] - before[0];
+        return requests == 0 ? Double.NaN : (total[1] - before[1]) / requests;
+    }
+
+    // Concurrent collector phases are reported by beans of their own ("G1 Concurrent GC", "ZGC Major Cycles"); only pauses count
+    private void recordGcPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector.getName().contains("Concurrent") || collector.getName().contains("Cycles")) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (recording && GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    var info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    long pauseMillis = info.getGcInfo().getDuration();
+                    gcPauses.recordValue(Math.min(TimeUnit.MILLISECONDS.toNanos(pauseMillis), MAX_LATENCY));
+                    gcPauseMillis.add(pauseMillis);
+                }
+            }, null, null);
+        }
+    }
+
+    // Every account shares one hash, so seeding does not cost a hash per user
+    private static Session[] seed(ConfigurableApplicationContext context, int users) {
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        Session[] sessions = new Session[users];
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String email = "seed-" + i + "@example.com";
+            sessions[i] = new Session(email);
+            batch.add(User.builder()
+                    .firstname("Seed")
+                    .lastname(String.valueOf(i))
+                    .email(email)
+                    .password(hash)
+                    .role(Role.USER)
+                    .build());
+            if (batch.size() == 1000 || i == users - 1) {
+                userRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        return sessions;
+    }
+
+    private static String[] applicationArgs(Map<String, String> options) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database", "h2");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("spring.liquibase.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.example.echo01", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.put("logging.file.name", "");
+        properties.put("application.instrumentation.enabled", "false");
+        // Statements are counted per request, but budget warnings would flood the report
+        properties.put("logging.level.org.example.echo01.common.jdbc", "ERROR");
+        // Every client comes from 127.0.0.1 and every login is for a seeded user: never reject
+        properties.put("application.rate-limit.capacity", "10000000");
+        properties.put("application.rate-limit.refill-tokens", "10000000");
+        properties.put("application.rate-limit.refill-period", "1000");
+        properties.put("application.rate-limit.login.capacity", "10000000");
+        properties.put("application.rate-limit.login.refill-tokens", "10000000");
+        properties.put("application.rate-limit.login.refill-period", "1000");
+        // A list is bound from one source only, so this replaces the shipped routes
+        properties.put("application.rate-limit.routes[0].pattern", "/api/**");
+        properties.put("application.rate-limit.routes[0].key", "principal");
+        options.forEach((key, value) -> {
+            if (key.startsWith("spring.") || key.startsWith("server.") || key.startsWith("logging.")
+                    || key.startsWith("application.")) {
+                properties.put(key, value);
+            }
+        });
+        return properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static Operation[] mix(String weights) {
+        List<Operation> operations = new ArrayList<>();
+        for (String weight : weights.split(",")) {
+            String[] parts = weight.split(":");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(parts[1].trim()); i++) {
+                operations.add(operation);
+            }
+        }
+        return operations.toArray(Operation[]::new);
+    }
+
+    private static String token(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
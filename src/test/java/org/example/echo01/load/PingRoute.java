@@ -0,0 +1,27 @@
+package org.example.echo01.load;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.security.Principal;
+
+/**
+ * A trivial authenticated endpoint under {@code /api}, so that benchmarks and load tests measure
+ * the security filter chain and the rate limit interceptor rather than a business handler. Added
+ * to the application as an extra source; it is not a stereotype, so component scans of the tests
+ * never pick it up.
+ */
+public class PingRoute {
+
+    public static final String PATH = "/api/v1/benchmark/ping";
+
+    @Bean
+    RouterFunction<ServerResponse> benchmarkPing() {
+        return RouterFunctions.route()
+                .GET(PATH, request -> ServerResponse.ok()
+                        .body(request.principal().map(Principal::getName).orElse("")))
+                .build();
+    }
+}